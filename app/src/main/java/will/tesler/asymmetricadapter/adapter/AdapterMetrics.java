@@ -0,0 +1,268 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AdapterMetrics records how many presenters a {@link UniversalAdapter} creates and binds, and how long that takes,
+ * per view type and per presenter class. Set it on an adapter with {@link UniversalAdapter#setMetrics(AdapterMetrics)}.
+ * An adapter without metrics does not measure anything.
+ * <p>
+ * Durations are recorded in {@link LatencyHistogram histograms}, which are allocated the first time a view type or a
+ * presenter class is seen. Every recording after that is allocation-free. A {@link SlowBindListener} can be notified
+ * whenever a single bind takes longer than a threshold, and the work can also be emitted as {@link Trace} sections so
+ * that it shows up in systrace.
+ * <p>
+ * Override {@link #onCreate(int, Class, long)} and {@link #onBind(int, Class, long)} to forward the measurements
+ * elsewhere. AdapterMetrics must only be used on the main thread.
+ */
+public class AdapterMetrics {
+
+    /**
+     * Notified when a single bind takes longer than the configured threshold.
+     */
+    public interface SlowBindListener {
+
+        /**
+         * Called after a slow bind.
+         *
+         * @param viewType       The view type of the presenter.
+         * @param presenterClass The class of the presenter.
+         * @param durationNanos  How long the bind took in nanoseconds.
+         */
+        void onSlowBind(int viewType, @NonNull Class<? extends Presenter> presenterClass, long durationNanos);
+    }
+
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private final List<LatencyHistogram> mCreateHistograms = new ArrayList<>();
+    private final List<LatencyHistogram> mBindHistograms = new ArrayList<>();
+    private final Map<Class<?>, LatencyHistogram> mCreateHistogramsByClass = new IdentityHashMap<>();
+    private final Map<Class<?>, LatencyHistogram> mBindHistogramsByClass = new IdentityHashMap<>();
+
+    @Nullable
+    private SlowBindListener mSlowBindListener;
+    private long mSlowBindThresholdNanos;
+
+    private boolean mTraceEnabled;
+
+    /**
+     * Trace section names of creates by view type and of binds by presenter class, so that sections are named without
+     * allocating.
+     */
+    private final List<String> mCreateSectionNames = new ArrayList<>();
+    private final Map<Class<?>, String> mBindSectionNames = new IdentityHashMap<>();
+
+    /**
+     * Sets the listener which is notified of binds that take longer than a threshold.
+     *
+     * @param thresholdNanos The threshold in nanoseconds.
+     * @param listener       The listener, or null to stop reporting slow binds.
+     */
+    public void setSlowBindListener(long thresholdNanos, @Nullable SlowBindListener listener) {
+        mSlowBindThresholdNanos = thresholdNanos;
+        mSlowBindListener = listener;
+    }
+
+    /**
+     * Sets whether creating and binding presenters is emitted as {@link Trace} sections. Sections are only emitted on
+     * API 18 and above.
+     *
+     * @param traceEnabled {@code true} to emit trace sections.
+     */
+    public void setTraceEnabled(boolean traceEnabled) {
+        mTraceEnabled = traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * Get the durations of creating the presenters of a view type.
+     *
+     * @param viewType The view type.
+     * @return The histogram, or null if no presenter of the view type has been created.
+     */
+    @Nullable
+    public LatencyHistogram getCreateHistogram(int viewType) {
+        return viewType >= 0 && viewType < mCreateHistograms.size() ? mCreateHistograms.get(viewType) : null;
+    }
+
+    /**
+     * Get the durations of binding the presenters of a view type.
+     *
+     * @param viewType The view type.
+     * @return The histogram, or null if no presenter of the view type has been bound.
+     */
+    @Nullable
+    public LatencyHistogram getBindHistogram(int viewType) {
+        return viewType >= 0 && viewType < mBindHistograms.size() ? mBindHistograms.get(viewType) : null;
+    }
+
+    /**
+     * Get the durations of creating the presenters of a class.
+     *
+     * @param presenterClass The presenter class.
+     * @return The histogram, or null if no presenter of the class has been created.
+     */
+    @Nullable
+    public LatencyHistogram getCreateHistogram(@NonNull Class<? extends Presenter> presenterClass) {
+        return mCreateHistogramsByClass.get(presenterClass);
+    }
+
+    /**
+     * Get the durations of binding the presenters of a class.
+     *
+     * @param presenterClass The presenter class.
+     * @return The histogram, or null if no presenter of the class has been bound.
+     */
+    @Nullable
+    public LatencyHistogram getBindHistogram(@NonNull Class<? extends Presenter> presenterClass) {
+        return mBindHistogramsByClass.get(presenterClass);
+    }
+
+    /**
+     * Discards every recorded duration.
+     */
+    public void reset() {
+        mCreateHistograms.clear();
+        mBindHistograms.clear();
+        mCreateHistogramsByClass.clear();
+        mBindHistogramsByClass.clear();
+    }
+
+    /**
+     * Called after a presenter has been created.
+     *
+     * @param viewType       The view type of the presenter.
+     * @param presenterClass The class of the presenter.
+     * @param durationNanos  How long creating the presenter took in nanoseconds.
+     */
+    protected void onCreate(int viewType, @NonNull Class<? extends Presenter> presenterClass, long durationNanos) {
+        histogramAt(mCreateHistograms, viewType).record(durationNanos);
+        histogramOf(mCreateHistogramsByClass, presenterClass).record(durationNanos);
+    }
+
+    /**
+     * Called after a presenter has been bound, fully or partially.
+     *
+     * @param viewType       The view type of the presenter.
+     * @param presenterClass The class of the presenter.
+     * @param durationNanos  How long binding the presenter took in nanoseconds.
+     */
+    protected void onBind(int viewType, @NonNull Class<? extends Presenter> presenterClass, long durationNanos) {
+        histogramAt(mBindHistograms, viewType).record(durationNanos);
+        histogramOf(mBindHistogramsByClass, presenterClass).record(durationNanos);
+        if (mSlowBindListener != null && durationNanos > mSlowBindThresholdNanos) {
+            mSlowBindListener.onSlowBind(viewType, presenterClass, durationNanos);
+        }
+    }
+
+    /**
+     * Marks the start of creating a presenter.
+     *
+     * @return The start time.
+     */
+    long beginCreate(int viewType) {
+        if (mTraceEnabled) {
+            beginSection(createSectionName(viewType));
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of creating a presenter.
+     *
+     * @param presenter The presenter, or null if it could not be created.
+     * @param startTime The time returned by {@link #beginCreate(int)}.
+     */
+    void endCreate(int viewType, @Nullable Presenter presenter, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        if (mTraceEnabled) {
+            endSection();
+        }
+        if (presenter != null) {
+            onCreate(viewType, presenter.getClass(), duration);
+        }
+    }
+
+    /**
+     * Marks the start of binding a presenter.
+     *
+     * @return The start time.
+     */
+    long beginBind(@NonNull Presenter presenter) {
+        if (mTraceEnabled) {
+            beginSection(bindSectionName(presenter.getClass()));
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of binding a presenter.
+     *
+     * @param startTime The time returned by {@link #beginBind(Presenter)}.
+     */
+    void endBind(@NonNull Presenter presenter, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        if (mTraceEnabled) {
+            endSection();
+        }
+        onBind(presenter.getItemViewType(), presenter.getClass(), duration);
+    }
+
+    private String createSectionName(int viewType) {
+        while (mCreateSectionNames.size() <= viewType) {
+            mCreateSectionNames.add("UniversalAdapter create " + mCreateSectionNames.size());
+        }
+        return mCreateSectionNames.get(viewType);
+    }
+
+    private String bindSectionName(Class<?> presenterClass) {
+        String name = mBindSectionNames.get(presenterClass);
+        if (name == null) {
+            name = "UniversalAdapter bind " + presenterClass.getName();
+            if (name.length() > MAX_SECTION_NAME_LENGTH) {
+                name = name.substring(0, MAX_SECTION_NAME_LENGTH);
+            }
+            mBindSectionNames.put(presenterClass, name);
+        }
+        return name;
+    }
+
+    private static LatencyHistogram histogramAt(List<LatencyHistogram> histograms, int viewType) {
+        while (histograms.size() <= viewType) {
+            histograms.add(null);
+        }
+        LatencyHistogram histogram = histograms.get(viewType);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.set(viewType, histogram);
+        }
+        return histogram;
+    }
+
+    private static LatencyHistogram histogramOf(Map<Class<?>, LatencyHistogram> histograms, Class<?> presenterClass) {
+        LatencyHistogram histogram = histograms.get(presenterClass);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(presenterClass, histogram);
+        }
+        return histogram;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection() {
+        Trace.endSection();
+    }
+}
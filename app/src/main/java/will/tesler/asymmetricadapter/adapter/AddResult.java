@@ -1,32 +1,44 @@
 package will.tesler.asymmetricadapter.adapter;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 /**
- * An AddResult is an immutable class returned by every add operation in the adapter. It contains a unique tag
- * for the added section, as well as a boolean to determine whether the section was replaced by the add
- * operation.
+ * An AddResult is an immutable class returned by every add operation in the adapter. It contains a handle for the
+ * added section, the tag of the section if one was supplied, as well as a boolean to determine whether the section was
+ * replaced by the add operation.
  */
 public class AddResult {
 
+    private final SectionHandle mHandle;
     private final String mTag;
     private final boolean mReplaced;
 
     /**
      * Construct an immutable AddResult.
      *
-     * @param tag      The unique tag for the section.
+     * @param handle   The handle for the section.
+     * @param tag      The unique tag for the section, or null if the section was added without a tag.
      * @param replaced {@code true} if the add operation caused the adapter to replace an existing section.
      */
-    public AddResult(String tag, boolean replaced) {
+    public AddResult(@NonNull SectionHandle handle, @Nullable String tag, boolean replaced) {
+        mHandle = handle;
         mTag = tag;
         mReplaced = replaced;
     }
 
     /**
-     * @return The unique tag for the section.
+     * @return The handle for the section, which can be used to modify the section later.
      */
     @NonNull
+    public SectionHandle getHandle() {
+        return mHandle;
+    }
+
+    /**
+     * @return The unique tag for the section, or null if the section was added without a tag.
+     */
+    @Nullable
     public String getTag() {
         return mTag;
     }
@@ -40,11 +52,11 @@ public class AddResult {
 
     @Override
     public String toString() {
-        return String.format("{%s, %s}", mTag, mReplaced);
+        return String.format("{%s, %s, %s}", mHandle, mTag, mReplaced);
     }
 
     @Override
     public int hashCode() {
-        return mTag.hashCode();
+        return mHandle.hashCode();
     }
 }
\ No newline at end of file
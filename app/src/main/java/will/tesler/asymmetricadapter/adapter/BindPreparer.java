@@ -0,0 +1,266 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The BindPreparer prepares the models of {@link PreparingPresenter presenters} ahead of binding. Models within a
+ * distance of the visible positions are prepared on the computation scheduler, and the results are cached by model
+ * identity on the main thread. Preparations for models which leave that window are cancelled and dropped, including
+ * those of models which were prepared when they were bound. The window is read without loading the pages of a
+ * {@link PagedSection}, and placeholders are not prepared.
+ * <p>
+ * Each preparation is marked with the last window it was seen in, so a scroll only visits the models of the window
+ * and does not allocate unless a model is new to it.
+ * <p>
+ * Background preparation of a view type starts once a presenter of that type has been created or bound, because
+ * preparing needs a presenter instance. Until then, and whenever a result is not ready in time, models are prepared
+ * when they are bound. The presenters are let go when the adapter is detached or trims its memory, so that they do
+ * not keep the views, and with them the Activity, alive.
+ */
+final class BindPreparer {
+
+    /**
+     * The number of positions on either side of the visible positions which are prepared ahead, unless configured
+     * otherwise.
+     */
+    static final int DEFAULT_DISTANCE = 10;
+
+    /**
+     * Stands in for a null result, which a Single cannot emit.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The preparation of a model, which is done once its result is set.
+     */
+    private static final class Preparation {
+
+        @Nullable
+        Object result;
+
+        @Nullable
+        Disposable work;
+
+        /**
+         * The last window which the model was seen in.
+         */
+        int window;
+    }
+
+    private final UniversalAdapter mAdapter;
+
+    /**
+     * A presenter of each view type, indexed by view type, used to prepare models in the background.
+     */
+    private final List<PreparingPresenter<?, ?>> mPreparers = new ArrayList<>();
+
+    private final Map<Object, Preparation> mPreparations = new IdentityHashMap<>();
+
+    private int mDistance = DEFAULT_DISTANCE;
+
+    /**
+     * Counts the windows, to mark the preparations seen in each.
+     */
+    private int mWindow;
+
+    BindPreparer(@NonNull UniversalAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * Sets how many positions on either side of the visible positions are prepared ahead.
+     *
+     * @param distance The distance in positions, or 0 to only prepare models when they are bound.
+     */
+    void setDistance(int distance) {
+        mDistance = Math.max(distance, 0);
+        if (mDistance == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Remembers a presenter so that models of its view type can be prepared in the background.
+     *
+     * @param viewType  The view type of the presenter.
+     * @param presenter The presenter.
+     */
+    void onCreated(int viewType, @NonNull Presenter presenter) {
+        if (!(presenter instanceof PreparingPresenter)) {
+            return;
+        }
+        while (mPreparers.size() <= viewType) {
+            mPreparers.add(null);
+        }
+        if (mPreparers.get(viewType) == null) {
+            mPreparers.set(viewType, (PreparingPresenter<?, ?>) presenter);
+        }
+    }
+
+    /**
+     * Presents a model with the prepared result, preparing it synchronously if it is not ready. The result is kept
+     * until the model leaves the window, unless models are only prepared when they are bound.
+     *
+     * @param presenter The presenter.
+     * @param model     The model.
+     * @param relay     The relay.
+     */
+    void bind(@NonNull PreparingPresenter<?, ?> presenter, @NonNull Object model, @NonNull UniversalRelay relay) {
+        onCreated(presenter.getItemViewType(), presenter);
+        Preparation preparation = mPreparations.get(model);
+        if (preparation == null || preparation.result == null) {
+            if (preparation != null && preparation.work != null) {
+                preparation.work.dispose();
+            }
+            Object result = wrap(presenter.prepareModel(model));
+            if (mDistance == 0 || model == PagedSection.PLACEHOLDER) {
+                mPreparations.remove(model);
+                presenter.presentPrepared(model, result == NULL ? null : result, relay);
+                return;
+            }
+            preparation = new Preparation();
+            preparation.result = result;
+            preparation.window = mWindow;
+            mPreparations.put(model, preparation);
+        }
+        presenter.presentPrepared(model, preparation.result == NULL ? null : preparation.result, relay);
+    }
+
+    /**
+     * Prepares the models around the visible positions, and cancels and drops the preparations of every other
+     * model.
+     *
+     * @param firstVisible The first visible adapter position.
+     * @param lastVisible  The last visible adapter position.
+     */
+    void onVisibleRangeChanged(int firstVisible, int lastVisible) {
+        if (mDistance == 0) {
+            return;
+        }
+        int first = Math.max(firstVisible - mDistance, 0);
+        int last = Math.min(lastVisible + mDistance, mAdapter.getItemCount() - 1);
+        int window = ++mWindow;
+        int seen = 0;
+        for (int position = first; position <= last; position++) {
+            Object model = mAdapter.peek(position);
+            if (model == null || model == PagedSection.PLACEHOLDER) {
+                continue;
+            }
+            Preparation preparation = mPreparations.get(model);
+            if (preparation != null) {
+                if (preparation.window != window) {
+                    preparation.window = window;
+                    seen++;
+                }
+                continue;
+            }
+            int viewType = mAdapter.getItemViewType(position);
+            PreparingPresenter<?, ?> preparer = viewType < mPreparers.size() ? mPreparers.get(viewType) : null;
+            if (preparer != null) {
+                prepareInBackground(preparer, model, window);
+                seen++;
+            }
+        }
+        if (seen == mPreparations.size()) {
+            return;
+        }
+        Iterator<Preparation> iterator = mPreparations.values().iterator();
+        while (iterator.hasNext()) {
+            Preparation preparation = iterator.next();
+            if (preparation.window != window) {
+                cancel(preparation);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the preparations of the models at a range of positions, so that they are prepared again.
+     *
+     * @param positionStart The first adapter position.
+     * @param itemCount     The number of positions.
+     */
+    void invalidate(int positionStart, int itemCount) {
+        if (mPreparations.isEmpty()) {
+            return;
+        }
+        int end = Math.min(positionStart + itemCount, mAdapter.getItemCount());
+        for (int position = Math.max(positionStart, 0); position < end; position++) {
+            Preparation preparation = mPreparations.remove(mAdapter.peek(position));
+            if (preparation != null) {
+                cancel(preparation);
+            }
+        }
+    }
+
+    /**
+     * Cancels and drops every preparation.
+     */
+    void clear() {
+        for (Preparation preparation : mPreparations.values()) {
+            cancel(preparation);
+        }
+        mPreparations.clear();
+    }
+
+    /**
+     * Cancels and drops every preparation, and lets go of the presenters used to prepare models. Preparation in the
+     * background resumes once presenters are created or bound again.
+     */
+    void release() {
+        clear();
+        mPreparers.clear();
+    }
+
+    private void prepareInBackground(final PreparingPresenter<?, ?> preparer, final Object model, int window) {
+        final Preparation preparation = new Preparation();
+        preparation.window = window;
+        mPreparations.put(model, preparation);
+        preparation.work = Single.fromCallable(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return wrap(preparer.prepareModel(model));
+            }
+        }).subscribeOn(Schedulers.computation()).observeOn(AndroidSchedulers.mainThread()).subscribe(
+                new Consumer<Object>() {
+                    @Override
+                    public void accept(Object result) throws Exception {
+                        preparation.work = null;
+                        preparation.result = result;
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        // Leave the model to be prepared when it is bound, where the error surfaces.
+                        preparation.work = null;
+                        Log.e(BindPreparer.class.getName(), "Failed to prepare " + model, throwable);
+                    }
+                });
+    }
+
+    private static void cancel(Preparation preparation) {
+        if (preparation.work != null) {
+            preparation.work.dispose();
+            preparation.work = null;
+        }
+    }
+
+    private static Object wrap(@Nullable Object result) {
+        return result == null ? NULL : result;
+    }
+}
@@ -0,0 +1,85 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A CarouselPool is the {@link RecyclerView.RecycledViewPool} which the {@link CarouselPresenter carousels} of a list
+ * share, so that a view scrolled out of one carousel can be bound in another without being created again. It also
+ * remembers how far each carousel was scrolled, so that a carousel which is scrolled away and back is presented at
+ * the same scroll position even though its view has been reused in the meantime.
+ * <p>
+ * Only the scroll positions of the most recently presented carousels are remembered. A CarouselPool must only be used
+ * on the main thread.
+ */
+public class CarouselPool extends RecyclerView.RecycledViewPool {
+
+    /**
+     * The number of scroll positions which are remembered by default.
+     */
+    public static final int DEFAULT_MAX_SCROLL_STATES = 100;
+
+    private final Map<Object, Parcelable> mScrollStates;
+
+    /**
+     * Constructs a pool which remembers the scroll positions of {@link #DEFAULT_MAX_SCROLL_STATES} carousels.
+     */
+    public CarouselPool() {
+        this(DEFAULT_MAX_SCROLL_STATES);
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param maxScrollStates The number of carousels whose scroll position is remembered.
+     * @throws IllegalArgumentException If the number is negative.
+     */
+    public CarouselPool(final int maxScrollStates) {
+        if (maxScrollStates < 0) {
+            throw new IllegalArgumentException("Invalid max scroll states " + maxScrollStates);
+        }
+        mScrollStates = new LinkedHashMap<Object, Parcelable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Parcelable> eldest) {
+                return size() > maxScrollStates;
+            }
+        };
+    }
+
+    /**
+     * Forgets every scroll position, so that every carousel starts at the beginning when it is presented next.
+     */
+    public void clearScrollStates() {
+        mScrollStates.clear();
+    }
+
+    /**
+     * Remembers the scroll position of a carousel.
+     *
+     * @param key   The key of the carousel.
+     * @param state The saved state of its layout manager.
+     */
+    void putScrollState(@NonNull Object key, @Nullable Parcelable state) {
+        if (state == null) {
+            mScrollStates.remove(key);
+        } else {
+            mScrollStates.put(key, state);
+        }
+    }
+
+    /**
+     * Get the scroll position of a carousel.
+     *
+     * @param key The key of the carousel.
+     * @return The saved state of its layout manager, or null if it is not remembered.
+     */
+    @Nullable
+    Parcelable getScrollState(@NonNull Object key) {
+        return mScrollStates.get(key);
+    }
+}
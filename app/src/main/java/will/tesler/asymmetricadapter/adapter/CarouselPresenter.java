@@ -0,0 +1,142 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+/**
+ * A CarouselPresenter presents a model as a horizontally scrolling list of other models, such as a row of a feed.
+ * The carousel is a {@link RecyclerView} with a {@link UniversalAdapter} of its own, which is in shared pool mode with
+ * the {@link CarouselPool} of the list. Register the presenters of the carousel with {@link #getCarouselAdapter()} in
+ * the constructor of the subclass, and return the models of a carousel from {@link #getSection(Object)}.
+ * <p>
+ * Since every carousel of the list puts its views in the same pool when it is scrolled away, scrolling through many
+ * carousels creates about as many views as are visible at once, rather than as many as every carousel has shown. The
+ * scroll position of each carousel is remembered by the pool under {@link #getKey(Object)} when the carousel is
+ * detached, while it still has its children, and restored when the carousel is presented again.
+ *
+ * @param <T> The model which this presenter presents as a carousel.
+ */
+public abstract class CarouselPresenter<T> extends Presenter<T> {
+
+    private static final String CAROUSEL_TAG = "CAROUSEL";
+
+    @NonNull
+    private final CarouselPool mPool;
+
+    @NonNull
+    private final UniversalAdapter mAdapter = new UniversalAdapter();
+
+    @NonNull
+    private final LinearLayoutManager mLayoutManager;
+
+    /**
+     * The key of the carousel which is presented, or null.
+     */
+    @Nullable
+    private Object mKey;
+
+    /**
+     * Constructs a carousel.
+     *
+     * @param parent The ViewGroup that the carousel will be added to.
+     * @param pool   The pool which is shared by the carousels of the list.
+     */
+    protected CarouselPresenter(@NonNull ViewGroup parent, @NonNull CarouselPool pool) {
+        super(new RecyclerView(parent.getContext()));
+        mPool = pool;
+        mLayoutManager = new LinearLayoutManager(parent.getContext(), LinearLayoutManager.HORIZONTAL, false);
+        // Return the views to the shared pool when the carousel is scrolled away, rather than keeping them attached.
+        mLayoutManager.setRecycleChildrenOnDetach(true);
+        mAdapter.setSharedPool(pool);
+
+        RecyclerView recyclerView = getRecyclerView();
+        recyclerView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        recyclerView.setLayoutManager(mLayoutManager);
+        recyclerView.setAdapter(mAdapter);
+    }
+
+    /**
+     * Get the models of the carousel for a model.
+     *
+     * @param model The model which is presented.
+     * @return The section which the carousel shows.
+     */
+    @NonNull
+    protected abstract Section getSection(@NonNull T model);
+
+    /**
+     * Get the key under which the scroll position of the carousel for a model is remembered. Defaults to the model.
+     *
+     * @param model The model which is presented.
+     * @return The key.
+     */
+    @NonNull
+    protected Object getKey(@NonNull T model) {
+        return model;
+    }
+
+    @Override
+    protected void present(T model, @NonNull UniversalRelay relay) {
+        saveScrollState();
+        mKey = getKey(model);
+        mAdapter.add(getSection(model), CAROUSEL_TAG);
+        Parcelable state = mPool.getScrollState(mKey);
+        if (state != null) {
+            mLayoutManager.onRestoreInstanceState(state);
+        } else {
+            mLayoutManager.scrollToPosition(0);
+        }
+    }
+
+    /**
+     * Remembers the scroll position of the carousel. The list calls this before the carousel leaves the window, which
+     * recycles the children of the carousel and with them the position it could save.
+     */
+    @Override
+    protected void onDetached() {
+        saveScrollState();
+    }
+
+    /**
+     * Drops the models of the carousel, so that the pooled carousel does not keep them alive.
+     */
+    @Override
+    protected void onRecycled() {
+        saveScrollState();
+        mKey = null;
+        mAdapter.remove(CAROUSEL_TAG);
+    }
+
+    /**
+     * Get the adapter of the carousel, to register its presenters and to observe the events they emit.
+     *
+     * @return The adapter.
+     */
+    @NonNull
+    protected final UniversalAdapter getCarouselAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * @return The RecyclerView of the carousel.
+     */
+    @NonNull
+    protected final RecyclerView getRecyclerView() {
+        return (RecyclerView) itemView;
+    }
+
+    /**
+     * Remembers the scroll position of the carousel which is presented, unless its children have been recycled
+     * already, in which case the position saved when it was detached is kept.
+     */
+    private void saveScrollState() {
+        if (mKey != null && mLayoutManager.getChildCount() > 0) {
+            mPool.putScrollState(mKey, mLayoutManager.onSaveInstanceState());
+        }
+    }
+}
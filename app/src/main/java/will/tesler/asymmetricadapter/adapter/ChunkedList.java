@@ -0,0 +1,522 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A ChunkedList stores elements in chunks, so that an insertion or removal only shifts the elements of one chunk and
+ * the references to the chunks after it. New chunks hold about the square root of the size of the list, and at least
+ * {@link #MIN_CHUNK_CAPACITY} elements. Splitting full chunks and removing elements can leave many small chunks
+ * behind, so once there are more than twice as many chunks as the capacity of a new chunk calls for, every chunk is
+ * rebuilt at that capacity. An insertion or removal anywhere therefore costs amortized O(sqrt(n)). A lookup is a
+ * binary search over the chunks, unless it is in the same chunk as the lookup before it.
+ * <p>
+ * Chunks can be shared between lists. {@link #copy()} is O(number of chunks) because the copy references the same
+ * chunks, and a shared chunk is copied the first time either list writes to it. Lists which still share a chunk
+ * therefore hold the same elements in it, which makes it cheap to find the ranges two related lists have in common.
+ * <p>
+ * A ChunkedList is not thread-safe, but a chunk is never written once it is shared, so a copy can be read on another
+ * thread while the original keeps being written.
+ */
+final class ChunkedList {
+
+    /**
+     * The capacity of a chunk while the list is small.
+     */
+    static final int MIN_CHUNK_CAPACITY = 64;
+
+    private Object[][] mChunks = new Object[4][];
+    private int[] mSizes = new int[4];
+
+    /**
+     * Whether each chunk may be referenced by another list, in which case it is copied before it is written.
+     */
+    private boolean[] mShared = new boolean[4];
+
+    private int mChunkCount;
+    private int mSize;
+
+    /**
+     * {@code mEnds[i]} is the index just after the last element of chunk {@code i}. Only valid for the first
+     * {@code mValidCount} chunks.
+     */
+    private int[] mEnds = new int[4];
+    private int mValidCount;
+
+    /**
+     * The chunk of the last lookup, which is checked first so that iterating in order does not search. It is only a
+     * hint, and a race between readers on different threads at worst costs a search.
+     */
+    private int mLastChunk;
+
+    /**
+     * Constructs an empty list.
+     */
+    ChunkedList() { }
+
+    /**
+     * @return The number of elements.
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Get an element.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    Object get(int index) {
+        checkIndex(index, mSize);
+        int chunk = chunkOf(index);
+        return mChunks[chunk][index - startOf(chunk)];
+    }
+
+    /**
+     * Replaces an element.
+     *
+     * @param index   The index of the element.
+     * @param element The new element.
+     * @return The element which was replaced.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    Object set(int index, Object element) {
+        checkIndex(index, mSize);
+        int chunk = chunkOf(index);
+        Object[] elements = own(chunk);
+        int offset = index - startOf(chunk);
+        Object replaced = elements[offset];
+        elements[offset] = element;
+        return replaced;
+    }
+
+    /**
+     * Appends an element.
+     *
+     * @param element The element.
+     */
+    void add(Object element) {
+        int last = mChunkCount - 1;
+        if (last < 0 || mSizes[last] == mChunks[last].length) {
+            insertChunk(mChunkCount, new Object[chunkCapacity()], 0);
+            last++;
+        }
+        own(last)[mSizes[last]++] = element;
+        mSize++;
+        invalidateFrom(last);
+    }
+
+    /**
+     * Inserts an element.
+     *
+     * @param index   The index at which the element is inserted.
+     * @param element The element.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    void add(int index, Object element) {
+        checkIndex(index, mSize + 1);
+        if (index == mSize) {
+            add(element);
+            return;
+        }
+        int chunk = chunkOf(index);
+        int offset = index - startOf(chunk);
+        int size = mSizes[chunk];
+        if (size == mChunks[chunk].length) {
+            // Split the full chunk in half and insert into whichever half holds the index.
+            int half = size / 2;
+            Object[] upper = new Object[Math.max(chunkCapacity(), size)];
+            System.arraycopy(mChunks[chunk], half, upper, 0, size - half);
+            Object[] lower = own(chunk);
+            Arrays.fill(lower, half, size, null);
+            mSizes[chunk] = half;
+            invalidateFrom(chunk);
+            insertChunk(chunk + 1, upper, size - half);
+            if (offset > half) {
+                chunk++;
+                offset -= half;
+            }
+        }
+        Object[] elements = own(chunk);
+        System.arraycopy(elements, offset, elements, offset + 1, mSizes[chunk] - offset);
+        elements[offset] = element;
+        mSizes[chunk]++;
+        mSize++;
+        invalidateFrom(chunk);
+        rebuildIfFragmented();
+    }
+
+    /**
+     * Appends every element of a collection.
+     *
+     * @param elements The elements.
+     */
+    void addAll(@NonNull Collection<?> elements) {
+        for (Object element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Inserts every element of a collection. The chunk holding the index is split there, and the elements are added in
+     * new chunks between its halves, so the cost is in proportion to the number of elements and chunks rather than
+     * to the size of the list.
+     *
+     * @param index    The index at which the first element is inserted.
+     * @param elements The elements.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    void addAll(int index, @NonNull Collection<?> elements) {
+        checkIndex(index, mSize + 1);
+        if (index == mSize) {
+            addAll(elements);
+            return;
+        }
+        if (elements.isEmpty()) {
+            return;
+        }
+        int chunk = chunkOf(index);
+        int offset = index - startOf(chunk);
+        if (offset > 0) {
+            int size = mSizes[chunk];
+            Object[] upper = new Object[Math.max(chunkCapacity(), size - offset)];
+            System.arraycopy(mChunks[chunk], offset, upper, 0, size - offset);
+            Arrays.fill(own(chunk), offset, size, null);
+            mSizes[chunk] = offset;
+            invalidateFrom(chunk);
+            insertChunk(chunk + 1, upper, size - offset);
+            chunk++;
+        }
+        int count = elements.size();
+        mSize += count;
+        int capacity = chunkCapacity();
+        Object[] current = null;
+        int filled = 0;
+        for (Object element : elements) {
+            if (current == null || filled == current.length) {
+                if (current != null) {
+                    insertChunk(chunk++, current, filled);
+                }
+                current = new Object[capacity];
+                filled = 0;
+            }
+            current[filled++] = element;
+        }
+        insertChunk(chunk, current, filled);
+        rebuildIfFragmented();
+    }
+
+    /**
+     * Removes an element.
+     *
+     * @param index The index of the element.
+     * @return The removed element.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    Object remove(int index) {
+        checkIndex(index, mSize);
+        int chunk = chunkOf(index);
+        int offset = index - startOf(chunk);
+        Object[] elements = own(chunk);
+        Object removed = elements[offset];
+        int size = --mSizes[chunk];
+        System.arraycopy(elements, offset + 1, elements, offset, size - offset);
+        elements[size] = null;
+        mSize--;
+        if (size == 0) {
+            removeChunk(chunk);
+        } else {
+            mergeIfSparse(chunk);
+        }
+        invalidateFrom(chunk);
+        rebuildIfFragmented();
+        return removed;
+    }
+
+    /**
+     * Removes a range of elements. Chunks which lie entirely within the range are dropped without being copied.
+     *
+     * @param fromIndex The index of the first element which is removed.
+     * @param toIndex   The index after the last element which is removed.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + mSize);
+        }
+        int remaining = toIndex - fromIndex;
+        if (remaining == 0) {
+            return;
+        }
+        int first = chunkOf(fromIndex);
+        int chunk = first;
+        int offset = fromIndex - startOf(chunk);
+        mSize -= remaining;
+        while (remaining > 0) {
+            int size = mSizes[chunk];
+            int count = Math.min(remaining, size - offset);
+            remaining -= count;
+            if (count == size) {
+                removeChunk(chunk);
+            } else {
+                Object[] elements = own(chunk);
+                System.arraycopy(elements, offset + count, elements, offset, size - offset - count);
+                Arrays.fill(elements, size - count, size, null);
+                mSizes[chunk] = size - count;
+                chunk++;
+                offset = 0;
+            }
+        }
+        invalidateFrom(first);
+        // The range can leave a sparse chunk on either side of where it was.
+        mergeIfSparse(first);
+        if (first > 0) {
+            mergeIfSparse(first - 1);
+        }
+        rebuildIfFragmented();
+    }
+
+    /**
+     * Removes every element.
+     */
+    void clear() {
+        Arrays.fill(mChunks, 0, mChunkCount, null);
+        mChunkCount = 0;
+        mSize = 0;
+        mValidCount = 0;
+    }
+
+    /**
+     * Copies the list in O(number of chunks). Both lists share every chunk until they write to it.
+     * <p>
+     * The chunk ends of the copy are computed up front, so a copy which is only read is never written apart from its
+     * lookup hint, and can be read on several threads at once. Copying such a copy does not write to it either.
+     *
+     * @return The copy.
+     */
+    @NonNull
+    ChunkedList copy() {
+        for (int chunk = 0; chunk < mChunkCount; chunk++) {
+            if (!mShared[chunk]) {
+                mShared[chunk] = true;
+            }
+        }
+        ChunkedList copy = new ChunkedList();
+        int capacity = Math.max(mChunkCount, 4);
+        copy.mChunks = Arrays.copyOf(mChunks, capacity);
+        copy.mSizes = Arrays.copyOf(mSizes, capacity);
+        copy.mShared = Arrays.copyOf(mShared, capacity);
+        copy.mEnds = new int[capacity];
+        copy.mChunkCount = mChunkCount;
+        copy.mSize = mSize;
+        copy.validate();
+        return copy;
+    }
+
+    /**
+     * Copies every element into an array.
+     *
+     * @param array  The array.
+     * @param offset The index in the array of the first element.
+     */
+    void copyInto(@NonNull Object[] array, int offset) {
+        for (int chunk = 0; chunk < mChunkCount; chunk++) {
+            System.arraycopy(mChunks[chunk], 0, array, offset, mSizes[chunk]);
+            offset += mSizes[chunk];
+        }
+    }
+
+    /**
+     * Counts the elements at the start of this list which are in the same chunks as the start of another list.
+     *
+     * @param other The other list.
+     * @return The number of leading elements held in shared chunks.
+     */
+    int sharedPrefix(@NonNull ChunkedList other) {
+        int count = 0;
+        int limit = Math.min(mChunkCount, other.mChunkCount);
+        for (int chunk = 0; chunk < limit && sameChunk(chunk, other, chunk); chunk++) {
+            count += mSizes[chunk];
+        }
+        return count;
+    }
+
+    /**
+     * Counts the elements at the end of this list which are in the same chunks as the end of another list.
+     *
+     * @param other The other list.
+     * @param limit The maximum count, so that the suffix does not overlap a prefix counted already.
+     * @return The number of trailing elements held in shared chunks, at most {@code limit}.
+     */
+    int sharedSuffix(@NonNull ChunkedList other, int limit) {
+        int count = 0;
+        int chunk = mChunkCount - 1;
+        int otherChunk = other.mChunkCount - 1;
+        while (chunk >= 0 && otherChunk >= 0 && sameChunk(chunk, other, otherChunk)
+                && count + mSizes[chunk] <= limit) {
+            count += mSizes[chunk--];
+            otherChunk--;
+        }
+        return count;
+    }
+
+    /**
+     * Merges the chunk after a chunk into it if both fit in half of its capacity, so that removals do not leave behind
+     * a long tail of nearly empty chunks.
+     */
+    private void mergeIfSparse(int chunk) {
+        if (chunk + 1 < mChunkCount && mSizes[chunk] + mSizes[chunk + 1] <= mChunks[chunk].length / 2) {
+            Object[] elements = own(chunk);
+            System.arraycopy(mChunks[chunk + 1], 0, elements, mSizes[chunk], mSizes[chunk + 1]);
+            mSizes[chunk] += mSizes[chunk + 1];
+            removeChunk(chunk + 1);
+            invalidateFrom(chunk);
+        }
+    }
+
+    /**
+     * Rebuilds the chunks at the capacity of a new chunk once there are more than twice as many as that capacity calls
+     * for. Front insertions, for example, keep splitting the first chunk at the capacity it was created with, which
+     * would otherwise leave O(n) half full chunks behind. The rebuild is O(n), but about n / capacity chunks have to be
+     * added, or the list has to shrink by half, before the next one, so it costs amortized O(sqrt(n)).
+     */
+    private void rebuildIfFragmented() {
+        int capacity = chunkCapacity();
+        if (mChunkCount <= 2 * (mSize / capacity + 1)) {
+            return;
+        }
+        int chunkCount = (mSize + capacity - 1) / capacity;
+        int length = Math.max(chunkCount, 4);
+        Object[][] chunks = new Object[length][];
+        int[] sizes = new int[length];
+        int chunk = -1;
+        for (int source = 0; source < mChunkCount; source++) {
+            int copied = 0;
+            while (copied < mSizes[source]) {
+                if (chunk < 0 || sizes[chunk] == capacity) {
+                    chunks[++chunk] = new Object[capacity];
+                }
+                int count = Math.min(mSizes[source] - copied, capacity - sizes[chunk]);
+                System.arraycopy(mChunks[source], copied, chunks[chunk], sizes[chunk], count);
+                sizes[chunk] += count;
+                copied += count;
+            }
+        }
+        mChunks = chunks;
+        mSizes = sizes;
+        mShared = new boolean[length];
+        mEnds = new int[length];
+        mChunkCount = chunkCount;
+        mValidCount = 0;
+        mLastChunk = 0;
+    }
+
+    private boolean sameChunk(int chunk, ChunkedList other, int otherChunk) {
+        return mChunks[chunk] == other.mChunks[otherChunk] && mSizes[chunk] == other.mSizes[otherChunk];
+    }
+
+    /**
+     * Get a chunk which may be written, copying it first if it is shared.
+     */
+    private Object[] own(int chunk) {
+        if (mShared[chunk]) {
+            mChunks[chunk] = Arrays.copyOf(mChunks[chunk], mChunks[chunk].length);
+            mShared[chunk] = false;
+        }
+        return mChunks[chunk];
+    }
+
+    /**
+     * @return The capacity of a new chunk, about the square root of the size of the list.
+     */
+    private int chunkCapacity() {
+        int capacity = MIN_CHUNK_CAPACITY;
+        while ((long) capacity * capacity < mSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private void insertChunk(int chunk, Object[] elements, int size) {
+        if (mChunkCount == mChunks.length) {
+            int capacity = mChunkCount * 2;
+            mChunks = Arrays.copyOf(mChunks, capacity);
+            mSizes = Arrays.copyOf(mSizes, capacity);
+            mShared = Arrays.copyOf(mShared, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+        }
+        int moved = mChunkCount - chunk;
+        System.arraycopy(mChunks, chunk, mChunks, chunk + 1, moved);
+        System.arraycopy(mSizes, chunk, mSizes, chunk + 1, moved);
+        System.arraycopy(mShared, chunk, mShared, chunk + 1, moved);
+        mChunks[chunk] = elements;
+        mSizes[chunk] = size;
+        mShared[chunk] = false;
+        mChunkCount++;
+        invalidateFrom(chunk);
+    }
+
+    private void removeChunk(int chunk) {
+        int moved = mChunkCount - chunk - 1;
+        System.arraycopy(mChunks, chunk + 1, mChunks, chunk, moved);
+        System.arraycopy(mSizes, chunk + 1, mSizes, chunk, moved);
+        System.arraycopy(mShared, chunk + 1, mShared, chunk, moved);
+        mChunks[--mChunkCount] = null;
+        invalidateFrom(chunk);
+    }
+
+    private void invalidateFrom(int chunk) {
+        mValidCount = Math.min(mValidCount, chunk);
+    }
+
+    private int startOf(int chunk) {
+        return chunk == 0 ? 0 : mEnds[chunk - 1];
+    }
+
+    /**
+     * Finds the chunk which holds an index.
+     */
+    private int chunkOf(int index) {
+        validate();
+        int last = mLastChunk;
+        if (last < mChunkCount && index < mEnds[last] && index >= startOf(last)) {
+            return last;
+        }
+        int low = 0;
+        int high = mChunkCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mEnds[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        mLastChunk = low;
+        return low;
+    }
+
+    /**
+     * Recomputes the chunk ends which are stale.
+     */
+    private void validate() {
+        if (mValidCount < mChunkCount) {
+            int end = mValidCount == 0 ? 0 : mEnds[mValidCount - 1];
+            for (int chunk = mValidCount; chunk < mChunkCount; chunk++) {
+                end += mSizes[chunk];
+                mEnds[chunk] = end;
+            }
+            mValidCount = mChunkCount;
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.view.ViewGroup;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The default {@link PresenterFactory}. The presenter's {@code Presenter(ViewGroup parent)} constructor and its model
+ * class are looked up once when the presenter is registered, so creating a presenter is a single constructor call.
+ */
+final class ConstructorPresenterFactory implements PresenterFactory<Object> {
+
+    private final Class<? extends Presenter> mPresenterClass;
+    private final Constructor<? extends Presenter> mConstructor;
+    private final Class<?> mModelClass;
+
+    /**
+     * Construct a factory for a presenter class.
+     *
+     * @param presenterClass The presenter class.
+     * @throws IllegalArgumentException If the presenter does not define a {@code Presenter(ViewGroup parent)}
+     *                                  constructor or if its model class cannot be determined.
+     */
+    ConstructorPresenterFactory(@NonNull Class<? extends Presenter> presenterClass) {
+        mPresenterClass = presenterClass;
+        try {
+            mConstructor = presenterClass.getDeclaredConstructor(ViewGroup.class);
+            mConstructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Ensure that " + presenterClass.getSimpleName()
+                    + " defines a public constructor " + presenterClass.getSimpleName() + "(ViewGroup parent)."
+                    + " Also, ensure that your Presenter class is not an inner class.", e);
+        }
+        mModelClass = resolveModelClass(presenterClass);
+    }
+
+    /**
+     * @return The presenter class.
+     */
+    @NonNull
+    Class<? extends Presenter> getPresenterClass() {
+        return mPresenterClass;
+    }
+
+    /**
+     * @return The model class which the presenter is declared for.
+     */
+    @NonNull
+    Class<?> getModelClass() {
+        return mModelClass;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    @Override
+    public Presenter<Object> create(@NonNull ViewGroup parent) {
+        try {
+            return mConstructor.newInstance(parent);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (Exception e) {
+            Log.e(getClass().getName(), e + ". Ensure that " + mPresenterClass.getSimpleName()
+                    + " defines a public constructor " + mPresenterClass.getSimpleName() + "(ViewGroup parent).", e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finds the class that a presenter class binds to {@code T} in {@code Presenter<T>}, following type variables
+     * through any intermediate presenter classes.
+     *
+     * @param presenterClass The presenter class.
+     * @return The model class.
+     */
+    @NonNull
+    private static Class<?> resolveModelClass(@NonNull Class<? extends Presenter> presenterClass) {
+        Map<TypeVariable<?>, Type> arguments = new HashMap<>();
+        for (Class<?> type = presenterClass; type != Presenter.class; type = type.getSuperclass()) {
+            Type superclass = type.getGenericSuperclass();
+            if (superclass instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) superclass;
+                TypeVariable<?>[] variables = ((Class<?>) parameterized.getRawType()).getTypeParameters();
+                Type[] actual = parameterized.getActualTypeArguments();
+                for (int i = 0; i < variables.length; i++) {
+                    Type argument = actual[i];
+                    if (argument instanceof TypeVariable && arguments.containsKey(argument)) {
+                        argument = arguments.get(argument);
+                    }
+                    arguments.put(variables[i], argument);
+                }
+            }
+        }
+        Type modelType = arguments.get(Presenter.class.getTypeParameters()[0]);
+        if (modelType instanceof ParameterizedType) {
+            modelType = ((ParameterizedType) modelType).getRawType();
+        }
+        if (!(modelType instanceof Class)) {
+            throw new IllegalArgumentException("Could not determine the model class of "
+                    + presenterClass.getSimpleName() + ". Register it with register(Class, PresenterFactory) instead.");
+        }
+        return (Class<?>) modelType;
+    }
+}
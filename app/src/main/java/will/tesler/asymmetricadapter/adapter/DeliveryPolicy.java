@@ -0,0 +1,157 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
+/**
+ * A DeliveryPolicy decides when the {@link UniversalRelay} delivers the events of an action to their observers. Set
+ * one per action with {@link UniversalRelay#setDeliveryPolicy(String, DeliveryPolicy)}.
+ * <p>
+ * By default events are delivered {@link #IMMEDIATE immediately}, that is synchronously inside the
+ * {@code present} call which emitted them. Every other policy buffers the events and delivers them later as a batch,
+ * so that observers of high-frequency events such as impressions do not add work to the bind. A batch is delivered
+ * to {@link UniversalRelay#getObservable(Class, String)} one event at a time and to
+ * {@link UniversalRelay#getBatchObservable(Class, String)} as a single list.
+ * <p>
+ * Buffers are bounded. An event which arrives while its buffer is full is dropped and counted, see
+ * {@link UniversalRelay#getDroppedEventCount()}.
+ */
+public final class DeliveryPolicy {
+
+    /**
+     * Delivers every event synchronously as it is emitted.
+     */
+    public static final DeliveryPolicy IMMEDIATE = new DeliveryPolicy(null, false, null, 0);
+
+    @Nullable
+    private final Scheduler mScheduler;
+
+    private final boolean mCoalesced;
+
+    @Nullable
+    private final KeyExtractor<Object> mKeyExtractor;
+
+    private final int mMaxBuffered;
+
+    private DeliveryPolicy(@Nullable Scheduler scheduler, boolean coalesced, @Nullable KeyExtractor<Object> keyExtractor,
+                           int maxBuffered) {
+        mScheduler = scheduler;
+        mCoalesced = coalesced;
+        mKeyExtractor = keyExtractor;
+        mMaxBuffered = maxBuffered;
+    }
+
+    /**
+     * Get a policy which delivers the events emitted during a frame as one batch on the main thread, once the frame's
+     * binds have completed.
+     *
+     * @param maxBuffered The number of events buffered per model class before events are dropped.
+     * @return The policy.
+     * @throws IllegalArgumentException If the buffer size is not positive.
+     */
+    @NonNull
+    public static DeliveryPolicy perFrame(int maxBuffered) {
+        return new DeliveryPolicy(null, false, null, checkMaxBuffered(maxBuffered));
+    }
+
+    /**
+     * Get a policy which delivers the events emitted during a frame as one batch on the main thread, keeping only the
+     * latest event per key. The key of a model is its {@link Keyed#getKey()} or else the model itself. An event
+     * which replaces a buffered one keeps that event's place in the batch, and is never dropped.
+     *
+     * @param maxBuffered The number of keys buffered per model class before events are dropped.
+     * @return The policy.
+     * @throws IllegalArgumentException If the buffer size is not positive.
+     */
+    @NonNull
+    public static DeliveryPolicy coalesced(int maxBuffered) {
+        return new DeliveryPolicy(null, true, null, checkMaxBuffered(maxBuffered));
+    }
+
+    /**
+     * Get a policy which delivers the events emitted during a frame as one batch on the main thread, keeping only the
+     * latest event per key.
+     *
+     * @param keyExtractor Extracts the key of the models. It is called on the thread which emits the event.
+     * @param maxBuffered  The number of keys buffered per model class before events are dropped.
+     * @return The policy.
+     * @throws IllegalArgumentException If the buffer size is not positive.
+     * @see #coalesced(int)
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static DeliveryPolicy coalesced(@NonNull KeyExtractor<?> keyExtractor, int maxBuffered) {
+        return new DeliveryPolicy(null, true, (KeyExtractor<Object>) keyExtractor, checkMaxBuffered(maxBuffered));
+    }
+
+    /**
+     * Get a policy which delivers the events as batches on a scheduler, for example to log them off the main thread.
+     * A batch holds the events which were emitted until the scheduler ran it.
+     *
+     * @param scheduler   The scheduler which delivers the events.
+     * @param maxBuffered The number of events buffered per model class before events are dropped.
+     * @return The policy.
+     * @throws IllegalArgumentException If the buffer size is not positive.
+     */
+    @NonNull
+    public static DeliveryPolicy on(@NonNull Scheduler scheduler, int maxBuffered) {
+        return new DeliveryPolicy(scheduler, false, null, checkMaxBuffered(maxBuffered));
+    }
+
+    /**
+     * @return {@code true} if events are delivered as they are emitted.
+     */
+    boolean isImmediate() {
+        return mMaxBuffered == 0;
+    }
+
+    /**
+     * @return {@code true} if only the latest event per key is delivered.
+     */
+    boolean isCoalesced() {
+        return mCoalesced;
+    }
+
+    /**
+     * @return The number of events or keys which can be buffered.
+     */
+    int getMaxBuffered() {
+        return mMaxBuffered;
+    }
+
+    /**
+     * @return The scheduler which delivers the batches.
+     */
+    @NonNull
+    Scheduler getScheduler() {
+        // Looked up on use rather than on construction, so that the main thread scheduler can be replaced in tests.
+        return mScheduler != null ? mScheduler : AndroidSchedulers.mainThread();
+    }
+
+    /**
+     * Get the key by which a model is coalesced.
+     *
+     * @param model The model.
+     * @return The key.
+     */
+    @NonNull
+    Object keyOf(@NonNull Object model) {
+        if (mKeyExtractor != null) {
+            return mKeyExtractor.keyOf(model);
+        }
+        if (model instanceof Keyed) {
+            return ((Keyed) model).getKey();
+        }
+        return model;
+    }
+
+    private static int checkMaxBuffered(int maxBuffered) {
+        if (maxBuffered <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive: " + maxBuffered);
+        }
+        return maxBuffered;
+    }
+}
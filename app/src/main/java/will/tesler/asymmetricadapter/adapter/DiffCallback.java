@@ -0,0 +1,46 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A DiffCallback tells the adapter how to compare the models of two versions of a {@link Section} so that only the
+ * models which actually changed are rebound. Both methods are called on a background thread and must not depend on
+ * state which is modified on the main thread.
+ */
+public interface DiffCallback {
+
+    /**
+     * Compares models with {@link Object#equals(Object)}. Models which are equal are considered the same item with
+     * the same contents.
+     */
+    DiffCallback EQUALS = new DiffCallback() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            return oldModel.equals(newModel);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            return true;
+        }
+    };
+
+    /**
+     * Decide whether two models represent the same item, for example by comparing their ids.
+     *
+     * @param oldModel A model of the old section.
+     * @param newModel A model of the new section.
+     * @return {@code true} if both models represent the same item.
+     */
+    boolean areItemsTheSame(@NonNull Object oldModel, @NonNull Object newModel);
+
+    /**
+     * Decide whether two models which represent the same item would be presented the same way. Only called when
+     * {@link #areItemsTheSame(Object, Object)} returned {@code true}.
+     *
+     * @param oldModel A model of the old section.
+     * @param newModel A model of the new section.
+     * @return {@code true} if the item does not need to be rebound.
+     */
+    boolean areContentsTheSame(@NonNull Object oldModel, @NonNull Object newModel);
+}
@@ -0,0 +1,320 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * The ImpressionTracker emits an impression for every model which stays visible long enough in the
+ * {@link RecyclerView} the adapter is attached to. A model is visible when at least a fraction of its view lies within
+ * the bounds of the RecyclerView, and it makes an impression once it has been visible for the dwell time without
+ * interruption. Each impression is emitted once per key through the relay, with the action
+ * {@link UniversalAdapter#IMPRESSION}, however often the model is rebound or scrolled past.
+ * <p>
+ * The tracker keeps the time since which every position in the visible range has been visible, in an array which is
+ * shifted as the range moves, so a scroll only visits the attached children and does not allocate. A model which is
+ * still short of the dwell time when scrolling stops is checked again once its dwell time has passed.
+ * <p>
+ * Positions shift when the data set changes, so the visible range is forgotten then and measured afresh. The model of
+ * each position is kept as well, so a position whose model is replaced in place, for example when the page of a
+ * {@link PagedSection} arrives, starts over with the new model. Placeholders make no impression. The keys of impressed
+ * models are kept.
+ */
+final class ImpressionTracker {
+
+    /**
+     * The position is not visible, or not visible enough.
+     */
+    private static final long NOT_VISIBLE = -1;
+
+    /**
+     * The position has made its impression while it has been visible.
+     */
+    private static final long IMPRESSED = -2;
+
+    private final UniversalAdapter mAdapter;
+
+    private final StableIds mStableIds;
+
+    private final UniversalRelay mRelay;
+
+    /**
+     * The keys which have made an impression, indexed by view type.
+     */
+    private final List<Set<Object>> mImpressedKeys = new ArrayList<>();
+
+    /**
+     * Checks the visible positions again once the earliest pending dwell time has passed.
+     */
+    private final Runnable mDwellCheck = new Runnable() {
+        @Override
+        public void run() {
+            mDwellCheckScheduled = null;
+            if (mRecyclerView != null) {
+                update(mRecyclerView);
+            }
+        }
+    };
+
+    private boolean mEnabled;
+
+    private float mMinVisibleFraction;
+
+    private long mMinDwellMillis;
+
+    @Nullable
+    private RecyclerView mRecyclerView;
+
+    /**
+     * The first position of the visible range.
+     */
+    private int mFirst;
+
+    /**
+     * The number of positions in the visible range, or 0 if it is unknown.
+     */
+    private int mCount;
+
+    /**
+     * The time since which each position of the visible range has been visible, indexed by position minus
+     * {@link #mFirst}, or {@link #NOT_VISIBLE} or {@link #IMPRESSED}.
+     */
+    private long[] mVisibleSince = new long[16];
+
+    /**
+     * The array which the next visible range is measured into, swapped with {@link #mVisibleSince} after each update.
+     */
+    private long[] mNextVisibleSince = new long[16];
+
+    /**
+     * The model of each position of the visible range when it was last measured, indexed like {@link #mVisibleSince}.
+     */
+    private Object[] mVisibleModels = new Object[16];
+
+    /**
+     * The array which the models of the next visible range are recorded into, swapped with {@link #mVisibleModels}.
+     */
+    private Object[] mNextVisibleModels = new Object[16];
+
+    @Nullable
+    private Disposable mDwellCheckScheduled;
+
+    ImpressionTracker(@NonNull UniversalAdapter adapter, @NonNull StableIds stableIds, @NonNull UniversalRelay relay) {
+        mAdapter = adapter;
+        mStableIds = stableIds;
+        mRelay = relay;
+    }
+
+    /**
+     * Starts tracking impressions, or changes when they are made.
+     *
+     * @param minVisibleFraction The fraction of the area of a view which must be visible.
+     * @param minDwellMillis     The time for which it must be visible.
+     */
+    void enable(float minVisibleFraction, long minDwellMillis) {
+        mEnabled = true;
+        mMinVisibleFraction = minVisibleFraction;
+        mMinDwellMillis = minDwellMillis;
+        if (mRecyclerView != null) {
+            update(mRecyclerView);
+        }
+    }
+
+    /**
+     * Stops tracking impressions. The keys which have made an impression are kept.
+     */
+    void disable() {
+        mEnabled = false;
+        reset();
+    }
+
+    /**
+     * Forgets which keys have made an impression, so that they can make one again.
+     */
+    void clearImpressions() {
+        mImpressedKeys.clear();
+        for (int i = 0; i < mCount; i++) {
+            if (mVisibleSince[i] == IMPRESSED) {
+                mVisibleSince[i] = NOT_VISIBLE;
+            }
+        }
+        if (mRecyclerView != null) {
+            update(mRecyclerView);
+        }
+    }
+
+    /**
+     * Starts tracking impressions in a RecyclerView which the adapter has been attached to.
+     *
+     * @param recyclerView The RecyclerView.
+     */
+    void attach(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    /**
+     * Stops tracking impressions in a RecyclerView which the adapter has been detached from.
+     *
+     * @param recyclerView The RecyclerView.
+     */
+    void detach(@NonNull RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            mRecyclerView = null;
+            reset();
+        }
+    }
+
+    /**
+     * Measures the visible positions of a RecyclerView and emits the impressions which have been made. Called as the
+     * RecyclerView scrolls or lays out its children.
+     *
+     * @param recyclerView The RecyclerView.
+     */
+    void update(@NonNull RecyclerView recyclerView) {
+        if (!mEnabled) {
+            return;
+        }
+        int first = Integer.MAX_VALUE;
+        int last = RecyclerView.NO_POSITION;
+        int childCount = recyclerView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            int position = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(i));
+            if (position != RecyclerView.NO_POSITION) {
+                first = Math.min(first, position);
+                last = Math.max(last, position);
+            }
+        }
+        if (last == RecyclerView.NO_POSITION) {
+            invalidate();
+            return;
+        }
+
+        int count = last - first + 1;
+        if (mNextVisibleSince.length < count) {
+            int length = Math.max(count, mNextVisibleSince.length * 2);
+            mNextVisibleSince = new long[length];
+            mNextVisibleModels = new Object[length];
+        }
+        long[] next = mNextVisibleSince;
+        Object[] nextModels = mNextVisibleModels;
+        Arrays.fill(next, 0, count, NOT_VISIBLE);
+
+        Scheduler scheduler = AndroidSchedulers.mainThread();
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        long nextDwellCheck = Long.MAX_VALUE;
+        int width = recyclerView.getWidth();
+        int height = recyclerView.getHeight();
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            int position = recyclerView.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || visibleFraction(child, width, height) < mMinVisibleFraction) {
+                continue;
+            }
+            Object model = mAdapter.peek(position);
+            if (model == null || model == PagedSection.PLACEHOLDER) {
+                continue;
+            }
+            long since = now;
+            if (position >= mFirst && position < mFirst + mCount && mVisibleModels[position - mFirst] == model) {
+                since = mVisibleSince[position - mFirst];
+            }
+            if (since == NOT_VISIBLE) {
+                since = now;
+            }
+            nextModels[position - first] = model;
+            if (since != IMPRESSED) {
+                if (now - since >= mMinDwellMillis) {
+                    impress(position, model);
+                    since = IMPRESSED;
+                } else {
+                    nextDwellCheck = Math.min(nextDwellCheck, since + mMinDwellMillis);
+                }
+            }
+            next[position - first] = since;
+        }
+
+        // Drop the models of the previous range, so that models which have scrolled away are not kept alive.
+        Arrays.fill(mVisibleModels, 0, mCount, null);
+        mNextVisibleSince = mVisibleSince;
+        mNextVisibleModels = mVisibleModels;
+        mVisibleSince = next;
+        mVisibleModels = nextModels;
+        mFirst = first;
+        mCount = count;
+
+        if (nextDwellCheck != Long.MAX_VALUE && mDwellCheckScheduled == null) {
+            mDwellCheckScheduled = scheduler.scheduleDirect(mDwellCheck, nextDwellCheck - now, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Forgets the visible range, because positions have shifted. It is measured again on the next layout.
+     */
+    void invalidate() {
+        Arrays.fill(mVisibleModels, 0, mCount, null);
+        mCount = 0;
+    }
+
+    /**
+     * Emits the impression of the model at a position, unless its key has made one already.
+     *
+     * @param position The adapter position.
+     * @param model    The model at the position.
+     */
+    private void impress(int position, @NonNull Object model) {
+        int viewType = mAdapter.getItemViewType(position);
+        while (mImpressedKeys.size() <= viewType) {
+            mImpressedKeys.add(null);
+        }
+        Set<Object> impressedKeys = mImpressedKeys.get(viewType);
+        if (impressedKeys == null) {
+            impressedKeys = new HashSet<>();
+            mImpressedKeys.set(viewType, impressedKeys);
+        }
+        if (impressedKeys.add(mStableIds.keyOf(viewType, model))) {
+            mRelay.accept(model, UniversalAdapter.IMPRESSION);
+        }
+    }
+
+    private void reset() {
+        invalidate();
+        if (mDwellCheckScheduled != null) {
+            mDwellCheckScheduled.dispose();
+            mDwellCheckScheduled = null;
+        }
+    }
+
+    /**
+     * Get the fraction of the area of a child which lies within the bounds of its parent.
+     *
+     * @param child  The child.
+     * @param width  The width of the parent.
+     * @param height The height of the parent.
+     * @return The fraction, or 0 if the child has no area.
+     */
+    private static float visibleFraction(@NonNull View child, int width, int height) {
+        int childWidth = child.getWidth();
+        int childHeight = child.getHeight();
+        if (childWidth <= 0 || childHeight <= 0) {
+            return 0;
+        }
+        int visibleWidth = Math.min(child.getRight(), width) - Math.max(child.getLeft(), 0);
+        int visibleHeight = Math.min(child.getBottom(), height) - Math.max(child.getTop(), 0);
+        if (visibleWidth <= 0 || visibleHeight <= 0) {
+            return 0;
+        }
+        return (float) visibleWidth * visibleHeight / ((float) childWidth * childHeight);
+    }
+}
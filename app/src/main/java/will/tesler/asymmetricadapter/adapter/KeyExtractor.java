@@ -0,0 +1,21 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A KeyExtractor identifies the item a model represents by a key, for models which do not implement {@link Keyed}.
+ * Register one with {@link UniversalAdapter#setKeyExtractor(Class, KeyExtractor)}.
+ *
+ * @param <T> The model type.
+ */
+public interface KeyExtractor<T> {
+
+    /**
+     * Get the key of a model.
+     *
+     * @param model The model.
+     * @return A key which is equal for every model that represents the same item, for example a database id.
+     */
+    @NonNull
+    Object keyOf(@NonNull T model);
+}
@@ -0,0 +1,18 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A model which identifies the item it represents by a key. When the adapter has stable ids, models with equal keys
+ * and the same view type get the same id, so RecyclerView keeps their views bound across full refreshes.
+ *
+ * @see KeyExtractor
+ */
+public interface Keyed {
+
+    /**
+     * @return A key which is equal for every model that represents the same item, for example a database id.
+     */
+    @NonNull
+    Object getKey();
+}
@@ -0,0 +1,115 @@
+package will.tesler.asymmetricadapter.adapter;
+
+/**
+ * A LatencyHistogram counts durations in buckets whose bounds are powers of two nanoseconds, so that recording a
+ * duration takes constant time and never allocates. Bucket {@code i} holds the durations of at least
+ * {@code 2^(i-1)} and less than {@code 2^i} nanoseconds, and bucket 0 holds durations of zero.
+ * <p>
+ * Percentiles are therefore only accurate to within a factor of two, which is enough to tell a presenter which binds
+ * in microseconds from one which binds in milliseconds.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets, enough for any non-negative {@code long} duration.
+     */
+    public static final int BUCKET_COUNT = 64;
+
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+    private long mCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+
+    /**
+     * Records a duration.
+     *
+     * @param durationNanos The duration in nanoseconds. Negative durations are recorded as zero.
+     */
+    public void record(long durationNanos) {
+        long nanos = Math.max(durationNanos, 0);
+        mBuckets[bucketOf(nanos)]++;
+        mCount++;
+        mTotalNanos += nanos;
+        mMaxNanos = Math.max(mMaxNanos, nanos);
+    }
+
+    /**
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return The sum of the recorded durations in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    /**
+     * @return The longest recorded duration in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMaxNanos() {
+        return mMaxNanos;
+    }
+
+    /**
+     * @return The mean of the recorded durations in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMeanNanos() {
+        return mCount == 0 ? 0 : mTotalNanos / mCount;
+    }
+
+    /**
+     * Get the number of durations recorded in a bucket.
+     *
+     * @param bucket The bucket, from 0 until {@link #BUCKET_COUNT}.
+     * @return The number of durations in the bucket.
+     */
+    public long getBucketCount(int bucket) {
+        return mBuckets[bucket];
+    }
+
+    /**
+     * Get an upper bound of a percentile of the recorded durations.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound of the bucket holding the percentile, capped at the longest recorded duration, or 0 if
+     * nothing has been recorded.
+     * @throws IllegalArgumentException If the percentile is out of range.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+        }
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(mCount * percentile / 100), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += mBuckets[bucket];
+            if (seen >= rank) {
+                return bucket == 0 ? 0 : Math.min((1L << bucket) - 1, mMaxNanos);
+            }
+        }
+        return mMaxNanos;
+    }
+
+    /**
+     * Discards every recorded duration.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            mBuckets[bucket] = 0;
+        }
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+    }
+
+    private static int bucketOf(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1);
+    }
+}
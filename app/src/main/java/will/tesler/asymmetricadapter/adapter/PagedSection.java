@@ -0,0 +1,395 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * A PagedSection is a {@link Section} of a known size whose models are loaded a page at a time by a
+ * {@link PageLoader}, so that a large data set does not have to be materialized before it is added to the adapter.
+ * <p>
+ * Positions whose page has not been loaded hold {@link #PLACEHOLDER}, which must be registered with the adapter like
+ * any other model. Getting a model loads its page, and every page within the prefetch distance, on the io scheduler.
+ * When a page arrives the adapter is notified that its range changed. Once more pages are loaded than the configured
+ * maximum, the pages furthest from the most recently requested position are evicted and turn back into placeholders.
+ * Loads which are in progress when the section is removed from the adapter are cancelled.
+ * <p>
+ * The models of a PagedSection are determined by its loader, so they cannot be added, removed or set directly. A
+ * header can be set as usual. A PagedSection must only be used on the main thread.
+ */
+public class PagedSection extends Section {
+
+    /**
+     * Loads the models of a page. Called on a background thread.
+     */
+    public interface PageLoader {
+
+        /**
+         * Load a range of models.
+         *
+         * @param offset The position of the first model, not counting the header.
+         * @param count  The number of models to load.
+         * @return Exactly {@code count} models.
+         * @throws Exception If the page could not be loaded. The page is requested again the next time one of its
+         *                   positions is needed.
+         */
+        @NonNull
+        List<?> loadPage(int offset, int count) throws Exception;
+    }
+
+    /**
+     * The model of every position whose page has not been loaded.
+     */
+    public static final Placeholder PLACEHOLDER = new Placeholder();
+
+    /**
+     * The class of {@link #PLACEHOLDER}. Register a presenter for it to present positions which are still loading.
+     */
+    public static final class Placeholder {
+
+        private Placeholder() { }
+
+        @Override
+        public String toString() {
+            return "Placeholder";
+        }
+    }
+
+    /**
+     * The maximum number of pages loaded at a time, unless configured otherwise.
+     */
+    public static final int DEFAULT_MAX_LOADED_PAGES = 10;
+
+    private final int mSize;
+    private final int mPageSize;
+    private final PageLoader mPageLoader;
+    private int mPrefetchDistance;
+    private int mMaxLoadedPages = DEFAULT_MAX_LOADED_PAGES;
+
+    /**
+     * Loaded pages, or null where a page has not been loaded.
+     */
+    private final Object[][] mPages;
+
+    /**
+     * Loads in progress, or null where a page is not being loaded.
+     */
+    private final Disposable[] mLoads;
+
+    private int mLoadedPageCount;
+
+    /**
+     * The page of the most recently requested position. Pages are evicted by their distance from it.
+     */
+    private int mFocusedPage;
+
+    /**
+     * Constructs a PagedSection. The prefetch distance defaults to one page.
+     *
+     * @param size       The number of models in the section, not counting the header.
+     * @param pageSize   The number of models loaded at a time.
+     * @param pageLoader Loads the models.
+     * @throws IllegalArgumentException If the size is negative or the page size is not positive.
+     */
+    public PagedSection(int size, int pageSize, @NonNull PageLoader pageLoader) {
+        if (size < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid size " + size + " or page size " + pageSize);
+        }
+        mSize = size;
+        mPageSize = pageSize;
+        mPageLoader = pageLoader;
+        mPrefetchDistance = pageSize;
+        int pageCount = (size + pageSize - 1) / pageSize;
+        mPages = new Object[pageCount][];
+        mLoads = new Disposable[pageCount];
+    }
+
+    /**
+     * Sets how many positions before and after a requested position are loaded along with it. The maximum number of
+     * loaded pages is raised as needed to hold every page within this distance.
+     *
+     * @param prefetchDistance The prefetch distance in positions.
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        mPrefetchDistance = Math.max(prefetchDistance, 0);
+        evict();
+    }
+
+    /**
+     * Sets how many pages may be loaded at a time. The memory used by the section is bounded by this many pages.
+     * A maximum smaller than the pages within the prefetch distance of a position is raised to that many pages, since
+     * those pages would otherwise evict each other as they arrive and be loaded over and over.
+     *
+     * @param maxLoadedPages The maximum number of loaded pages, at least one.
+     */
+    public void setMaxLoadedPages(int maxLoadedPages) {
+        mMaxLoadedPages = Math.max(maxLoadedPages, 1);
+        evict();
+    }
+
+    /**
+     * Get the model at the given position and load the pages around it. Includes the header.
+     *
+     * @param position The position of the item in the section.
+     * @return The model, {@link #PLACEHOLDER} if its page has not been loaded, or null if the position is out of
+     * bounds.
+     */
+    @Nullable
+    @Override
+    public Object getModel(int position) {
+        int index = hasHeader() ? position - 1 : position;
+        if (index < 0 || index >= mSize) {
+            return index == -1 ? getHeader() : null;
+        }
+        mFocusedPage = index / mPageSize;
+        int firstPage = Math.max(index - mPrefetchDistance, 0) / mPageSize;
+        int lastPage = Math.min(index + mPrefetchDistance, mSize - 1) / mPageSize;
+        for (int page = firstPage; page <= lastPage; page++) {
+            load(page);
+        }
+        return peek(index);
+    }
+
+    @Nullable
+    @Override
+    Object peekModel(int position) {
+        int index = hasHeader() ? position - 1 : position;
+        if (index < 0 || index >= mSize) {
+            return index == -1 ? getHeader() : null;
+        }
+        return peek(index);
+    }
+
+    /**
+     * Get the models in the section excluding the header, without loading any pages. Positions whose page has not
+     * been loaded hold {@link #PLACEHOLDER}.
+     *
+     * @return A read-only view of the models.
+     */
+    @NonNull
+    @Override
+    public List<Object> getModels() {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                if (index < 0 || index >= mSize) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+                }
+                return peek(index);
+            }
+
+            @Override
+            public int size() {
+                return mSize;
+            }
+        };
+    }
+
+    @Override
+    public int totalSize() {
+        return hasHeader() ? mSize + 1 : mSize;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void add(Object model) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void add(Object model, int position) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * Removes the header. Other models cannot be removed.
+     *
+     * @throws UnsupportedOperationException If the position is not the header.
+     */
+    @Override
+    public Object remove(int position) {
+        if (hasHeader() && position == 0) {
+            return clearHeader();
+        }
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void addAll(int position, Collection<?> models) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void removeRange(int fromPosition, int toPosition) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void move(int fromPosition, int toPosition) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void replaceRange(int position, Collection<?> models) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void setModels(List<Object> models) {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void clearModels() {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the models are determined by the page loader.
+     */
+    @Override
+    public void clearSection() {
+        throw new UnsupportedOperationException("The models of a PagedSection are determined by its PageLoader");
+    }
+
+    /**
+     * Cancels the loads in progress once the section has been removed from the adapter.
+     */
+    @Override
+    void detach(@NonNull SectionIndex.Slot slot) {
+        super.detach(slot);
+        if (isAttached()) {
+            return;
+        }
+        for (int page = 0; page < mLoads.length; page++) {
+            if (mLoads[page] != null) {
+                mLoads[page].dispose();
+                mLoads[page] = null;
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    Object[] toArray() {
+        Object[] items = new Object[totalSize()];
+        int offset = 0;
+        if (hasHeader()) {
+            items[offset++] = getHeader();
+        }
+        for (int index = 0; index < mSize; index++) {
+            items[offset + index] = peek(index);
+        }
+        return items;
+    }
+
+    /**
+     * Get a model without loading its page.
+     */
+    private Object peek(int index) {
+        Object[] page = mPages[index / mPageSize];
+        return page != null ? page[index % mPageSize] : PLACEHOLDER;
+    }
+
+    /**
+     * Starts loading a page unless it is loaded or being loaded already.
+     */
+    private void load(final int page) {
+        if (mPages[page] != null || mLoads[page] != null) {
+            return;
+        }
+        final int offset = page * mPageSize;
+        final int count = Math.min(mPageSize, mSize - offset);
+        mLoads[page] = Single.fromCallable(new Callable<Object[]>() {
+            @Override
+            public Object[] call() throws Exception {
+                List<?> models = mPageLoader.loadPage(offset, count);
+                if (models.size() != count) {
+                    throw new IllegalStateException(String.format("Expected %d models at %d but %d were loaded.",
+                            count, offset, models.size()));
+                }
+                return models.toArray();
+            }
+        }).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(new Consumer<Object[]>() {
+            @Override
+            public void accept(Object[] models) throws Exception {
+                mLoads[page] = null;
+                mPages[page] = models;
+                mLoadedPageCount++;
+                notifyPageChanged(page);
+                evict();
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                mLoads[page] = null;
+                Log.e(PagedSection.class.getName(), "Failed to load the page at " + offset, throwable);
+            }
+        });
+    }
+
+    /**
+     * Evicts the pages furthest from the focused page until no more than the maximum number of pages are loaded.
+     */
+    private void evict() {
+        // A request loads up to this many pages, which must all be kept.
+        int prefetchedPages = (2 * mPrefetchDistance + mPageSize - 1) / mPageSize + 1;
+        int maxLoadedPages = Math.max(mMaxLoadedPages, prefetchedPages);
+        while (mLoadedPageCount > maxLoadedPages) {
+            int furthest = -1;
+            for (int page = 0; page < mPages.length; page++) {
+                if (mPages[page] != null && (furthest == -1
+                        || Math.abs(page - mFocusedPage) > Math.abs(furthest - mFocusedPage))) {
+                    furthest = page;
+                }
+            }
+            mPages[furthest] = null;
+            mLoadedPageCount--;
+            notifyPageChanged(furthest);
+        }
+    }
+
+    private void notifyPageChanged(int page) {
+        int offset = page * mPageSize;
+        notifyItemRangeChanged(hasHeader() ? offset + 1 : offset, Math.min(mPageSize, mSize - offset));
+    }
+}
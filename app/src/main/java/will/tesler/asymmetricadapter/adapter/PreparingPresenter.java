@@ -0,0 +1,61 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.view.ViewGroup;
+
+/**
+ * A PreparingPresenter splits presenting a model into two stages. {@link #prepare(Object)} does the expensive work
+ * which does not need a view, such as formatting text, building spans or decoding images. {@link
+ * #present(Object, Object, UniversalRelay)} applies the result to the view.
+ * <p>
+ * The adapter prepares the models near the visible positions ahead of time on a background thread, so that binding
+ * only has to present the prepared result. A model which has not been prepared in time is prepared synchronously
+ * when it is bound. Prepared results are cached per model instance until the model scrolls away or its position is
+ * notified as changed.
+ *
+ * @param <T> The model which this Presenter will use to alter a view.
+ * @param <P> The result of preparing a model.
+ */
+public abstract class PreparingPresenter<T, P> extends Presenter<T> {
+
+    protected PreparingPresenter(@LayoutRes int layoutRes, ViewGroup parent) {
+        super(layoutRes, parent);
+    }
+
+    /**
+     * Prepare a model for presentation. Called on a background thread, possibly on a different presenter instance
+     * than the one which presents the result, so it must not touch views or the state of the presenter.
+     *
+     * @param model The model.
+     * @return The result to present.
+     */
+    protected abstract P prepare(T model);
+
+    /**
+     * Alter the behavior and appearance of the view given the model and the result of preparing it.
+     *
+     * @param model    The model which will be used to alter the view.
+     * @param prepared The result of {@link #prepare(Object)} for the model.
+     * @param relay    A relay you can use to emit events out of the presenter.
+     */
+    protected abstract void present(T model, P prepared, @NonNull UniversalRelay relay);
+
+    /**
+     * Prepares the model synchronously and presents it.
+     */
+    @Override
+    protected final void present(T model, @NonNull UniversalRelay relay) {
+        present(model, prepare(model), relay);
+    }
+
+    @SuppressWarnings("unchecked")
+    final Object prepareModel(Object model) {
+        return prepare((T) model);
+    }
+
+    @SuppressWarnings("unchecked")
+    final void presentPrepared(Object model, Object prepared, @NonNull UniversalRelay relay) {
+        present((T) model, (P) prepared, relay);
+    }
+}
@@ -8,6 +8,8 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.List;
+
 /**
  * This class alters a view given a model. Every new model which is added to the adapter must first
  * register a Presenter for that model with the adapter's {@code register} method.
@@ -25,6 +27,15 @@ public abstract class Presenter<T> extends RecyclerView.ViewHolder {
         super(LayoutInflater.from(parent.getContext()).inflate(layoutRes, parent, false));
     }
 
+    /**
+     * Constructs a presenter for a view which has already been created, for example in code.
+     *
+     * @param view The view that models will be bound to.
+     */
+    protected Presenter(@NonNull View view) {
+        super(view);
+    }
+
     /**
      * Alter the behavior and appearance of the view given the model.
      *
@@ -33,6 +44,51 @@ public abstract class Presenter<T> extends RecyclerView.ViewHolder {
      */
     protected abstract void present(T model, @NonNull UniversalRelay relay);
 
+    /**
+     * Alter only the parts of the view described by the payloads of a change, as passed to
+     * {@link UniversalAdapter#notifyModelChanged(Object, Object)}. The view has already been presented with the model
+     * and the payloads are in the order they were notified. By default every partial update is declined.
+     *
+     * @param model    The model which changed.
+     * @param payloads The payloads of the changes since the view was last presented.
+     * @param relay    A relay you can use to emit events out of the presenter.
+     * @return {@code true} if the view was updated, or {@code false} to have it presented in full instead.
+     */
+    protected boolean presentPartial(T model, @NonNull List<Object> payloads, @NonNull UniversalRelay relay) {
+        return false;
+    }
+
+    /**
+     * Called when the view is attached to the window, whether it was just presented or is coming back from the
+     * RecyclerView's cache of detached views without being presented again. Restart anything stopped in
+     * {@link #onDetached()} here.
+     */
+    protected void onAttached() { }
+
+    /**
+     * Called when the view is detached from the window, for example when it is scrolled out of sight. The presenter
+     * may still be presented again or recycled. Stop animations and other work which only matters while the view is
+     * visible.
+     */
+    protected void onDetached() { }
+
+    /**
+     * Called when the presenter has been put in the pool to be presented with another model later. Release anything
+     * which belongs to the last model, such as the model itself, bitmaps, listeners and subscriptions, so that it is
+     * not kept alive by the pool until the presenter is presented again.
+     */
+    protected void onRecycled() { }
+
+    /**
+     * Called when the presenter cannot be recycled because its view has transient state, such as a running
+     * animation. By default the presenter is discarded instead.
+     *
+     * @return {@code true} if the transient state was cleared, so that the presenter can be recycled after all.
+     */
+    protected boolean onFailedToRecycle() {
+        return false;
+    }
+
     /**
      * Get the view that the model will be bound to.
      *
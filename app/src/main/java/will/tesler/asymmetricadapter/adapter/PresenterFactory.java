@@ -0,0 +1,24 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.view.ViewGroup;
+
+/**
+ * A PresenterFactory creates new {@link Presenter presenters} for the adapter. Registering a presenter class with
+ * {@link UniversalAdapter#register(Class)} uses a factory which calls the presenter's {@code Presenter(ViewGroup
+ * parent)} constructor. Register a factory of your own with {@link UniversalAdapter#register(Class, PresenterFactory)}
+ * to create presenters without reflection, or to pass them extra dependencies.
+ *
+ * @param <T> The model which the created presenters present.
+ */
+public interface PresenterFactory<T> {
+
+    /**
+     * Create a new presenter.
+     *
+     * @param parent The ViewGroup that the presenter's view will be added to.
+     * @return A new presenter.
+     */
+    @NonNull
+    Presenter<T> create(@NonNull ViewGroup parent);
+}
@@ -0,0 +1,24 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that a {@link Presenter} presents a model class. When the {@code processor} module is used as an
+ * annotation processor, every package which contains annotated presenters gets a generated {@code PresenterRegistry}
+ * class whose {@code registerAll(UniversalAdapter)} method registers them without reflection.
+ * <p>
+ * The presenter must be a concrete, non-inner class with a {@code Presenter(ViewGroup parent)} constructor which is
+ * visible to its package. These requirements are checked at compile time.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface PresenterFor {
+
+    /**
+     * @return The model class which the presenter presents.
+     */
+    Class<?> value();
+}
@@ -0,0 +1,206 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The PresenterWarmer creates presenters before they are needed and puts them in the {@link RecyclerView}'s
+ * {@link RecyclerView.RecycledViewPool}, so that the first scroll to a view type does not have to inflate its layout.
+ * <p>
+ * Inflating views is only safe on the main thread, so presenters are created there one at a time whenever the main
+ * thread is idle, rather than in one long block that would drop frames.
+ * <p>
+ * The pool is only topped up to the warm count, so attaching the adapter again creates no more presenters than are
+ * missing from the pool. A pool shared by many adapters, such as those of carousels, is warmed by the first of them
+ * only. The capacity of the pool for a view type is raised when it cannot hold the warm presenters, and never
+ * lowered.
+ */
+final class PresenterWarmer implements MessageQueue.IdleHandler {
+
+    /**
+     * The view types which have been warmed in each shared pool. Only used on the main thread.
+     */
+    private static final Map<RecyclerView.RecycledViewPool, Set<Integer>> WARMED_SHARED_POOLS = new WeakHashMap<>();
+
+    private final UniversalAdapter mAdapter;
+
+    /**
+     * The number of presenters to create ahead for each view type, indexed by view type.
+     */
+    private final List<Integer> mWarmCounts = new ArrayList<>();
+
+    /**
+     * The view types of the presenters which are still to be created, one entry per presenter.
+     */
+    private final Queue<Integer> mPending = new ArrayDeque<>();
+
+    /**
+     * Holds the presenters taken out of the pool while they are counted.
+     */
+    private final List<RecyclerView.ViewHolder> mCounted = new ArrayList<>();
+
+    @Nullable
+    private RecyclerView mRecyclerView;
+
+    private boolean mScheduled;
+
+    PresenterWarmer(@NonNull UniversalAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * Sets how many presenters of a view type are created ahead. If the adapter is attached to a RecyclerView, they
+     * are created right away.
+     *
+     * @param viewType  The view type.
+     * @param warmCount The number of presenters.
+     */
+    void setWarmCount(int viewType, int warmCount) {
+        while (mWarmCounts.size() <= viewType) {
+            mWarmCounts.add(0);
+        }
+        mWarmCounts.set(viewType, warmCount);
+        if (mRecyclerView != null) {
+            warm(viewType, warmCount);
+        }
+    }
+
+    /**
+     * Starts creating presenters for a RecyclerView which the adapter has been attached to.
+     *
+     * @param recyclerView The RecyclerView.
+     */
+    void attach(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mPending.clear();
+        for (int viewType = 0; viewType < mWarmCounts.size(); viewType++) {
+            warm(viewType, mWarmCounts.get(viewType));
+        }
+    }
+
+    /**
+     * Stops creating presenters for a RecyclerView which the adapter has been detached from.
+     *
+     * @param recyclerView The RecyclerView.
+     */
+    void detach(@NonNull RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            // Leave the view types which were not warmed yet to the next adapter which shares the pool.
+            Set<Integer> warmed = WARMED_SHARED_POOLS.get(recyclerView.getRecycledViewPool());
+            if (warmed != null) {
+                warmed.removeAll(mPending);
+            }
+            mRecyclerView = null;
+            mPending.clear();
+        }
+    }
+
+    /**
+     * Drops presenters of a view type from the pool of the RecyclerView, and stops creating them ahead. The maximum
+     * size of the pool is left as it is, so the pool may fill up again as usual.
+     *
+     * @param viewType The view type.
+     * @param keep     The number of presenters to keep in the pool.
+     */
+    void trim(int viewType, int keep) {
+        mPending.removeAll(Collections.singleton(viewType));
+        if (mRecyclerView == null) {
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        List<RecyclerView.ViewHolder> kept = new ArrayList<>(keep);
+        RecyclerView.ViewHolder presenter;
+        while ((presenter = pool.getRecycledView(viewType)) != null) {
+            if (kept.size() < keep) {
+                kept.add(presenter);
+            }
+        }
+        for (int i = 0; i < kept.size(); i++) {
+            pool.putRecycledView(kept.get(i));
+        }
+    }
+
+    /**
+     * Creates one pending presenter. Called by the main thread's message queue when it is idle.
+     *
+     * @return {@code true} while there are more presenters to create.
+     */
+    @Override
+    public boolean queueIdle() {
+        Integer viewType = mPending.poll();
+        if (mRecyclerView != null && viewType != null) {
+            RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+            int pooled = pooledCount(pool, viewType);
+            if (pooled < mWarmCounts.get(viewType)) {
+                Presenter presenter = mAdapter.createViewHolder(mRecyclerView, viewType);
+                pool.putRecycledView(presenter);
+                if (pooledCount(pool, viewType) == pooled) {
+                    // The pool was full and discarded the presenter, so raise its capacity by one.
+                    pool.setMaxRecycledViews(viewType, pooled + 1);
+                    pool.putRecycledView(presenter);
+                }
+            }
+        }
+        mScheduled = mRecyclerView != null && !mPending.isEmpty();
+        return mScheduled;
+    }
+
+    /**
+     * Queues the creation of the presenters of a view type which are missing from the pool.
+     */
+    private void warm(int viewType, int warmCount) {
+        if (warmCount <= 0 || mRecyclerView == null) {
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        if (mAdapter.getSharedPool() != null) {
+            Set<Integer> warmed = WARMED_SHARED_POOLS.get(pool);
+            if (warmed == null) {
+                warmed = new HashSet<>();
+                WARMED_SHARED_POOLS.put(pool, warmed);
+            }
+            if (!warmed.add(viewType)) {
+                return;
+            }
+        }
+        mPending.removeAll(Collections.singleton(viewType));
+        int missing = warmCount - pooledCount(pool, viewType);
+        for (int i = 0; i < missing; i++) {
+            mPending.add(viewType);
+        }
+        if (!mScheduled && !mPending.isEmpty()) {
+            Looper.myQueue().addIdleHandler(this);
+            mScheduled = true;
+        }
+    }
+
+    /**
+     * Counts the presenters of a view type in a pool, which offers no way to count them but taking them out.
+     */
+    private int pooledCount(@NonNull RecyclerView.RecycledViewPool pool, int viewType) {
+        RecyclerView.ViewHolder presenter;
+        while ((presenter = pool.getRecycledView(viewType)) != null) {
+            mCounted.add(presenter);
+        }
+        int count = mCounted.size();
+        // Put them back in the order they were in.
+        for (int i = count - 1; i >= 0; i--) {
+            pool.putRecycledView(mCounted.get(i));
+        }
+        mCounted.clear();
+        return count;
+    }
+}
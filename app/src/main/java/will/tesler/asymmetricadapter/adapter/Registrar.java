@@ -0,0 +1,193 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Registrar maps model classes to view types and view types to presenter factories. View types are assigned in
+ * registration order, or by a {@link ViewTypeRegistry} so that they are the same in other adapters.
+ * <p>
+ * A model is presented by the presenter registered for its own class or, failing that, by the presenter registered
+ * for its nearest superclass or interface. The outcome is cached per concrete model class so that resolving a view
+ * type costs a single identity hash lookup no matter how many presenters have been registered.
+ */
+final class Registrar {
+
+    /**
+     * Returned when no presenter has been registered for a model class.
+     */
+    static final int UNREGISTERED = -1;
+
+    /**
+     * Presenter factories indexed by view type. View types which were not registered hold null.
+     */
+    private final List<PresenterFactory<?>> mFactories = new ArrayList<>();
+
+    /**
+     * Assigns the view types, or null to assign them in registration order.
+     */
+    @Nullable
+    private ViewTypeRegistry mViewTypeRegistry;
+
+    /**
+     * Maps registered model classes to view types.
+     */
+    private final Map<Class<?>, Integer> mViewTypes = new IdentityHashMap<>();
+
+    /**
+     * Maps concrete model classes to the view type they resolved to, including {@link #UNREGISTERED}.
+     */
+    private final Map<Class<?>, Integer> mResolvedViewTypes = new IdentityHashMap<>();
+
+    /**
+     * Registers a presenter factory for a model class. Registering a model class again replaces its factory. It keeps
+     * its view type, unless view types are taken from a registry, which gives every presenter a view type of its own.
+     *
+     * @param modelClass The model class.
+     * @param factory    The factory which creates presenters for the model class.
+     * @return The view type of the model class.
+     * @throws IllegalStateException If view types are taken from a registry, and another instance of the factory's
+     *                               class is registered for another model class, so that both would share a view type.
+     */
+    int register(@NonNull Class<?> modelClass, @NonNull PresenterFactory<?> factory) {
+        Integer viewType = mViewTypes.get(modelClass);
+        if (mViewTypeRegistry != null) {
+            // The view type belongs to the presenter, so a new presenter for the model class gets a new view type.
+            viewType = mViewTypeRegistry.getViewType(factory);
+            PresenterFactory<?> registered = factoryOf(viewType);
+            if (registered != null && registered != factory && !(factory instanceof ConstructorPresenterFactory)) {
+                Class<?> registeredModelClass = modelClassOf(viewType, modelClass);
+                if (registeredModelClass != null) {
+                    throw new IllegalStateException(String.format("%s for %s shares its view type with the %s "
+                                    + "registered for %s. Use a separate factory class for each kind of presenter.",
+                            factory.getClass().getName(), modelClass.getName(), registered.getClass().getName(),
+                            registeredModelClass.getName()));
+                }
+            }
+            while (mFactories.size() <= viewType) {
+                mFactories.add(null);
+            }
+            mFactories.set(viewType, factory);
+        } else if (viewType != null) {
+            mFactories.set(viewType, factory);
+            return viewType;
+        } else {
+            viewType = mFactories.size();
+            mFactories.add(factory);
+        }
+        mViewTypes.put(modelClass, viewType);
+        // A new registration may be a closer match for classes which were already resolved.
+        mResolvedViewTypes.clear();
+        return viewType;
+    }
+
+    /**
+     * Takes view types from a registry from now on. Must be set before anything is registered.
+     *
+     * @param viewTypeRegistry The registry.
+     */
+    void setViewTypeRegistry(@NonNull ViewTypeRegistry viewTypeRegistry) {
+        mViewTypeRegistry = viewTypeRegistry;
+    }
+
+    /**
+     * @return {@code true} if nothing has been registered.
+     */
+    boolean isEmpty() {
+        return mViewTypes.isEmpty();
+    }
+
+    /**
+     * Get the view type for a model class.
+     *
+     * @param modelClass The concrete class of a model.
+     * @return The view type or {@link #UNREGISTERED}.
+     */
+    int viewTypeOf(@NonNull Class<?> modelClass) {
+        Integer viewType = mResolvedViewTypes.get(modelClass);
+        if (viewType == null) {
+            viewType = resolve(modelClass);
+            mResolvedViewTypes.put(modelClass, viewType);
+        }
+        return viewType;
+    }
+
+    /**
+     * @return One more than the highest view type which has been registered.
+     */
+    int viewTypeCount() {
+        return mFactories.size();
+    }
+
+    /**
+     * Get the presenter factory for a view type.
+     *
+     * @param viewType The view type.
+     * @return The presenter factory or null if the view type is unknown.
+     */
+    @Nullable
+    PresenterFactory<?> factoryOf(int viewType) {
+        if (viewType < 0 || viewType >= mFactories.size()) {
+            return null;
+        }
+        return mFactories.get(viewType);
+    }
+
+    /**
+     * Get a model class other than the given one which is registered with a view type.
+     *
+     * @param viewType   The view type.
+     * @param modelClass The model class to leave out.
+     * @return The model class, or null if there is none.
+     */
+    @Nullable
+    private Class<?> modelClassOf(int viewType, @NonNull Class<?> modelClass) {
+        for (Map.Entry<Class<?>, Integer> entry : mViewTypes.entrySet()) {
+            if (entry.getValue() == viewType && entry.getKey() != modelClass) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the view type registered for the class itself, then for its nearest superclass, and then for the
+     * interfaces of the class and its superclasses.
+     */
+    private int resolve(Class<?> modelClass) {
+        for (Class<?> type = modelClass; type != null; type = type.getSuperclass()) {
+            Integer viewType = mViewTypes.get(type);
+            if (viewType != null) {
+                return viewType;
+            }
+        }
+        for (Class<?> type = modelClass; type != null; type = type.getSuperclass()) {
+            int viewType = resolveInterfaces(type.getInterfaces());
+            if (viewType != UNREGISTERED) {
+                return viewType;
+            }
+        }
+        return UNREGISTERED;
+    }
+
+    private int resolveInterfaces(Class<?>[] interfaces) {
+        for (Class<?> type : interfaces) {
+            Integer viewType = mViewTypes.get(type);
+            if (viewType != null) {
+                return viewType;
+            }
+        }
+        for (Class<?> type : interfaces) {
+            int viewType = resolveInterfaces(type.getInterfaces());
+            if (viewType != UNREGISTERED) {
+                return viewType;
+            }
+        }
+        return UNREGISTERED;
+    }
+}
@@ -3,20 +3,76 @@ package will.tesler.asymmetricadapter.adapter;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * A Section groups models together and associates each model with it's listeners. A section is for use with the
  * {@link UniversalAdapter}. An optional header can be added to a section with {code setHeader} and it will be
  * treated separately from the other items.
+ * <p>
+ * The header is kept apart from the models, which are stored in chunks of about sqrt(n) models each. Adding or
+ * removing a model anywhere in the section therefore costs amortized O(sqrt(n)) instead of shifting every model after
+ * it, and setting or clearing the header is O(1).
+ * <p>
+ * Models can also be added, removed, moved and replaced a range at a time with {@link #addAll(int, Collection)},
+ * {@link #removeRange(int, int)}, {@link #move(int, int)} and {@link #replaceRange(int, Collection)}. While the
+ * section is in a {@link UniversalAdapter}, each of these notifies the adapter of the whole range at once.
  */
 public class Section {
 
-    private List<Object> mModels = new ArrayList<>();
+    /**
+     * Receives the changes which a section notifies about itself while it is in an adapter.
+     */
+    interface Observer {
+
+        void onItemRangeChanged(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount);
+
+        void onItemRangeInserted(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount);
+
+        void onItemRangeRemoved(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount);
 
+        void onItemMoved(@NonNull SectionIndex.Slot slot, int fromPosition, int toPosition);
+
+        /**
+         * Called before models are added to the section or replace models in it, so that they can be refused while the
+         * section is unchanged.
+         *
+         * @param slot   The slot of the section.
+         * @param models The models.
+         * @throws IllegalStateException If a model cannot be presented by the adapter.
+         */
+        void onModelsAdding(@NonNull SectionIndex.Slot slot, @NonNull Collection<?> models);
+    }
+
+    private final ChunkedList mModels = new ChunkedList();
+
+    @Nullable
+    private Object mHeader;
     private boolean mHasHeader;
 
+    /**
+     * A live view of the models, created once so that {@link #getModels()} does not allocate.
+     */
+    @Nullable
+    private List<Object> mModelList;
+
+    /**
+     * Counts changes to the models, including replacements, so that work based on a copy of the models can tell whether
+     * it is stale.
+     */
+    private int mModCount;
+
+    /**
+     * The adapter observer and the slot which hold the section, or null while the section is not in an adapter.
+     */
+    @Nullable
+    private Observer mObserver;
+    @Nullable
+    private SectionIndex.Slot mSlot;
+
     /**
      * Constructs an empty Section.
      */
@@ -28,7 +84,7 @@ public class Section {
      * @param headerModel A header model.
      */
     public Section(@NonNull Object headerModel) {
-        mModels.add(headerModel);
+        mHeader = headerModel;
         mHasHeader = true;
     }
 
@@ -37,8 +93,10 @@ public class Section {
      *
      * @param model The model.
      */
-    public final void add(Object model) {
+    public void add(Object model) {
+        checkModel(model);
         mModels.add(model);
+        mModCount++;
     }
 
     /**
@@ -47,9 +105,89 @@ public class Section {
      * @param model The model.
      * @param position The position where the model will be placed.
      */
-    public final void add(Object model, int position) {
-        int absolutePosition = hasHeader() ? position + 1 : position;
-        mModels.add(absolutePosition, model);
+    public void add(Object model, int position) {
+        checkModel(model);
+        mModels.add(position, model);
+        mModCount++;
+    }
+
+    /**
+     * Adds models to the section at the specified position. Does not take the header into account. If the section is
+     * in an adapter, the adapter is notified that the range was inserted. Must then be called on the main thread.
+     *
+     * @param position The position where the first model will be placed.
+     * @param models   The models.
+     * @throws IndexOutOfBoundsException If the position is out of bounds.
+     * @throws IllegalStateException     If the section is in an adapter and a model has not been registered with it.
+     */
+    public void addAll(int position, @NonNull Collection<?> models) {
+        checkModels(models);
+        mModels.addAll(position, models);
+        if (!models.isEmpty()) {
+            mModCount++;
+            notifyItemRangeInserted(headerOffset() + position, models.size());
+        }
+    }
+
+    /**
+     * Removes the models in a range of positions. Does not take the header into account. If the section is in an
+     * adapter, the adapter is notified that the range was removed. Must then be called on the main thread.
+     *
+     * @param fromPosition The position of the first model to remove.
+     * @param toPosition   The position after the last model to remove.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public void removeRange(int fromPosition, int toPosition) {
+        mModels.removeRange(fromPosition, toPosition);
+        if (toPosition > fromPosition) {
+            mModCount++;
+            notifyItemRangeRemoved(headerOffset() + fromPosition, toPosition - fromPosition);
+        }
+    }
+
+    /**
+     * Moves a model from one position to another. Does not take the header into account. If the section is in an
+     * adapter, the adapter is notified that the model moved. Must then be called on the main thread.
+     *
+     * @param fromPosition The current position of the model.
+     * @param toPosition   The position of the model after the move.
+     * @throws IndexOutOfBoundsException If either position is out of bounds.
+     */
+    public void move(int fromPosition, int toPosition) {
+        if (toPosition < 0 || toPosition >= mModels.size()) {
+            throw new IndexOutOfBoundsException("Index: " + toPosition + ", Size: " + mModels.size());
+        }
+        if (fromPosition != toPosition) {
+            mModels.add(toPosition, mModels.remove(fromPosition));
+            mModCount++;
+            notifyItemMoved(headerOffset() + fromPosition, headerOffset() + toPosition);
+        }
+    }
+
+    /**
+     * Replaces consecutive models, starting at a position, with the given models. Does not take the header into
+     * account. If the section is in an adapter, the adapter is notified that the range changed. Must then be called on
+     * the main thread.
+     *
+     * @param position The position of the first model to replace.
+     * @param models   The new models, one for each model which is replaced.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     * @throws IllegalStateException     If the section is in an adapter and a model has not been registered with it.
+     */
+    public void replaceRange(int position, @NonNull Collection<?> models) {
+        if (position < 0 || position + models.size() > mModels.size()) {
+            throw new IndexOutOfBoundsException("From: " + position + ", Count: " + models.size()
+                    + ", Size: " + mModels.size());
+        }
+        checkModels(models);
+        int index = position;
+        for (Object model : models) {
+            mModels.set(index++, model);
+        }
+        if (!models.isEmpty()) {
+            mModCount++;
+            notifyItemRangeChanged(headerOffset() + position, models.size());
+        }
     }
 
     /**
@@ -58,9 +196,13 @@ public class Section {
      * @param position The position of the model in the section.
      */
     public Object remove(int position) {
-        if (hasHeader() && position == 0) {
-            mHasHeader = false;
+        if (hasHeader()) {
+            if (position == 0) {
+                return clearHeader();
+            }
+            position--;
         }
+        mModCount++;
         return mModels.remove(position);
     }
 
@@ -72,46 +214,56 @@ public class Section {
      */
     @Nullable
     public Object getModel(int position) {
-        try {
-            return mModels.get(position);
-        } catch (IndexOutOfBoundsException exception) {
-            return null;
+        int index = hasHeader() ? position - 1 : position;
+        if (index < 0 || index >= mModels.size()) {
+            return index == -1 ? mHeader : null;
         }
+        return mModels.get(index);
+    }
+
+    /**
+     * Get the model at the given position without side effects, such as loading it.
+     *
+     * @param position The position of the item in the section.
+     * @return The model at the given position in the section.
+     */
+    @Nullable
+    Object peekModel(int position) {
+        return getModel(position);
     }
 
     /**
      * Get all the model in the section excluding the header.
      *
-     * @return All the items in the section excluding the header.
+     * @return A live view of the items in the section excluding the header.
      */
     @NonNull
     public List<Object> getModels() {
-        if (hasHeader()) {
-            return mModels.subList(1, mModels.size());
-        } else {
-            return mModels;
+        if (mModelList == null) {
+            mModelList = new ModelList();
         }
+        return mModelList;
     }
 
     /**
      * Removes all existing models in the section and adds all the given models. The header will remain the same.
      *
      * @param models the models.
+     * @throws IllegalStateException If the section is in an adapter and a model has not been registered with it.
      */
     public void setModels(List<Object> models) {
+        checkModels(models);
         clearModels();
         mModels.addAll(models);
+        mModCount++;
     }
 
     /**
      * Removes all the items but leaves the header.
      */
     public void clearModels() {
-        if (hasHeader()) {
-            mModels.subList(1, mModels.size()).clear();
-        } else {
-            clearSection();
-        }
+        mModels.clear();
+        mModCount++;
     }
 
     /**
@@ -119,7 +271,9 @@ public class Section {
      */
     public void clearSection() {
         mModels.clear();
+        mHeader = null;
         mHasHeader = false;
+        mModCount++;
     }
 
     /**
@@ -129,7 +283,7 @@ public class Section {
      */
     @Nullable
     public Object getHeader() {
-        return hasHeader() ? mModels.get(0) : null;
+        return mHeader;
     }
 
     /**
@@ -140,8 +294,9 @@ public class Section {
      */
     public final <T> void setHeader(T header) {
         clearHeader();
-        mModels.add(0, header);
+        mHeader = header;
         mHasHeader = true;
+        mModCount++;
     }
 
     /**
@@ -150,8 +305,11 @@ public class Section {
     @Nullable
     public Object clearHeader() {
         if (hasHeader()) {
+            Object header = mHeader;
+            mHeader = null;
             mHasHeader = false;
-            return mModels.remove(0);
+            mModCount++;
+            return header;
         }
         return null;
     }
@@ -171,7 +329,7 @@ public class Section {
      * @return The number of total items in the section.
      */
     public int totalSize() {
-        return mModels.size();
+        return hasHeader() ? mModels.size() + 1 : mModels.size();
     }
 
     /**
@@ -180,6 +338,186 @@ public class Section {
      * @return The number of content items in the section.
      */
     public int size() {
-        return hasHeader() ? mModels.size() - 1 : mModels.size();
+        return mModels.size();
+    }
+
+    /**
+     * Notifies the adapter which holds the section that a range of items changed. Does nothing while the section is
+     * not in an adapter. Must be called on the main thread.
+     *
+     * @param positionStart The position of the first changed item in the section, including the header.
+     * @param itemCount     The number of changed items.
+     */
+    protected final void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (mObserver != null && mSlot != null) {
+            mObserver.onItemRangeChanged(mSlot, positionStart, itemCount);
+        }
+    }
+
+    /**
+     * Notifies the adapter which holds the section that a range of items was inserted. Does nothing while the section
+     * is not in an adapter. Must be called on the main thread, after the items have been inserted.
+     *
+     * @param positionStart The position of the first inserted item in the section, including the header.
+     * @param itemCount     The number of inserted items.
+     */
+    protected final void notifyItemRangeInserted(int positionStart, int itemCount) {
+        if (mObserver != null && mSlot != null) {
+            mObserver.onItemRangeInserted(mSlot, positionStart, itemCount);
+        }
+    }
+
+    /**
+     * Notifies the adapter which holds the section that a range of items was removed. Does nothing while the section
+     * is not in an adapter. Must be called on the main thread, after the items have been removed.
+     *
+     * @param positionStart The position of the first removed item in the section, including the header.
+     * @param itemCount     The number of removed items.
+     */
+    protected final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        if (mObserver != null && mSlot != null) {
+            mObserver.onItemRangeRemoved(mSlot, positionStart, itemCount);
+        }
+    }
+
+    /**
+     * Notifies the adapter which holds the section that an item moved. Does nothing while the section is not in an
+     * adapter. Must be called on the main thread, after the item has moved.
+     *
+     * @param fromPosition The previous position of the item in the section, including the header.
+     * @param toPosition   The new position of the item in the section, including the header.
+     */
+    protected final void notifyItemMoved(int fromPosition, int toPosition) {
+        if (mObserver != null && mSlot != null) {
+            mObserver.onItemMoved(mSlot, fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * Links the section to the slot which holds it.
+     *
+     * @param observer The observer to notify of changes.
+     * @param slot     The slot.
+     */
+    void attach(@NonNull Observer observer, @NonNull SectionIndex.Slot slot) {
+        mObserver = observer;
+        mSlot = slot;
+    }
+
+    /**
+     * Unlinks the section from a slot, unless it has been attached to another slot since.
+     *
+     * @param slot The slot.
+     */
+    void detach(@NonNull SectionIndex.Slot slot) {
+        if (mSlot == slot) {
+            mObserver = null;
+            mSlot = null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the section is held by a slot of an adapter.
+     */
+    boolean isAttached() {
+        return mSlot != null;
+    }
+
+    /**
+     * Copies every item in the section, including the header.
+     *
+     * @return The items of the section.
+     */
+    @NonNull
+    Object[] toArray() {
+        Object[] items = new Object[totalSize()];
+        if (hasHeader()) {
+            items[0] = mHeader;
+        }
+        mModels.copyInto(items, hasHeader() ? 1 : 0);
+        return items;
+    }
+
+    /**
+     * Checks a model before it is added to the section or replaces another model. Accepts every model unless
+     * overridden.
+     *
+     * @param model The model.
+     * @throws IllegalArgumentException If the section does not accept the model.
+     */
+    void checkModel(Object model) throws IllegalArgumentException { }
+
+    /**
+     * Checks models before they are added to the section, and has the adapter which holds the section verify them.
+     *
+     * @param models The models.
+     * @throws IllegalArgumentException If the section does not accept a model.
+     * @throws IllegalStateException    If the section is in an adapter and a model has not been registered with it.
+     */
+    private void checkModels(Collection<?> models) {
+        for (Object model : models) {
+            checkModel(model);
+        }
+        if (mObserver != null && mSlot != null) {
+            mObserver.onModelsAdding(mSlot, models);
+        }
+    }
+
+    private int headerOffset() {
+        return hasHeader() ? 1 : 0;
+    }
+
+    /**
+     * @return A number which changes whenever items are added to, removed from or replaced in the section.
+     */
+    int getModCount() {
+        return mModCount;
+    }
+
+    /**
+     * A live view of the models. Changes made through it, including replacements, count as changes to the section.
+     */
+    private final class ModelList extends AbstractList<Object> implements RandomAccess {
+
+        @Override
+        public Object get(int index) {
+            return mModels.get(index);
+        }
+
+        @Override
+        public Object set(int index, Object model) {
+            checkModel(model);
+            Object replaced = mModels.set(index, model);
+            mModCount++;
+            return replaced;
+        }
+
+        @Override
+        public void add(int index, Object model) {
+            checkModel(model);
+            mModels.add(index, model);
+            mModCount++;
+            modCount++;
+        }
+
+        @Override
+        public Object remove(int index) {
+            Object model = mModels.remove(index);
+            mModCount++;
+            modCount++;
+            return model;
+        }
+
+        @Override
+        public void clear() {
+            mModels.clear();
+            mModCount++;
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return mModels.size();
+        }
     }
 }
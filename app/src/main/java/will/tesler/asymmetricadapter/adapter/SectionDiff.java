@@ -0,0 +1,414 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A SectionDiff is the list of updates which turns the models of one section into the models of another. Models
+ * matched by a longest common subsequence stay in place, models which only changed position are moved, and the rest
+ * are removed or inserted. Matched models whose contents differ are reported as changed.
+ * <p>
+ * The common subsequence is found with Myers' algorithm in linear space, so a diff can be calculated on a background
+ * thread from copies of the models and dispatched later on the main thread.
+ */
+final class SectionDiff {
+
+    /**
+     * Receives the updates of a diff. Positions are relative to the list as it is after every previous update.
+     */
+    interface Callback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        /**
+         * @param payload Describes the change so that it can be presented partially, or null if every item in the range
+         *                has to be presented again.
+         */
+        void onChanged(int position, int count, @Nullable Object payload);
+    }
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    /**
+     * Move detection compares every unmatched old model with every unmatched new model. Above this many comparisons
+     * unmatched models are simply removed and inserted.
+     */
+    private static final long MAX_MOVE_COMPARISONS = 1 << 20;
+
+    /**
+     * Updates encoded as triples of type, first argument and second argument.
+     */
+    private int[] mUpdates = new int[24];
+    private int mUpdateCount;
+
+    private SectionDiff() { }
+
+    /**
+     * Calculates the updates from one list of models to another.
+     *
+     * @param oldModels The old models.
+     * @param newModels The new models.
+     * @param callback  Compares the models.
+     * @return The diff.
+     */
+    @NonNull
+    static SectionDiff calculate(@NonNull Object[] oldModels, @NonNull Object[] newModels,
+                                 @NonNull DiffCallback callback) {
+        int[] oldToNew = new int[oldModels.length];
+        int[] newToOld = new int[newModels.length];
+        Arrays.fill(oldToNew, -1);
+        Arrays.fill(newToOld, -1);
+
+        new Matcher(oldModels, newModels, callback, oldToNew, newToOld).match();
+        boolean[] moved = matchMoves(oldModels, newModels, callback, oldToNew, newToOld);
+
+        SectionDiff diff = new SectionDiff();
+        diff.collectUpdates(oldModels, newModels, callback, oldToNew, newToOld, moved);
+        return diff;
+    }
+
+    /**
+     * @return {@code true} if the diff has no updates.
+     */
+    boolean isEmpty() {
+        return mUpdateCount == 0;
+    }
+
+    /**
+     * Dispatch the updates of the diff.
+     *
+     * @param offset   Added to every position, such as the adapter position of the section.
+     * @param callback The callback.
+     */
+    void dispatch(int offset, @NonNull Callback callback) {
+        for (int i = 0; i < mUpdateCount; i += 3) {
+            int first = mUpdates[i + 1];
+            int second = mUpdates[i + 2];
+            switch (mUpdates[i]) {
+                case INSERT:
+                    callback.onInserted(offset + first, second);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(offset + first, second);
+                    break;
+                case MOVE:
+                    callback.onMoved(offset + first, offset + second);
+                    break;
+                default:
+                    callback.onChanged(offset + first, second, null);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Pairs up unmatched models which represent the same item. Those are moves rather than a removal and an insertion.
+     *
+     * @return Old positions which were moved.
+     */
+    private static boolean[] matchMoves(Object[] oldModels, Object[] newModels, DiffCallback callback,
+                                        int[] oldToNew, int[] newToOld) {
+        boolean[] moved = new boolean[oldModels.length];
+        long unmatchedOld = 0;
+        long unmatchedNew = 0;
+        for (int index : oldToNew) {
+            if (index == -1) {
+                unmatchedOld++;
+            }
+        }
+        for (int index : newToOld) {
+            if (index == -1) {
+                unmatchedNew++;
+            }
+        }
+        if (unmatchedOld * unmatchedNew > MAX_MOVE_COMPARISONS) {
+            return moved;
+        }
+        for (int newIndex = 0; newIndex < newModels.length; newIndex++) {
+            if (newToOld[newIndex] != -1) {
+                continue;
+            }
+            for (int oldIndex = 0; oldIndex < oldModels.length; oldIndex++) {
+                if (oldToNew[oldIndex] == -1
+                        && callback.areItemsTheSame(oldModels[oldIndex], newModels[newIndex])) {
+                    oldToNew[oldIndex] = newIndex;
+                    newToOld[newIndex] = oldIndex;
+                    moved[oldIndex] = true;
+                    break;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Turns the matching into updates: removals from the bottom up, then moves and insertions from the top down, then
+     * changes at their final positions.
+     */
+    private void collectUpdates(Object[] oldModels, Object[] newModels, DiffCallback callback,
+                                int[] oldToNew, int[] newToOld, boolean[] moved) {
+        // The old positions of the models still in the list, in list order.
+        int[] current = new int[oldModels.length + newModels.length];
+        int size = 0;
+
+        for (int oldIndex = oldModels.length - 1; oldIndex >= 0; oldIndex--) {
+            if (oldToNew[oldIndex] == -1) {
+                int end = oldIndex;
+                while (oldIndex > 0 && oldToNew[oldIndex - 1] == -1) {
+                    oldIndex--;
+                }
+                add(REMOVE, oldIndex, end - oldIndex + 1);
+            }
+        }
+        for (int oldIndex = 0; oldIndex < oldModels.length; oldIndex++) {
+            if (oldToNew[oldIndex] != -1) {
+                current[size++] = oldIndex;
+            }
+        }
+
+        // Place every moved model right after the model which precedes it in the new list. Models of the common
+        // subsequence never move, and the kept models end up in their new order.
+        int previous = -1;
+        for (int newIndex = 0; newIndex < newModels.length; newIndex++) {
+            int oldIndex = newToOld[newIndex];
+            if (oldIndex == -1) {
+                continue;
+            }
+            if (moved[oldIndex]) {
+                int from = indexOf(current, size, oldIndex);
+                System.arraycopy(current, from + 1, current, from, size - from - 1);
+                size--;
+                int to = previous == -1 ? 0 : indexOf(current, size, previous) + 1;
+                System.arraycopy(current, to, current, to + 1, size - to);
+                current[to] = oldIndex;
+                size++;
+                if (from != to) {
+                    add(MOVE, from, to);
+                }
+            }
+            previous = oldIndex;
+        }
+
+        for (int newIndex = 0; newIndex < newModels.length; newIndex++) {
+            if (newToOld[newIndex] == -1) {
+                int start = newIndex;
+                while (newIndex + 1 < newModels.length && newToOld[newIndex + 1] == -1) {
+                    newIndex++;
+                }
+                add(INSERT, start, newIndex - start + 1);
+            }
+        }
+
+        for (int newIndex = 0; newIndex < newModels.length; newIndex++) {
+            if (isChanged(oldModels, newModels, callback, newToOld, newIndex)) {
+                int start = newIndex;
+                while (newIndex + 1 < newModels.length
+                        && isChanged(oldModels, newModels, callback, newToOld, newIndex + 1)) {
+                    newIndex++;
+                }
+                add(CHANGE, start, newIndex - start + 1);
+            }
+        }
+    }
+
+    private static boolean isChanged(Object[] oldModels, Object[] newModels, DiffCallback callback,
+                                     int[] newToOld, int newIndex) {
+        int oldIndex = newToOld[newIndex];
+        return oldIndex != -1 && !callback.areContentsTheSame(oldModels[oldIndex], newModels[newIndex]);
+    }
+
+    private static int indexOf(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Diff lost track of model " + value);
+    }
+
+    private void add(int type, int first, int second) {
+        if (mUpdateCount + 3 > mUpdates.length) {
+            mUpdates = Arrays.copyOf(mUpdates, mUpdates.length * 2);
+        }
+        mUpdates[mUpdateCount++] = type;
+        mUpdates[mUpdateCount++] = first;
+        mUpdates[mUpdateCount++] = second;
+    }
+
+    /**
+     * Finds a longest common subsequence of two lists of models. Ranges are split at the middle of an optimal edit
+     * path until they have no models in common, after trimming the models they share at either end.
+     */
+    private static final class Matcher {
+
+        private final Object[] mOld;
+        private final Object[] mNew;
+        private final DiffCallback mCallback;
+        private final int[] mOldToNew;
+        private final int[] mNewToOld;
+
+        private int[] mForward = new int[0];
+        private int[] mBackward = new int[0];
+
+        /**
+         * Ranges still to be matched, as quadruples of old start, old end, new start and new end.
+         */
+        private int[] mRanges = new int[16];
+        private int mRangeCount;
+
+        Matcher(Object[] oldModels, Object[] newModels, DiffCallback callback, int[] oldToNew, int[] newToOld) {
+            mOld = oldModels;
+            mNew = newModels;
+            mCallback = callback;
+            mOldToNew = oldToNew;
+            mNewToOld = newToOld;
+        }
+
+        void match() {
+            push(0, mOld.length, 0, mNew.length);
+            while (mRangeCount > 0) {
+                mRangeCount -= 4;
+                int oldStart = mRanges[mRangeCount];
+                int oldEnd = mRanges[mRangeCount + 1];
+                int newStart = mRanges[mRangeCount + 2];
+                int newEnd = mRanges[mRangeCount + 3];
+
+                while (oldStart < oldEnd && newStart < newEnd && same(oldStart, newStart)) {
+                    pair(oldStart++, newStart++);
+                }
+                while (oldStart < oldEnd && newStart < newEnd && same(oldEnd - 1, newEnd - 1)) {
+                    pair(--oldEnd, --newEnd);
+                }
+                if (oldStart < oldEnd && newStart < newEnd) {
+                    bisect(oldStart, oldEnd, newStart, newEnd);
+                }
+            }
+        }
+
+        /**
+         * Walks the edit graph of a range from both corners at once. Where the two paths overlap lies on an optimal
+         * path, and the range is split there. If they never overlap, the range has no models in common.
+         */
+        private void bisect(int oldStart, int oldEnd, int newStart, int newEnd) {
+            int oldSize = oldEnd - oldStart;
+            int newSize = newEnd - newStart;
+            int maxD = (oldSize + newSize + 1) / 2;
+            int offset = maxD;
+            int length = 2 * maxD + 2;
+            if (mForward.length < length) {
+                mForward = new int[length];
+                mBackward = new int[length];
+            }
+            Arrays.fill(mForward, 0, length, -1);
+            Arrays.fill(mBackward, 0, length, -1);
+            mForward[offset + 1] = 0;
+            mBackward[offset + 1] = 0;
+
+            int delta = oldSize - newSize;
+            boolean front = (delta & 1) != 0;
+            int forwardStart = 0;
+            int forwardEnd = 0;
+            int backwardStart = 0;
+            int backwardEnd = 0;
+
+            for (int d = 0; d < maxD; d++) {
+                for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                    int index = offset + k;
+                    int x;
+                    if (k == -d || (k != d && mForward[index - 1] < mForward[index + 1])) {
+                        x = mForward[index + 1];
+                    } else {
+                        x = mForward[index - 1] + 1;
+                    }
+                    int y = x - k;
+                    while (x < oldSize && y < newSize && same(oldStart + x, newStart + y)) {
+                        x++;
+                        y++;
+                    }
+                    mForward[index] = x;
+                    if (x > oldSize) {
+                        forwardEnd += 2;
+                    } else if (y > newSize) {
+                        forwardStart += 2;
+                    } else if (front) {
+                        int backwardIndex = offset + delta - k;
+                        if (backwardIndex >= 0 && backwardIndex < length && mBackward[backwardIndex] != -1
+                                && x >= oldSize - mBackward[backwardIndex]) {
+                            split(oldStart, oldEnd, newStart, newEnd, x, y);
+                            return;
+                        }
+                    }
+                }
+
+                for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                    int index = offset + k;
+                    int x;
+                    if (k == -d || (k != d && mBackward[index - 1] < mBackward[index + 1])) {
+                        x = mBackward[index + 1];
+                    } else {
+                        x = mBackward[index - 1] + 1;
+                    }
+                    int y = x - k;
+                    while (x < oldSize && y < newSize && same(oldEnd - x - 1, newEnd - y - 1)) {
+                        x++;
+                        y++;
+                    }
+                    mBackward[index] = x;
+                    if (x > oldSize) {
+                        backwardEnd += 2;
+                    } else if (y > newSize) {
+                        backwardStart += 2;
+                    } else if (!front) {
+                        int forwardIndex = offset + delta - k;
+                        if (forwardIndex >= 0 && forwardIndex < length && mForward[forwardIndex] != -1) {
+                            int forwardX = mForward[forwardIndex];
+                            int forwardY = forwardX - (forwardIndex - offset);
+                            if (forwardX >= oldSize - x) {
+                                split(oldStart, oldEnd, newStart, newEnd, forwardX, forwardY);
+                                return;
+                            }
+                        }
+                    }
+                }
+            }
+            // The paths never met, so nothing in this range matches.
+        }
+
+        private void split(int oldStart, int oldEnd, int newStart, int newEnd, int x, int y) {
+            if ((x == 0 && y == 0) || (oldStart + x == oldEnd && newStart + y == newEnd)) {
+                // Splitting at a corner would not make progress.
+                return;
+            }
+            push(oldStart + x, oldEnd, newStart + y, newEnd);
+            push(oldStart, oldStart + x, newStart, newStart + y);
+        }
+
+        private void push(int oldStart, int oldEnd, int newStart, int newEnd) {
+            if (mRangeCount + 4 > mRanges.length) {
+                mRanges = Arrays.copyOf(mRanges, mRanges.length * 2);
+            }
+            mRanges[mRangeCount++] = oldStart;
+            mRanges[mRangeCount++] = oldEnd;
+            mRanges[mRangeCount++] = newStart;
+            mRanges[mRangeCount++] = newEnd;
+        }
+
+        private boolean same(int oldIndex, int newIndex) {
+            return mCallback.areItemsTheSame(mOld[oldIndex], mNew[newIndex]);
+        }
+
+        private void pair(int oldIndex, int newIndex) {
+            mOldToNew[oldIndex] = newIndex;
+            mNewToOld[newIndex] = oldIndex;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A SectionHandle identifies a {@link Section} which was added to a {@link UniversalAdapter}. Every add operation
+ * returns a handle in its {@link AddResult}, which can be used to get or remove the section later without tagging it.
+ * A handle stays valid when its section is replaced and resolves to nothing once the section has been removed, or in
+ * any adapter other than the one which created it.
+ */
+public final class SectionHandle {
+
+    private final long mId;
+
+    /**
+     * Identifies the index of the adapter which created the handle.
+     */
+    @NonNull
+    final Object owner;
+
+    /**
+     * The slot of the section in the adapter, or null once the section has been removed.
+     */
+    @Nullable
+    SectionIndex.Slot slot;
+
+    SectionHandle(@NonNull Object owner, long id, SectionIndex.Slot slot) {
+        this.owner = owner;
+        mId = id;
+        this.slot = slot;
+    }
+
+    /**
+     * @return An id which is unique among the handles of the adapter that created this handle.
+     */
+    public long getId() {
+        return mId;
+    }
+
+    @Override
+    public String toString() {
+        return "SectionHandle{" + mId + "}";
+    }
+}
@@ -0,0 +1,367 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import io.reactivex.disposables.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SectionIndex keeps the sections of a {@link UniversalAdapter} in order and maintains a cumulative offset for
+ * each of them, so that an adapter position can be resolved to a section with a binary search instead of a walk over
+ * every section.
+ * <p>
+ * Offsets are cached in a prefix array which is only valid up to a given ordinal. Any change to a section invalidates
+ * the offsets from that section onwards, and the next lookup recomputes them. Lookups are therefore O(log S) and
+ * the item count is O(1) as long as nothing has changed.
+ */
+final class SectionIndex {
+
+    /**
+     * A Slot holds a section and the bookkeeping needed to locate it in the index.
+     */
+    static final class Slot {
+
+        @Nullable
+        final String tag;
+
+        @NonNull
+        final SectionHandle handle;
+
+        Section section;
+
+        /**
+         * The position of the slot in the index. Only valid while {@code ordinal < mValidCount}.
+         */
+        int ordinal = -1;
+
+        /**
+         * Incremented whenever the section of the slot is replaced or removed, so that asynchronous work started for
+         * an earlier section can tell it is stale.
+         */
+        int generation;
+
+        /**
+         * A replacement of the section which is being diffed in the background, or null.
+         */
+        @Nullable
+        Disposable pendingReplacement;
+
+        /**
+         * Increments the generation of the slot and cancels any pending replacement.
+         */
+        void supersede() {
+            generation++;
+            if (pendingReplacement != null) {
+                pendingReplacement.dispose();
+                pendingReplacement = null;
+            }
+        }
+
+        Slot(@NonNull Object owner, @Nullable String tag, long id, Section section) {
+            this.tag = tag;
+            this.handle = new SectionHandle(owner, id, this);
+            this.section = section;
+        }
+    }
+
+    /**
+     * Attached to every section in the index.
+     */
+    private final Section.Observer mSectionObserver;
+
+    private final Map<String, Slot> mSlotsByTag = new HashMap<>();
+
+    /**
+     * The id of the next section handle. Ids are never reused within an index.
+     */
+    private long mNextId;
+
+    /**
+     * Identifies the handles of this index, without the handles keeping the index and its adapter alive.
+     */
+    private final Object mHandleOwner = new Object();
+
+    private final List<Slot> mSlots = new ArrayList<>();
+
+    /**
+     * {@code mEnds[i]} is the adapter position just after the last item of the section at ordinal {@code i}.
+     */
+    private int[] mEnds = new int[16];
+
+    /**
+     * The number of slots, starting at ordinal 0, whose ordinal and end offset are up to date.
+     */
+    private int mValidCount;
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param sectionObserver Attached to every section while it is in the index.
+     */
+    SectionIndex(@NonNull Section.Observer sectionObserver) {
+        mSectionObserver = sectionObserver;
+    }
+
+    /**
+     * @return The number of sections in the index.
+     */
+    int size() {
+        return mSlots.size();
+    }
+
+    /**
+     * Get the slot for a tag.
+     *
+     * @param tag The tag.
+     * @return The slot or null.
+     */
+    @Nullable
+    Slot get(String tag) {
+        return mSlotsByTag.get(tag);
+    }
+
+    /**
+     * Get the slot for a handle.
+     *
+     * @param handle The handle.
+     * @return The slot or null if the section of the handle has been removed, or the handle belongs to another index.
+     */
+    @Nullable
+    Slot get(@NonNull SectionHandle handle) {
+        return handle.owner == mHandleOwner ? handle.slot : null;
+    }
+
+    /**
+     * Get the slot at an ordinal.
+     *
+     * @param ordinal The ordinal of the slot.
+     * @return The slot.
+     */
+    @NonNull
+    Slot slotAt(int ordinal) {
+        return mSlots.get(ordinal);
+    }
+
+    /**
+     * Appends a section after every other section.
+     *
+     * @param tag     The tag for the section, which must not be in use, or null.
+     * @param section The section.
+     * @return The new slot.
+     */
+    @NonNull
+    Slot add(@Nullable String tag, Section section) {
+        return add(mSlots.size(), tag, section);
+    }
+
+    /**
+     * Inserts a section at an ordinal. The sections from that ordinal onwards move one ordinal up.
+     *
+     * @param ordinal The ordinal of the new section.
+     * @param tag     The tag for the section, which must not be in use, or null.
+     * @param section The section.
+     * @return The new slot.
+     */
+    @NonNull
+    Slot add(int ordinal, @Nullable String tag, Section section) {
+        Slot slot = new Slot(mHandleOwner, tag, mNextId++, section);
+        if (tag != null) {
+            mSlotsByTag.put(tag, slot);
+        }
+        mSlots.add(ordinal, slot);
+        invalidateFrom(ordinal);
+        section.attach(mSectionObserver, slot);
+        return slot;
+    }
+
+    /**
+     * Moves a slot to another ordinal. The sections in between move one ordinal towards the old ordinal of the slot.
+     *
+     * @param slot      The slot.
+     * @param toOrdinal The ordinal of the slot after the move.
+     */
+    void move(@NonNull Slot slot, int toOrdinal) {
+        int fromOrdinal = ordinalOf(slot);
+        mSlots.add(toOrdinal, mSlots.remove(fromOrdinal));
+        invalidateFrom(Math.min(fromOrdinal, toOrdinal));
+    }
+
+    /**
+     * Replaces the section of a slot in place.
+     *
+     * @param slot    The slot.
+     * @param section The new section.
+     * @return The section that was replaced.
+     */
+    @NonNull
+    Section replace(@NonNull Slot slot, Section section) {
+        Section replaced = slot.section;
+        slot.supersede();
+        replaced.detach(slot);
+        slot.section = section;
+        section.attach(mSectionObserver, slot);
+        invalidateFrom(ordinalOf(slot));
+        return replaced;
+    }
+
+    /**
+     * Removes a slot from the index. Its handle no longer resolves afterwards.
+     *
+     * @param slot The slot.
+     */
+    void remove(@NonNull Slot slot) {
+        int ordinal = ordinalOf(slot);
+        if (slot.tag != null) {
+            mSlotsByTag.remove(slot.tag);
+        }
+        mSlots.remove(ordinal);
+        invalidateFrom(ordinal);
+        slot.supersede();
+        slot.section.detach(slot);
+        slot.handle.slot = null;
+    }
+
+    /**
+     * Removes all slots.
+     */
+    void clear() {
+        for (Slot slot : mSlots) {
+            slot.supersede();
+            slot.section.detach(slot);
+            slot.handle.slot = null;
+        }
+        mSlotsByTag.clear();
+        mSlots.clear();
+        mValidCount = 0;
+    }
+
+    /**
+     * @return The total number of items in every section, including headers.
+     */
+    int itemCount() {
+        int count = mSlots.size();
+        if (count == 0) {
+            return 0;
+        }
+        ensureValid();
+        return mEnds[count - 1];
+    }
+
+    /**
+     * Finds the ordinal of the section which contains an adapter position.
+     *
+     * @param adapterPosition The adapter position.
+     * @return The ordinal or -1 if the position is out of bounds.
+     */
+    int ordinalAt(int adapterPosition) {
+        if (adapterPosition < 0) {
+            return -1;
+        }
+        ensureValid();
+        return search(adapterPosition, mSlots.size());
+    }
+
+    /**
+     * Get the adapter position of the first item in a section.
+     *
+     * @param ordinal The ordinal of the section.
+     * @return The adapter position of the first item in the section.
+     */
+    int startOf(int ordinal) {
+        ensureValid();
+        return ordinal == 0 ? 0 : mEnds[ordinal - 1];
+    }
+
+    /**
+     * Get the current ordinal of a slot.
+     *
+     * @param slot The slot.
+     * @return The ordinal of the slot.
+     */
+    int ordinalOf(@NonNull Slot slot) {
+        int ordinal = slot.ordinal;
+        if (ordinal >= 0 && ordinal < mValidCount && mSlots.get(ordinal) == slot) {
+            return ordinal;
+        }
+        ensureValid();
+        return slot.ordinal;
+    }
+
+    /**
+     * Marks the offsets of every section from the given ordinal onwards as stale.
+     *
+     * @param ordinal The ordinal of the first section which changed.
+     */
+    void invalidateFrom(int ordinal) {
+        if (ordinal < mValidCount) {
+            mValidCount = Math.max(ordinal, 0);
+        }
+    }
+
+    /**
+     * Marks the offsets of the section containing an adapter position, and of every section after it, as stale. The
+     * position is resolved with the offsets as they were before the change.
+     *
+     * @param adapterPosition The adapter position where the change happened.
+     */
+    void invalidateFromPosition(int adapterPosition) {
+        if (mValidCount == 0) {
+            return;
+        }
+        // A change at the start of a section may belong to the end of the previous one.
+        int ordinal = adapterPosition <= 0 ? 0 : search(adapterPosition - 1, mValidCount);
+        invalidateFrom(ordinal < 0 ? mValidCount : ordinal);
+    }
+
+    /**
+     * Marks every offset as stale.
+     */
+    void invalidateAll() {
+        mValidCount = 0;
+    }
+
+    /**
+     * Recomputes the ordinals and end offsets which are stale.
+     */
+    private void ensureValid() {
+        int count = mSlots.size();
+        if (mValidCount == count) {
+            return;
+        }
+        if (mEnds.length < count) {
+            int[] ends = new int[Math.max(count, mEnds.length * 2)];
+            System.arraycopy(mEnds, 0, ends, 0, mValidCount);
+            mEnds = ends;
+        }
+        int end = mValidCount == 0 ? 0 : mEnds[mValidCount - 1];
+        for (int i = mValidCount; i < count; i++) {
+            Slot slot = mSlots.get(i);
+            slot.ordinal = i;
+            end += slot.section.totalSize();
+            mEnds[i] = end;
+        }
+        mValidCount = count;
+    }
+
+    /**
+     * Binary search for the first of the first {@code limit} sections which ends after the adapter position.
+     */
+    private int search(int adapterPosition, int limit) {
+        int low = 0;
+        int high = limit - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mEnds[mid] <= adapterPosition) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low < limit ? low : -1;
+    }
+}
@@ -0,0 +1,377 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A SectionSnapshot is an immutable {@link Section}. It is assembled with a {@link Builder}, which can be used on any
+ * thread, and once built it can be read from any thread and handed to the adapter on the main thread.
+ * <p>
+ * A snapshot and the builder it came from share their storage, as do every later snapshot of the same builder and
+ * every builder made with {@link #toBuilder()}. Only the parts which are changed in between are copied, so
+ * republishing a large section with a few changes costs time and memory in proportion to the changes. When one
+ * snapshot replaces another under a tag with {@link UniversalAdapter#add(Section, String)}, the shared ranges at either
+ * end are recognized and only the range in between is notified.
+ * <p>
+ * The models of a SectionSnapshot cannot be added, removed or set, and neither can its header.
+ */
+public final class SectionSnapshot extends Section {
+
+    /**
+     * Assembles a {@link SectionSnapshot}. Positions never include the header. A Builder is not thread-safe, but it
+     * may be used on any one thread at a time.
+     */
+    public static final class Builder {
+
+        @Nullable
+        private Object mHeader;
+        private boolean mHasHeader;
+        private final ChunkedList mModels;
+
+        /**
+         * Constructs an empty Builder.
+         */
+        public Builder() {
+            mModels = new ChunkedList();
+        }
+
+        private Builder(@NonNull SectionSnapshot snapshot) {
+            mHeader = snapshot.mHeader;
+            mHasHeader = snapshot.mHasHeader;
+            mModels = snapshot.mModels.copy();
+        }
+
+        /**
+         * Sets the header, replacing any existing header.
+         *
+         * @param header The header model.
+         * @return This builder.
+         */
+        @NonNull
+        public Builder setHeader(@NonNull Object header) {
+            mHeader = header;
+            mHasHeader = true;
+            return this;
+        }
+
+        /**
+         * Removes the header if there is one.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder clearHeader() {
+            mHeader = null;
+            mHasHeader = false;
+            return this;
+        }
+
+        /**
+         * Adds a model to the end.
+         *
+         * @param model The model.
+         * @return This builder.
+         */
+        @NonNull
+        public Builder add(@NonNull Object model) {
+            mModels.add(model);
+            return this;
+        }
+
+        /**
+         * Adds a model at a position.
+         *
+         * @param model    The model.
+         * @param position The position where the model will be placed.
+         * @return This builder.
+         * @throws IndexOutOfBoundsException If the position is out of bounds.
+         */
+        @NonNull
+        public Builder add(@NonNull Object model, int position) {
+            mModels.add(position, model);
+            return this;
+        }
+
+        /**
+         * Adds models to the end.
+         *
+         * @param models The models.
+         * @return This builder.
+         */
+        @NonNull
+        public Builder addAll(@NonNull Collection<?> models) {
+            mModels.addAll(models);
+            return this;
+        }
+
+        /**
+         * Replaces the model at a position.
+         *
+         * @param position The position of the model.
+         * @param model    The new model.
+         * @return This builder.
+         * @throws IndexOutOfBoundsException If the position is out of bounds.
+         */
+        @NonNull
+        public Builder set(int position, @NonNull Object model) {
+            mModels.set(position, model);
+            return this;
+        }
+
+        /**
+         * Removes the model at a position.
+         *
+         * @param position The position of the model.
+         * @return This builder.
+         * @throws IndexOutOfBoundsException If the position is out of bounds.
+         */
+        @NonNull
+        public Builder remove(int position) {
+            mModels.remove(position);
+            return this;
+        }
+
+        /**
+         * Get the model at a position.
+         *
+         * @param position The position of the model.
+         * @return The model.
+         * @throws IndexOutOfBoundsException If the position is out of bounds.
+         */
+        public Object get(int position) {
+            return mModels.get(position);
+        }
+
+        /**
+         * @return The number of models, excluding the header.
+         */
+        public int size() {
+            return mModels.size();
+        }
+
+        /**
+         * Builds a snapshot of the models added so far. The builder can still be used afterwards, and the snapshot is
+         * not affected by later changes.
+         *
+         * @return The snapshot.
+         */
+        @NonNull
+        public SectionSnapshot build() {
+            return new SectionSnapshot(mHeader, mHasHeader, mModels.copy());
+        }
+    }
+
+    @Nullable
+    private final Object mHeader;
+    private final boolean mHasHeader;
+    private final ChunkedList mModels;
+    private final List<Object> mModelList = new ModelList();
+
+    private SectionSnapshot(@Nullable Object header, boolean hasHeader, @NonNull ChunkedList models) {
+        mHeader = header;
+        mHasHeader = hasHeader;
+        mModels = models;
+    }
+
+    /**
+     * Get a builder which starts out with the header and models of this snapshot and shares its storage.
+     *
+     * @return A new builder.
+     */
+    @NonNull
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Get the model at the given position. Includes the header.
+     *
+     * @param position The position of the item in the section.
+     * @return The model at the given position in the section, or null if the position is out of bounds.
+     */
+    @Nullable
+    @Override
+    public Object getModel(int position) {
+        int index = mHasHeader ? position - 1 : position;
+        if (index < 0 || index >= mModels.size()) {
+            return index == -1 ? mHeader : null;
+        }
+        return mModels.get(index);
+    }
+
+    /**
+     * Get the models in the section excluding the header.
+     *
+     * @return A read-only view of the models.
+     */
+    @NonNull
+    @Override
+    public List<Object> getModels() {
+        return mModelList;
+    }
+
+    @Nullable
+    @Override
+    public Object getHeader() {
+        return mHeader;
+    }
+
+    @Override
+    public boolean hasHeader() {
+        return mHasHeader;
+    }
+
+    @Override
+    public int totalSize() {
+        return mHasHeader ? mModels.size() + 1 : mModels.size();
+    }
+
+    @Override
+    public int size() {
+        return mModels.size();
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void add(Object model) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void add(Object model, int position) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public Object remove(int position) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void addAll(int position, Collection<?> models) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void removeRange(int fromPosition, int toPosition) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void move(int fromPosition, int toPosition) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void replaceRange(int position, Collection<?> models) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void setModels(List<Object> models) {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void clearModels() {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable.
+     */
+    @Override
+    public void clearSection() {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, a snapshot is immutable. This includes {@code setHeader}.
+     */
+    @Override
+    public Object clearHeader() {
+        throw new UnsupportedOperationException("A SectionSnapshot is immutable");
+    }
+
+    @NonNull
+    @Override
+    Object[] toArray() {
+        Object[] items = new Object[totalSize()];
+        if (mHasHeader) {
+            items[0] = mHeader;
+        }
+        mModels.copyInto(items, mHasHeader ? 1 : 0);
+        return items;
+    }
+
+    /**
+     * Counts the items at the start of this snapshot which are shared with another snapshot. Includes the header.
+     *
+     * @param other The other snapshot.
+     * @return The number of leading items which are the same in both snapshots.
+     */
+    int sharedPrefix(@NonNull SectionSnapshot other) {
+        if (mHasHeader != other.mHasHeader || mHeader != other.mHeader) {
+            return 0;
+        }
+        return (mHasHeader ? 1 : 0) + mModels.sharedPrefix(other.mModels);
+    }
+
+    /**
+     * Counts the items at the end of this snapshot which are shared with another snapshot.
+     *
+     * @param other The other snapshot.
+     * @param limit The maximum count.
+     * @return The number of trailing items which are the same in both snapshots, at most {@code limit}.
+     */
+    int sharedSuffix(@NonNull SectionSnapshot other, int limit) {
+        return mModels.sharedSuffix(other.mModels, limit);
+    }
+
+    /**
+     * A read-only view of the models.
+     */
+    private final class ModelList extends AbstractList<Object> implements RandomAccess {
+
+        @Override
+        public Object get(int index) {
+            return mModels.get(index);
+        }
+
+        @Override
+        public int size() {
+            return mModels.size();
+        }
+    }
+}
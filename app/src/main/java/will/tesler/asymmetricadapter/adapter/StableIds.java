@@ -0,0 +1,200 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StableIds assigns a stable id to the key of every model. The key of a model comes from the {@link KeyExtractor}
+ * registered for its view type, from {@link Keyed#getKey()}, or else is the model itself.
+ * <p>
+ * Ids are not derived from hash codes but handed out in sequence from a table per view type, so keys whose hashes
+ * collide still get distinct ids, and a key keeps its id for as long as it is in the adapter. Keys which have left the
+ * adapter are pruned from the table once it has grown to twice the item count.
+ * <p>
+ * RecyclerView requires the ids of the positions to be distinct. The table therefore remembers which position holds
+ * each key, and a key which another position still holds is a duplicate, so that position gets an id derived from its
+ * position instead. Placeholders have no identity of their own and are identified by position as well. Ids derived
+ * from positions are negative, apart from {@link RecyclerView#NO_ID}, and never collide with the ids of keys.
+ */
+final class StableIds {
+
+    /**
+     * The id of a key, and the position which was last given that id.
+     */
+    private static final class Entry {
+
+        final long id;
+
+        int position;
+
+        Entry(long id, int position) {
+            this.id = id;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The table is never pruned below this many keys.
+     */
+    private static final int MIN_PRUNE_SIZE = 64;
+
+    /**
+     * Key extractors indexed by view type.
+     */
+    private final List<KeyExtractor<?>> mKeyExtractors = new ArrayList<>();
+
+    /**
+     * Ids by key, indexed by view type.
+     */
+    private final List<Map<Object, Entry>> mIds = new ArrayList<>();
+
+    private final UniversalAdapter mAdapter;
+
+    private int mSize;
+
+    private long mNextId;
+
+    StableIds(@NonNull UniversalAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * Sets the key extractor of a view type.
+     *
+     * @param viewType     The view type.
+     * @param keyExtractor The key extractor.
+     */
+    void setKeyExtractor(int viewType, @NonNull KeyExtractor<?> keyExtractor) {
+        while (mKeyExtractors.size() <= viewType) {
+            mKeyExtractors.add(null);
+        }
+        mKeyExtractors.set(viewType, keyExtractor);
+        // Keys extracted so far may no longer match.
+        if (viewType < mIds.size()) {
+            mSize -= mIds.get(viewType).size();
+            mIds.get(viewType).clear();
+        }
+    }
+
+    /**
+     * Get the id of the model at a position, assigning a new one if its key has none. If another position still holds
+     * the key, or the model is a placeholder, the id is derived from the position.
+     *
+     * @param viewType The view type of the model.
+     * @param model    The model.
+     * @param position The adapter position of the model.
+     * @return The id.
+     */
+    long idOf(int viewType, @NonNull Object model, int position) {
+        if (model == PagedSection.PLACEHOLDER) {
+            return positionalId(position);
+        }
+        while (mIds.size() <= viewType) {
+            mIds.add(new HashMap<Object, Entry>());
+        }
+        Map<Object, Entry> ids = mIds.get(viewType);
+        Object key = keyOf(viewType, model);
+        Entry entry = ids.get(key);
+        if (entry == null) {
+            entry = new Entry(mNextId++, position);
+            ids.put(key, entry);
+            mSize++;
+        } else if (entry.position != position) {
+            if (holds(entry.position, viewType, key)) {
+                return positionalId(position);
+            }
+            // The position which held the key has moved on, so this one takes the key over.
+            entry.position = position;
+        }
+        return entry.id;
+    }
+
+    /**
+     * @param itemCount The number of items in the adapter.
+     * @return {@code true} if the table has grown enough that it should be pruned.
+     */
+    boolean shouldPrune(int itemCount) {
+        return mSize > Math.max(itemCount * 2, MIN_PRUNE_SIZE);
+    }
+
+    /**
+     * Drops the ids of every key which is not among the keys of the given models.
+     *
+     * @param viewTypes The view type of each model.
+     * @param models    The models in the adapter.
+     */
+    void retain(int[] viewTypes, Object[] models) {
+        List<Map<Object, Entry>> retained = new ArrayList<>(mIds.size());
+        for (int viewType = 0; viewType < mIds.size(); viewType++) {
+            retained.add(new HashMap<Object, Entry>());
+        }
+        int size = 0;
+        for (int i = 0; i < models.length; i++) {
+            int viewType = viewTypes[i];
+            if (viewType >= mIds.size() || models[i] == PagedSection.PLACEHOLDER) {
+                continue;
+            }
+            Object key = keyOf(viewType, models[i]);
+            Entry entry = mIds.get(viewType).get(key);
+            if (entry != null && retained.get(viewType).put(key, entry) == null) {
+                size++;
+            }
+        }
+        mIds.clear();
+        mIds.addAll(retained);
+        mSize = size;
+    }
+
+    /**
+     * Checks whether a position still holds a key.
+     *
+     * @param position The adapter position.
+     * @param viewType The view type of the key.
+     * @param key      The key.
+     * @return {@code true} if the model at the position has the key.
+     */
+    private boolean holds(int position, int viewType, @NonNull Object key) {
+        if (position >= mAdapter.getItemCount()) {
+            return false;
+        }
+        Object model = mAdapter.peek(position);
+        return model != null && model != PagedSection.PLACEHOLDER && mAdapter.getItemViewType(position) == viewType
+                && key.equals(keyOf(viewType, model));
+    }
+
+    /**
+     * Get the id of a position which has no key of its own.
+     *
+     * @param position The adapter position.
+     * @return A negative id other than {@link RecyclerView#NO_ID}.
+     */
+    private static long positionalId(int position) {
+        return -2L - position;
+    }
+
+    /**
+     * Get the key of a model.
+     *
+     * @param viewType The view type of the model.
+     * @param model    The model.
+     * @return The key from the key extractor of the view type, from {@link Keyed#getKey()}, or else the model.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    Object keyOf(int viewType, @NonNull Object model) {
+        KeyExtractor<Object> keyExtractor = viewType < mKeyExtractors.size()
+                ? (KeyExtractor<Object>) mKeyExtractors.get(viewType) : null;
+        if (keyExtractor != null) {
+            return keyExtractor.keyOf(model);
+        }
+        if (model instanceof Keyed) {
+            return ((Keyed) model).getKey();
+        }
+        return model;
+    }
+}
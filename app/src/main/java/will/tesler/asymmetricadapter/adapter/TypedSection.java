@@ -0,0 +1,71 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A TypedSection is a {@link Section} whose models are all of a single class. The header, if there is one, can be of
+ * any class.
+ * <p>
+ * Since every model has the same view type, the {@link UniversalAdapter} verifies that the model class has been
+ * registered once per section instead of once per model, and it answers {@code getItemViewType} for the models of the
+ * section from the model class without looking the models up. This makes adding and presenting large sections
+ * cheaper.
+ * <p>
+ * Models must be exactly of the model class, because a subclass could have a presenter of its own. Adding any other
+ * model throws an {@link IllegalArgumentException}.
+ *
+ * @param <T> The model type.
+ */
+public class TypedSection<T> extends Section {
+
+    @NonNull
+    private final Class<T> mModelClass;
+
+    /**
+     * Constructs an empty TypedSection.
+     *
+     * @param modelClass The class of every model in the section.
+     */
+    public TypedSection(@NonNull Class<T> modelClass) {
+        mModelClass = modelClass;
+    }
+
+    /**
+     * Constructs a TypedSection given a header.
+     *
+     * @param modelClass  The class of every model in the section.
+     * @param headerModel A header model, which can be of any class.
+     */
+    public TypedSection(@NonNull Class<T> modelClass, @NonNull Object headerModel) {
+        super(headerModel);
+        mModelClass = modelClass;
+    }
+
+    /**
+     * @return The class of every model in the section.
+     */
+    @NonNull
+    public Class<T> getModelClass() {
+        return mModelClass;
+    }
+
+    /**
+     * Get a model. Does not take the header into account.
+     *
+     * @param index The index of the model.
+     * @return The model.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    @NonNull
+    public T get(int index) {
+        return mModelClass.cast(getModels().get(index));
+    }
+
+    @Override
+    void checkModel(Object model) throws IllegalArgumentException {
+        if (model == null || model.getClass() != mModelClass) {
+            throw new IllegalArgumentException(String.format("%s is not a %s.",
+                    model == null ? null : model.getClass().getSimpleName(), mModelClass.getSimpleName()));
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package will.tesler.asymmetricadapter.adapter;
 
+import android.content.ComponentCallbacks2;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
-import android.util.Pair;
 import android.view.ViewGroup;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.ParameterizedType;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.Callable;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
-import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.DisposableSubscriber;
 
 /**
  * The UniversalAdapter is a composable non-abstract {@code RecyclerAdapter} which can be used as-is without needing to
@@ -36,26 +45,240 @@ import io.reactivex.functions.Predicate;
  * <br/><br/>
  * If you want to add and remove many models at the same time, you simply create a {@link Section} and call add(section,
  * tag) or remove(tag) respectively.
+ * <br/><br/>
+ * Operations made between {@link #beginBatch()} and {@link #commit()} are notified together when the batch is
+ * committed, merged into as few ranged notifications as possible.
+ * <br/><br/>
+ * A tagged section can also be bound to a stream of model lists with {@link #bind(String, Flowable, DiffCallback)}.
  */
 public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
 
+    /**
+     * The action with which impressions are emitted, see {@link #setImpressionTracking(float, long)}.
+     */
+    public static final String IMPRESSION = "UniversalAdapter.IMPRESSION";
+
     /**
      * Maps tags to corresponding sections. Insertion order is maintained because the sections must be iterable in
-     * order.
+     * order, and the offset of every section is cached so that adapter positions can be resolved quickly.
      */
-    private Map<String, Section> mSections = new LinkedHashMap<>();
+    private final SectionIndex mSections;
 
     /**
-     * Maps model classes to corresponding transformer classes. Insertion order is maintained in order to determine
+     * Maps model classes to corresponding presenter classes. Registration order is maintained in order to determine
      * view types.
      */
-    private Map<Class<?>, Class<? extends Presenter>> mRegistrar = new LinkedHashMap<>();
+    private Registrar mRegistrar = new Registrar();
 
     /**
      * Use this to relay emissions out of {@link Presenter presenters}.
      */
     private UniversalRelay mUniversalRelay = new UniversalRelay();
 
+    /**
+     * Prepares models for {@link PreparingPresenter preparing presenters} ahead of binding.
+     */
+    private final BindPreparer mBindPreparer = new BindPreparer(this);
+
+    /**
+     * Creates presenters ahead of time for the view types which were registered with a warm count.
+     */
+    private final PresenterWarmer mPresenterWarmer = new PresenterWarmer(this);
+
+    /**
+     * Measures creating and binding presenters, or null.
+     */
+    @Nullable
+    private AdapterMetrics mMetrics;
+
+    /**
+     * Assigns stable ids to the keys of models.
+     */
+    private final StableIds mStableIds = new StableIds(this);
+
+    /**
+     * Emits the impressions of the models which stay visible long enough.
+     */
+    private final ImpressionTracker mImpressionTracker = new ImpressionTracker(this, mStableIds, mUniversalRelay);
+
+    /**
+     * The pool which is shared with other adapters, or null.
+     */
+    @Nullable
+    private RecyclerView.RecycledViewPool mSharedPool;
+
+    /**
+     * The subscriptions of the sections which are bound to a stream, by tag.
+     */
+    private final Map<String, Disposable> mBindings = new HashMap<>();
+
+    /**
+     * Updates made by the adapter which have not been dispatched to its observers yet.
+     */
+    private final UpdateBatch mPendingUpdates = new UpdateBatch();
+
+    /**
+     * The number of batches which have begun but not been committed.
+     */
+    private int mBatchDepth;
+
+    /**
+     * {@code true} while the adapter is dispatching its own notifications, during which the section index is already
+     * up to date.
+     */
+    private boolean mDispatching;
+
+    /**
+     * Sections can be changed directly and the adapter is then notified by the caller. Observe those notifications so
+     * that the cached section offsets are invalidated from the first section that changed. Models which are notified
+     * as changed are also prepared again, and positions which shift are measured again for impressions.
+     */
+    private final RecyclerView.AdapterDataObserver mIndexInvalidator = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            if (!mDispatching) {
+                mSections.invalidateAll();
+            }
+            mBindPreparer.clear();
+            mImpressionTracker.invalidate();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mBindPreparer.invalidate(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (!mDispatching) {
+                mSections.invalidateFromPosition(positionStart);
+            }
+            mImpressionTracker.invalidate();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (!mDispatching) {
+                mSections.invalidateFromPosition(positionStart);
+            }
+            mImpressionTracker.invalidate();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (!mDispatching) {
+                mSections.invalidateFromPosition(Math.min(fromPosition, toPosition));
+            }
+            mImpressionTracker.invalidate();
+        }
+    };
+
+    /**
+     * Prepares the models around the visible positions and tracks impressions as the RecyclerView scrolls.
+     */
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            mImpressionTracker.update(recyclerView);
+            int firstVisible = Integer.MAX_VALUE;
+            int lastVisible = RecyclerView.NO_POSITION;
+            for (int i = 0; i < recyclerView.getChildCount(); i++) {
+                int position = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(i));
+                if (position != RecyclerView.NO_POSITION) {
+                    firstVisible = Math.min(firstVisible, position);
+                    lastVisible = Math.max(lastVisible, position);
+                }
+            }
+            if (lastVisible != RecyclerView.NO_POSITION) {
+                mBindPreparer.onVisibleRangeChanged(firstVisible, lastVisible);
+            }
+        }
+    };
+
+    /**
+     * Records the changes which sections notify about themselves.
+     */
+    private final Section.Observer mSectionObserver = new Section.Observer() {
+        @Override
+        public void onItemRangeChanged(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount) {
+            // Models replaced through the section are verified beforehand, but subclasses may replace models themselves.
+            verify(slot.section, positionStart, positionStart + itemCount);
+            mPendingUpdates.onChanged(mSections.startOf(mSections.ordinalOf(slot)) + positionStart, itemCount, null);
+            dispatchPendingUpdates();
+        }
+
+        @Override
+        public void onItemRangeInserted(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount) {
+            int ordinal = mSections.ordinalOf(slot);
+            mSections.invalidateFrom(ordinal);
+            // Models added through the section are verified beforehand, but subclasses may insert models themselves.
+            verify(slot.section, positionStart, positionStart + itemCount);
+            mPendingUpdates.onInserted(mSections.startOf(ordinal) + positionStart, itemCount);
+            dispatchPendingUpdates();
+        }
+
+        @Override
+        public void onItemRangeRemoved(@NonNull SectionIndex.Slot slot, int positionStart, int itemCount) {
+            int ordinal = mSections.ordinalOf(slot);
+            mSections.invalidateFrom(ordinal);
+            mPendingUpdates.onRemoved(mSections.startOf(ordinal) + positionStart, itemCount);
+            dispatchPendingUpdates();
+        }
+
+        @Override
+        public void onItemMoved(@NonNull SectionIndex.Slot slot, int fromPosition, int toPosition) {
+            int sectionStart = mSections.startOf(mSections.ordinalOf(slot));
+            mPendingUpdates.onMoved(sectionStart + fromPosition, sectionStart + toPosition);
+            dispatchPendingUpdates();
+        }
+
+        @Override
+        public void onModelsAdding(@NonNull SectionIndex.Slot slot, @NonNull Collection<?> models) {
+            if (slot.section instanceof TypedSection) {
+                if (!models.isEmpty()) {
+                    verify(((TypedSection<?>) slot.section).getModelClass());
+                }
+                return;
+            }
+            for (Object model : models) {
+                verify(model.getClass());
+            }
+        }
+    };
+
+    /**
+     * Forwards updates to the adapter's observers.
+     */
+    private final SectionDiff.Callback mUpdateDispatcher = new SectionDiff.Callback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    };
+
+    /**
+     * Constructs an empty UniversalAdapter.
+     */
+    public UniversalAdapter() {
+        mSections = new SectionIndex(mSectionObserver);
+        registerAdapterDataObserver(mIndexInvalidator);
+    }
+
     /**
      * Transform a model into a view. No need to check for raw type inference because it is implied
      * by the registrar's structure.
@@ -67,34 +290,111 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
     @Override
     public void onBindViewHolder(Presenter presenter, int position) {
         Object model = getModel(position);
-        presenter.present(model, mUniversalRelay);
+        if (presenter instanceof PreparingPresenter) {
+            mBindPreparer.bind((PreparingPresenter<?, ?>) presenter, model, mUniversalRelay);
+        } else {
+            presenter.present(model, mUniversalRelay);
+        }
+    }
+
+    /**
+     * Transform a model into a view, presenting only the payloads of its changes if there are any and the presenter
+     * accepts them.
+     *
+     * @param presenter The presenter.
+     * @param position  The position of the corresponding model.
+     * @param payloads  The payloads notified since the view was last bound, or an empty list.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(Presenter presenter, int position, List<Object> payloads) {
+        AdapterMetrics metrics = mMetrics;
+        long startTime = metrics != null ? metrics.beginBind(presenter) : 0;
+        try {
+            if (payloads.isEmpty() || !presenter.presentPartial(getModel(position), payloads, mUniversalRelay)) {
+                onBindViewHolder(presenter, position);
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.endBind(presenter, startTime);
+            }
+        }
     }
 
     /**
      * Create a {@link Presenter} for a given view type.
-     * the view type corresponds to the position of the transformer's class in the registrar. The transformer's class
-     * is expected to have a public constructor {@code Presenter(Viewgroup parent)}. Reflection is an important
-     * and necessary step in this method as it is the main way that providers are avoided in this adapter. Ensure
-     * that proguard does not alter the constructor.
+     * The view type corresponds to the position of the presenter's factory in the registrar. Presenters registered by
+     * class are created through their public constructor {@code Presenter(Viewgroup parent)}, which is looked up once
+     * at registration. Ensure that proguard does not alter the constructor, or register a {@link PresenterFactory}.
      */
     @Nullable
     @Override
     public Presenter onCreateViewHolder(ViewGroup parent, int viewType) {
-        int i = 0;
-        for (Class<? extends Presenter> transformer : mRegistrar.values()) {
-            if (viewType == i++) {
-                try {
-                    Constructor<? extends Presenter> constructor =
-                            transformer.getDeclaredConstructor(ViewGroup.class);
-                    return constructor.newInstance(parent);
-                } catch (Exception e) {
-                    Log.e(getClass().getName(), e.getCause() + ". Ensure that " + transformer.getSimpleName()
-                            + " defines a public constructor " + transformer.getSimpleName() + "(ViewGroup parent)."
-                            + " Also, ensure that your Presenter class is not an inner class.", e);
-                }
+        PresenterFactory<?> factory = mRegistrar.factoryOf(viewType);
+        if (factory == null) {
+            return null;
+        }
+        AdapterMetrics metrics = mMetrics;
+        Presenter presenter = null;
+        long startTime = metrics != null ? metrics.beginCreate(viewType) : 0;
+        try {
+            presenter = factory.create(parent);
+        } finally {
+            if (metrics != null) {
+                metrics.endCreate(viewType, presenter, startTime);
             }
         }
-        return null;
+        mBindPreparer.onCreated(viewType, presenter);
+        return presenter;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(Presenter presenter) {
+        presenter.onAttached();
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(Presenter presenter) {
+        presenter.onDetached();
+    }
+
+    /**
+     * Lets the presenter release what belongs to its last model before it waits in the pool.
+     */
+    @Override
+    public void onViewRecycled(Presenter presenter) {
+        presenter.onRecycled();
+    }
+
+    /**
+     * Asks the presenter to clear the transient state of its view, so that it can be recycled rather than discarded.
+     */
+    @Override
+    public boolean onFailedToRecycleView(Presenter presenter) {
+        return presenter.onFailedToRecycle();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        if (mSharedPool != null) {
+            recyclerView.setRecycledViewPool(mSharedPool);
+        }
+        recyclerView.addOnScrollListener(mScrollListener);
+        mPresenterWarmer.attach(recyclerView);
+        mImpressionTracker.attach(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(mScrollListener);
+        mPresenterWarmer.detach(recyclerView);
+        mImpressionTracker.detach(recyclerView);
+        mBindPreparer.release();
+        List<Disposable> bindings = new ArrayList<>(mBindings.values());
+        mBindings.clear();
+        for (Disposable binding : bindings) {
+            binding.dispose();
+        }
     }
 
     /**
@@ -104,46 +404,210 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @Override
     public int getItemCount() {
-        int count = 0;
-        for (Section section : mSections.values()) {
-            count += section.totalSize();
-        }
-        return count;
+        return mSections.itemCount();
     }
 
     /**
-     * The view type of a model is determined by its position in the registrar.
+     * The view type of a model is determined by the position in the registrar of the presenter registered for the
+     * model's class, or for its nearest superclass or interface. The models of a {@link TypedSection} are not looked up,
+     * since their class is that of the section.
      */
     @Override
     public int getItemViewType(int position) {
-        Object model = getModel(position);
-        int i = 0;
-        for (Class<?> modelClass : mRegistrar.keySet()) {
-            if (modelClass == model.getClass()) {
-                return i;
+        Class<?> modelClass;
+        int ordinal = mSections.ordinalAt(position);
+        Section section = ordinal < 0 ? null : mSections.slotAt(ordinal).section;
+        if (section instanceof TypedSection
+                && (!section.hasHeader() || position != mSections.startOf(ordinal))) {
+            modelClass = ((TypedSection<?>) section).getModelClass();
+        } else {
+            modelClass = getModel(position).getClass();
+        }
+        int viewType = mRegistrar.viewTypeOf(modelClass);
+        if (viewType == Registrar.UNREGISTERED) {
+            throw new IllegalStateException(modelClass + " model has not been registered");
+        }
+        return viewType;
+    }
+
+    /**
+     * Enables stable ids, so that RecyclerView keeps views bound to unchanged models across full refreshes. The id of
+     * a model is determined by its key, which comes from the {@link KeyExtractor} set for its model class, from
+     * {@link Keyed#getKey()}, or else is the model itself. Keys should be unique among the models of a view type in the
+     * adapter. Where several positions hold equal keys, the position which got the id of the key first keeps it and
+     * the others are identified by their position, as are the positions of a {@link PagedSection} which are still
+     * loading.
+     *
+     * @param hasStableIds {@code true} if the adapter should assign stable ids.
+     * @throws IllegalStateException If the adapter has already been set on a RecyclerView.
+     */
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        // RecyclerView refuses the change while any observer is registered, including the adapter's own.
+        unregisterAdapterDataObserver(mIndexInvalidator);
+        try {
+            super.setHasStableIds(hasStableIds);
+        } finally {
+            registerAdapterDataObserver(mIndexInvalidator);
+        }
+    }
+
+    /**
+     * Get the stable id of the model at a position.
+     *
+     * @param position The adapter position.
+     * @return The stable id or {@link RecyclerView#NO_ID} if stable ids are disabled.
+     */
+    @Override
+    public long getItemId(int position) {
+        if (!hasStableIds()) {
+            return RecyclerView.NO_ID;
+        }
+        int itemCount = getItemCount();
+        if (mStableIds.shouldPrune(itemCount)) {
+            int[] viewTypes = new int[itemCount];
+            Object[] models = new Object[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                models[i] = peek(i);
+                viewTypes[i] = mRegistrar.viewTypeOf(models[i].getClass());
             }
-            i++;
+            mStableIds.retain(viewTypes, models);
         }
-        throw new IllegalStateException(model.getClass() + " model has not been registered");
+        return mStableIds.idOf(getItemViewType(position), getModel(position), position);
+    }
+
+    /**
+     * Sets the metrics which measure creating and binding presenters. Nothing is measured without metrics.
+     *
+     * @param metrics The metrics, or null to stop measuring.
+     */
+    public void setMetrics(@Nullable AdapterMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Sets the {@link KeyExtractor} which determines the stable ids of the models of a registered model class.
+     *
+     * @param modelClass   The model class which has been registered.
+     * @param keyExtractor The key extractor.
+     * @param <T>          The model type.
+     * @throws IllegalStateException If no presenter has been registered for the model class.
+     */
+    public <T> void setKeyExtractor(@NonNull Class<T> modelClass, @NonNull KeyExtractor<? super T> keyExtractor) {
+        int viewType = mRegistrar.viewTypeOf(modelClass);
+        if (viewType == Registrar.UNREGISTERED) {
+            throw new IllegalStateException(modelClass + " model has not been registered");
+        }
+        mStableIds.setKeyExtractor(viewType, keyExtractor);
     }
 
     /**
      * Registers a presenter for a model. This tells the adapter that a given model could
-     * be represented as a view using this presenter class.
+     * be represented as a view using this presenter class. The presenter is also used for subclasses and
+     * implementations of the model unless they have a presenter of their own.
      *
      * @param presenterClass The presenter class to register.
+     * @throws IllegalArgumentException If the presenter does not define a {@code Presenter(ViewGroup parent)}
+     *                                  constructor or its model class cannot be determined.
      */
     public void register(Class<? extends Presenter> presenterClass) {
-        Class modelClass =
-                (Class) ((ParameterizedType) presenterClass.getGenericSuperclass()).getActualTypeArguments()[0];
-        mRegistrar.put(modelClass, presenterClass);
+        ConstructorPresenterFactory factory = new ConstructorPresenterFactory(presenterClass);
+        mRegistrar.register(factory.getModelClass(), factory);
+    }
+
+    /**
+     * Registers a presenter factory for a model. This tells the adapter that a given model could be represented as a
+     * view using the presenters created by the factory. Unlike {@link #register(Class)}, no reflection is involved.
+     *
+     * @param modelClass The model class.
+     * @param factory    The factory which creates presenters for the model.
+     * @param <T>        The model type.
+     * @throws IllegalStateException If the adapter is in shared pool mode and another instance of the factory's class
+     *                               is registered for another model class.
+     */
+    public <T> void register(@NonNull Class<T> modelClass, @NonNull PresenterFactory<? super T> factory) {
+        mRegistrar.register(modelClass, factory);
+    }
+
+    /**
+     * Registers a presenter for a model like {@link #register(Class)}, and creates a number of presenters ahead of
+     * time. While the adapter is attached to a RecyclerView, the presenters are created one at a time whenever the
+     * main thread is idle and are put in the RecyclerView's pool, until it holds the warm count. The capacity of the pool
+     * for the view type is raised when it cannot hold them, and never lowered.
+     *
+     * @param presenterClass The presenter class to register.
+     * @param warmCount      The number of presenters to create ahead of time.
+     * @throws IllegalArgumentException If the warm count is negative, or the presenter does not define a
+     *                                  {@code Presenter(ViewGroup parent)} constructor or its model class cannot be
+     *                                  determined.
+     */
+    public void register(Class<? extends Presenter> presenterClass, int warmCount) {
+        checkWarmCount(warmCount);
+        ConstructorPresenterFactory factory = new ConstructorPresenterFactory(presenterClass);
+        mPresenterWarmer.setWarmCount(mRegistrar.register(factory.getModelClass(), factory), warmCount);
+    }
+
+    /**
+     * Registers a presenter factory for a model like {@link #register(Class, PresenterFactory)}, and creates a number
+     * of presenters ahead of time like {@link #register(Class, int)}.
+     *
+     * @param modelClass The model class.
+     * @param factory    The factory which creates presenters for the model.
+     * @param warmCount  The number of presenters to create ahead of time.
+     * @param <T>        The model type.
+     * @throws IllegalArgumentException If the warm count is negative.
+     * @throws IllegalStateException    If the adapter is in shared pool mode and another instance of the factory's
+     *                                  class is registered for another model class.
+     */
+    public <T> void register(@NonNull Class<T> modelClass, @NonNull PresenterFactory<? super T> factory,
+                             int warmCount) {
+        checkWarmCount(warmCount);
+        mPresenterWarmer.setWarmCount(mRegistrar.register(modelClass, factory), warmCount);
+    }
+
+    /**
+     * Puts the adapter in shared pool mode, so that it can share a pool of presenters with other adapters, such as
+     * those of carousels nested in a list. The view types of the adapter are taken from the
+     * {@link ViewTypeRegistry}, which gives a presenter class the same view type in every adapter, and the pool is set
+     * on every RecyclerView the adapter is attached to. A {@link PresenterFactory} shares the view type of its class
+     * with every other instance of that class, so those instances must create interchangeable presenters, and an
+     * adapter refuses to register two instances of one factory class for different model classes. Must be called
+     * before any presenter is registered.
+     *
+     * @param pool The shared pool.
+     * @throws IllegalStateException If a presenter has already been registered.
+     */
+    public void setSharedPool(@NonNull RecyclerView.RecycledViewPool pool) {
+        if (mSharedPool == null && !mRegistrar.isEmpty()) {
+            throw new IllegalStateException("setSharedPool() must be called before any presenter is registered");
+        }
+        mSharedPool = pool;
+        mRegistrar.setViewTypeRegistry(ViewTypeRegistry.getInstance());
+    }
+
+    /**
+     * @return The pool which is shared with other adapters, or null if the adapter is not in shared pool mode.
+     */
+    @Nullable
+    public RecyclerView.RecycledViewPool getSharedPool() {
+        return mSharedPool;
+    }
+
+    /**
+     * Sets how many positions on either side of the visible positions are prepared ahead of binding for
+     * {@link PreparingPresenter preparing presenters}. Defaults to 10.
+     *
+     * @param distance The distance in positions, or 0 to only prepare models when they are bound.
+     */
+    public void setPrepareDistance(int distance) {
+        mBindPreparer.setDistance(distance);
     }
 
     /**
      * Adds a new model to the adapter. The model will be wrapped in a new {@link Section} before being added.
      *
      * @param model The model to add.
-     * @return An AddResult containing a tag which can be used to modify the section later.
+     * @return An AddResult containing a handle which can be used to modify the section later.
      */
     @NonNull
     public final AddResult add(Object model) {
@@ -171,16 +635,23 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      * Adds a new {@link Section} to the adapter.
      *
      * @param section The section to add.
-     * @return An AddResult containing a tag which can be used to modify the section later.
+     * @return An AddResult containing a handle which can be used to modify the section later.
      */
     @NonNull
     public AddResult add(Section section) {
-        String tag = UUID.randomUUID().toString();
-        return add(section, tag);
+        verify(section);
+
+        SectionIndex.Slot slot = mSections.add(null, section);
+        mPendingUpdates.onInserted(mSections.startOf(mSections.ordinalOf(slot)), section.totalSize());
+        dispatchPendingUpdates();
+
+        return new AddResult(slot.handle, null, false);
     }
 
     /**
-     * Adds a {@link Section} to the adapter, replacing any existing section that has the same tag.
+     * Adds a {@link Section} to the adapter, replacing any existing section that has the same tag. When a
+     * {@link SectionSnapshot} replaces a snapshot it shares storage with, only the items between the shared ranges at
+     * either end are verified and notified.
      *
      * @param section The section to add.
      * @param tag The unique tag for the section.
@@ -188,26 +659,327 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @NonNull
     public AddResult add(Section section, String tag) {
+        SectionIndex.Slot slot = mSections.get(tag);
+        int sharedStart = 0;
+        int sharedEnd = 0;
+        if (slot != null && section instanceof SectionSnapshot && slot.section instanceof SectionSnapshot) {
+            // Items which the snapshots still share at either end have not changed.
+            SectionSnapshot snapshot = (SectionSnapshot) section;
+            SectionSnapshot existing = (SectionSnapshot) slot.section;
+            sharedStart = snapshot.sharedPrefix(existing);
+            sharedEnd = snapshot.sharedSuffix(existing,
+                    Math.min(section.totalSize(), existing.totalSize()) - sharedStart);
+        }
+        verify(section, sharedStart, section.totalSize() - sharedEnd);
+
+        Section replaced = null;
+        if (slot == null) {
+            slot = mSections.add(tag, section);
+        } else {
+            replaced = mSections.replace(slot, section);
+        }
+        int sectionStart = mSections.startOf(mSections.ordinalOf(slot));
+        if (replaced == null) {
+            mPendingUpdates.onInserted(sectionStart, section.totalSize());
+        } else {
+            int changeStart = sectionStart + sharedStart;
+            int oldSize = replaced.totalSize() - sharedStart - sharedEnd;
+            int newSize = section.totalSize() - sharedStart - sharedEnd;
+            int common = Math.min(oldSize, newSize);
+            mPendingUpdates.onChanged(changeStart, common, null);
+            if (newSize > oldSize) {
+                mPendingUpdates.onInserted(changeStart + common, newSize - oldSize);
+            } else {
+                mPendingUpdates.onRemoved(changeStart + common, oldSize - newSize);
+            }
+        }
+        dispatchPendingUpdates();
+
+        return new AddResult(slot.handle, tag, replaced != null);
+    }
+
+    /**
+     * Adds a {@link Section} to the adapter, replacing any existing section that has the same tag. When a section is
+     * replaced, the new section is diffed against the existing one on a background thread and only the items which
+     * were inserted, removed, moved or changed are notified. The adapter keeps presenting the existing section until
+     * the diff is done. If the section is replaced or removed again in the meantime, the diff is discarded. If the
+     * diff callback throws, the section is replaced and notified as a whole instead.
+     *
+     * @param section      The section to add.
+     * @param tag          The unique tag for the section.
+     * @param diffCallback Compares the models of the existing section with the models of the new one.
+     * @return An AddResult which contains whether the add operation replaces a section.
+     */
+    @NonNull
+    public AddResult add(Section section, String tag, DiffCallback diffCallback) {
+        SectionIndex.Slot slot = mSections.get(tag);
+        if (slot == null) {
+            return add(section, tag);
+        }
         verify(section);
+        slot.supersede();
+        replaceInBackground(slot, section, diffCallback);
+        return new AddResult(slot.handle, tag, true);
+    }
 
-        AddResult addResult;
-        addResult = new AddResult(tag, mSections.get(tag) != null);
+    /**
+     * Inserts a {@link Section} directly before a tagged section.
+     *
+     * @param tag     The tag of the section which the new section is inserted before.
+     * @param section The section to add.
+     * @param newTag  The unique tag for the new section, or null.
+     * @return An AddResult containing a handle which can be used to modify the section later.
+     * @throws IllegalArgumentException If no section has the tag, or if a section already has the new tag.
+     */
+    @NonNull
+    public AddResult addBefore(@NonNull String tag, Section section, @Nullable String newTag) {
+        return insert(requireSlot(tag), 0, section, newTag);
+    }
 
-        mSections.put(tag, section);
-        notifyDataSetChanged();
+    /**
+     * Inserts a {@link Section} directly after a tagged section.
+     *
+     * @param tag     The tag of the section which the new section is inserted after.
+     * @param section The section to add.
+     * @param newTag  The unique tag for the new section, or null.
+     * @return An AddResult containing a handle which can be used to modify the section later.
+     * @throws IllegalArgumentException If no section has the tag, or if a section already has the new tag.
+     */
+    @NonNull
+    public AddResult addAfter(@NonNull String tag, Section section, @Nullable String newTag) {
+        return insert(requireSlot(tag), 1, section, newTag);
+    }
+
+    /**
+     * Get the index of a tagged section among all sections.
+     *
+     * @param tag The tag for the section.
+     * @return The index, or -1 if no section has the tag.
+     */
+    public int indexOf(String tag) {
+        SectionIndex.Slot slot = mSections.get(tag);
+        return slot != null ? mSections.ordinalOf(slot) : -1;
+    }
+
+    /**
+     * Moves a tagged section, with all of its items, so that it becomes the section at an index. The items are
+     * notified as moved rather than removed and inserted again, so they are not rebound. Since a RecyclerView moves one
+     * item at a time, the items of whichever is smaller are moved: the section, or the sections it moves past.
+     *
+     * @param tag     The tag of the section.
+     * @param toIndex The index of the section among all sections after the move.
+     * @throws IllegalArgumentException  If no section has the tag.
+     * @throws IndexOutOfBoundsException If the index is out of bounds.
+     */
+    public void moveSection(@NonNull String tag, int toIndex) {
+        SectionIndex.Slot slot = requireSlot(tag);
+        if (toIndex < 0 || toIndex >= mSections.size()) {
+            throw new IndexOutOfBoundsException("Index: " + toIndex + ", Size: " + mSections.size());
+        }
+        int fromStart = mSections.startOf(mSections.ordinalOf(slot));
+        mSections.move(slot, toIndex);
+        int toStart = mSections.startOf(toIndex);
+        int count = slot.section.totalSize();
+        if (toStart > fromStart) {
+            int passed = toStart - fromStart;
+            if (count <= passed) {
+                // Move the items of the section down, starting with the last one.
+                for (int i = count - 1; i >= 0; i--) {
+                    mPendingUpdates.onMoved(fromStart + i, toStart + i);
+                }
+            } else {
+                // Move the items which the section passes up in front of it.
+                for (int i = 0; i < passed; i++) {
+                    mPendingUpdates.onMoved(fromStart + count + i, fromStart + i);
+                }
+            }
+        } else if (toStart < fromStart) {
+            int passed = fromStart - toStart;
+            if (count <= passed) {
+                for (int i = 0; i < count; i++) {
+                    mPendingUpdates.onMoved(fromStart + i, toStart + i);
+                }
+            } else {
+                for (int i = passed - 1; i >= 0; i--) {
+                    mPendingUpdates.onMoved(toStart + i, toStart + count + i);
+                }
+            }
+        }
+        dispatchPendingUpdates();
+    }
+
+    /**
+     * Binds a tagged section to a stream of model lists, comparing the models with {@link DiffCallback#EQUALS}.
+     *
+     * @param tag    The unique tag for the section.
+     * @param models The stream of models.
+     * @return The subscription, which can be disposed to stop updating the section.
+     * @see #bind(String, Flowable, DiffCallback)
+     */
+    @NonNull
+    public Disposable bind(@NonNull String tag, @NonNull Flowable<? extends List<?>> models) {
+        return bind(tag, models, DiffCallback.EQUALS);
+    }
 
-        return addResult;
+    /**
+     * Binds a tagged section to a stream of model lists. The first list replaces any section which has the tag. Each
+     * list after that is diffed against the one before it on the computation scheduler, and only the items which were
+     * inserted, removed, moved or changed are notified on the main thread.
+     * <p>
+     * Lists are diffed one at a time. Lists which arrive while a diff is in progress or waiting for the main thread are
+     * dropped, except for the latest one, so a burst of lists results in a single update and a fast stream never
+     * queues up. If the section is changed, replaced or removed by other means in the meantime, the next list replaces
+     * it without a diff.
+     * <p>
+     * Binding the tag again disposes the previous binding. Every binding is disposed when the adapter is detached from
+     * its RecyclerView. An error of the stream, or a list with a model which has not been registered, ends the binding
+     * and is logged, and the section keeps the last list which was bound. Handle errors upstream to recover from them.
+     *
+     * @param tag          The unique tag for the section.
+     * @param models       The stream of models. The lists must not be modified after they are emitted.
+     * @param diffCallback Compares the models of consecutive lists.
+     * @return The subscription, which can be disposed on the main thread to stop updating the section.
+     */
+    @NonNull
+    public Disposable bind(@NonNull final String tag, @NonNull Flowable<? extends List<?>> models,
+                           @NonNull final DiffCallback diffCallback) {
+        Disposable previous = mBindings.remove(tag);
+        if (previous != null) {
+            previous.dispose();
+        }
+        final Binding binding = new Binding(tag);
+        models.onBackpressureLatest()
+                .observeOn(Schedulers.computation(), false, 1)
+                .map(new Function<List<?>, BoundModels>() {
+
+                    @Nullable
+                    private Object[] mPrevious;
+
+                    @Override
+                    public BoundModels apply(List<?> list) throws Exception {
+                        Object[] models = list.toArray();
+                        SectionDiff diff = mPrevious == null ? null
+                                : SectionDiff.calculate(mPrevious, models, diffCallback);
+                        mPrevious = models;
+                        return new BoundModels(models, diff);
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread(), false, 1)
+                .doOnCancel(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        unbind(binding);
+                    }
+                })
+                .subscribeWith(binding);
+        mBindings.put(tag, binding);
+        return binding;
+    }
+
+    /**
+     * Notifies that a model in the adapter has changed, so that every position holding it is presented again. Models
+     * are matched by identity. With a payload, presenters can update only the affected part of the view in
+     * {@link Presenter#presentPartial(Object, List, UniversalRelay)}, and payloads notified before the view is bound
+     * again are delivered together.
+     * <p>
+     * Finding the model visits every position of the adapter, so each call costs time in proportion to the item count.
+     * When the section and position of the model are known, use
+     * {@link #notifyModelChanged(SectionHandle, int, Object)} instead.
+     *
+     * @param model   The model which changed.
+     * @param payload Describes the change, or null to present the model in full.
+     * @return {@code true} if the model was found in the adapter.
+     */
+    public boolean notifyModelChanged(@NonNull Object model, @Nullable Object payload) {
+        boolean found = false;
+        int sectionStart = 0;
+        for (int ordinal = 0; ordinal < mSections.size(); ordinal++) {
+            Section section = mSections.slotAt(ordinal).section;
+            int size = section.totalSize();
+            for (int position = 0; position < size; position++) {
+                if (section.peekModel(position) == model) {
+                    mPendingUpdates.onChanged(sectionStart + position, 1, payload);
+                    found = true;
+                }
+            }
+            sectionStart += size;
+        }
+        dispatchPendingUpdates();
+        return found;
+    }
+
+    /**
+     * Notifies that the model at a position of a section has changed, so that it is presented again, without
+     * searching the adapter for it. See {@link #notifyModelChanged(Object, Object)} for how the payload is delivered.
+     *
+     * @param handle   The handle for the section.
+     * @param position The position of the model in the section, counting the header.
+     * @param payload  Describes the change, or null to present the model in full.
+     * @return {@code true} if the section is in the adapter and has the position.
+     */
+    public boolean notifyModelChanged(@NonNull SectionHandle handle, int position, @Nullable Object payload) {
+        SectionIndex.Slot slot = mSections.get(handle);
+        if (slot == null || position < 0 || position >= slot.section.totalSize()) {
+            return false;
+        }
+        mPendingUpdates.onChanged(mSections.startOf(mSections.ordinalOf(slot)) + position, 1, payload);
+        dispatchPendingUpdates();
+        return true;
     }
 
     /**
      * Clears all sections in the adapter.
-     * @param shouldNotify {@code true} if the adapter should call {@code notifyItemRangeRemoved} after clearing.
+     * @param shouldNotify {@code true} if the adapter should call {@code notifyItemRangeRemoved} after clearing. If
+     *                     {@code false}, updates of the current batch which have not been notified yet are discarded
+     *                     as well, and the caller is responsible for notifying the adapter.
      */
     public void clear(boolean shouldNotify) {
         int count = getItemCount();
         mSections.clear();
         if (shouldNotify) {
-            notifyItemRangeRemoved(0, count);
+            mPendingUpdates.onRemoved(0, count);
+            dispatchPendingUpdates();
+        } else {
+            mPendingUpdates.clear();
+        }
+    }
+
+    /**
+     * Begins a batch. Notifications for the operations which follow are held back until the batch is committed, and
+     * are then merged into as few ranged notifications as possible. Batches can be nested, in which case the
+     * notifications are dispatched when the outermost batch is committed.
+     * <p>
+     * Notifications which are sent to the adapter directly, rather than by its own operations, are dispatched
+     * immediately.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * Commits a batch which was begun with {@link #beginBatch()}.
+     *
+     * @throws IllegalStateException If no batch has been begun.
+     */
+    public void commit() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("commit() called without a matching beginBatch()");
+        }
+        mBatchDepth--;
+        dispatchPendingUpdates();
+    }
+
+    /**
+     * Runs the operations of a {@link Runnable} in a batch. The batch is committed even if the runnable throws.
+     *
+     * @param operations The operations to run.
+     */
+    public void batch(@NonNull Runnable operations) {
+        beginBatch();
+        try {
+            operations.run();
+        } finally {
+            commit();
         }
     }
 
@@ -219,7 +991,20 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @Nullable
     public Section get(String tag) {
-        return mSections.get(tag);
+        SectionIndex.Slot slot = mSections.get(tag);
+        return slot != null ? slot.section : null;
+    }
+
+    /**
+     * Get a section by its handle.
+     *
+     * @param handle The handle for the section.
+     * @return The section or null if it has been removed.
+     */
+    @Nullable
+    public Section get(@NonNull SectionHandle handle) {
+        SectionIndex.Slot slot = mSections.get(handle);
+        return slot != null ? slot.section : null;
     }
 
     /**
@@ -231,16 +1016,27 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @Nullable
     public Object get(int adapterPosition) {
-        int sectionEnd = 0;
-        for (Section section : mSections.values()) {
-            int sectionStart = sectionEnd;
-            sectionEnd += section.totalSize();
-            if (adapterPosition < sectionEnd) {
-                int sectionPosition = adapterPosition - sectionStart;
-                return section.getModel(sectionPosition);
-            }
+        int ordinal = mSections.ordinalAt(adapterPosition);
+        if (ordinal < 0) {
+            return null;
         }
-        return null;
+        int sectionPosition = adapterPosition - mSections.startOf(ordinal);
+        return mSections.slotAt(ordinal).section.getModel(sectionPosition);
+    }
+
+    /**
+     * Get the model for a particular adapter position without side effects, such as a paged section loading it.
+     *
+     * @param adapterPosition The adapter position.
+     * @return The model or null if the position is out of bounds.
+     */
+    @Nullable
+    Object peek(int adapterPosition) {
+        int ordinal = mSections.ordinalAt(adapterPosition);
+        if (ordinal < 0) {
+            return null;
+        }
+        return mSections.slotAt(ordinal).section.peekModel(adapterPosition - mSections.startOf(ordinal));
     }
 
     /**
@@ -251,16 +1047,20 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @Nullable
     public Section remove(String tag) {
-        int count = 0;
-        for (String sectionTag : mSections.keySet()) {
-            if (sectionTag.equals(tag)) {
-                Section section = mSections.remove(sectionTag);
-                notifyItemRangeRemoved(count, section.totalSize());
-                return section;
-            }
-            count += mSections.get(sectionTag).totalSize();
-        }
-        return null;
+        SectionIndex.Slot slot = mSections.get(tag);
+        return slot != null ? remove(slot) : null;
+    }
+
+    /**
+     * Removes a section from the adapter by handle.
+     *
+     * @param handle The handle for the section.
+     * @return The removed section or {@code null} if the section had already been removed.
+     */
+    @Nullable
+    public Section remove(@NonNull SectionHandle handle) {
+        SectionIndex.Slot slot = mSections.get(handle);
+        return slot != null ? remove(slot) : null;
     }
 
     /**
@@ -272,32 +1072,136 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      */
     @Nullable
     public Object remove(int adapterPosition) {
-        int sectionEnd = 0;
-        for (Section section : mSections.values()) {
-            int sectionStart = sectionEnd;
-            sectionEnd += section.totalSize();
-            if (adapterPosition < sectionEnd) {
-                int sectionPosition = adapterPosition - sectionStart;
-                return section.remove(sectionPosition);
-            }
+        int ordinal = mSections.ordinalAt(adapterPosition);
+        if (ordinal < 0) {
+            return null;
         }
-        return null;
+        int sectionPosition = adapterPosition - mSections.startOf(ordinal);
+        Object model = mSections.slotAt(ordinal).section.remove(sectionPosition);
+        mSections.invalidateFrom(ordinal);
+        mPendingUpdates.onRemoved(adapterPosition, 1);
+        dispatchPendingUpdates();
+        return model;
     }
 
+    /**
+     * Get an observable of the events which presenters emit through their relay for a model class and an action.
+     * Events of subclasses of the model class are not included.
+     *
+     * @param modelClass The model class.
+     * @param action     The action.
+     * @param <T>        The model type.
+     * @return An observable of the models which were emitted with the action.
+     */
     @NonNull
-    public <T> Observable<T> getObservable(final Class<T> modelClass, final String action) {
-        return mUniversalRelay.filter(new Predicate<Pair<Object, String>>() {
-            @Override
-            public boolean test(Pair<Object, String> emission) throws Exception {
-                return emission.first.getClass().equals(modelClass)
-                        && emission.second.equals(action);
-            }
-        }).map(new Function<Pair<Object, String>, T>() {
-            @Override
-            public T apply(Pair<Object, String> objectStringPair) throws Exception {
-                return (T) objectStringPair.first;
+    public <T> Observable<T> getObservable(@NonNull Class<T> modelClass, @NonNull String action) {
+        return mUniversalRelay.getObservable(modelClass, action);
+    }
+
+    /**
+     * Get an observable of the batches of events which presenters emit through their relay for a model class and an
+     * action. Events of subclasses of the model class are not included.
+     *
+     * @param modelClass The model class.
+     * @param action     The action.
+     * @param <T>        The model type.
+     * @return An observable of unmodifiable lists of the models which were emitted with the action.
+     * @see #setDeliveryPolicy(String, DeliveryPolicy)
+     */
+    @NonNull
+    public <T> Observable<List<T>> getBatchObservable(@NonNull Class<T> modelClass, @NonNull String action) {
+        return mUniversalRelay.getBatchObservable(modelClass, action);
+    }
+
+    /**
+     * Sets when the events which presenters emit with an action are delivered, for example batched once per frame so
+     * that observers of frequent events do not run in the middle of a bind.
+     *
+     * @param action The action.
+     * @param policy The policy, or {@link DeliveryPolicy#IMMEDIATE} to deliver the events as they are emitted.
+     */
+    public void setDeliveryPolicy(@NonNull String action, @NonNull DeliveryPolicy policy) {
+        mUniversalRelay.setDeliveryPolicy(action, policy);
+    }
+
+    /**
+     * @return The number of events which presenters emitted and which were dropped because their buffer was full.
+     */
+    public long getDroppedEventCount() {
+        return mUniversalRelay.getDroppedEventCount();
+    }
+
+    /**
+     * Releases memory in response to {@code onTrimMemory(level)} of an Activity or the Application. Models which were
+     * prepared ahead of binding, and the presenters kept to prepare them, are dropped from a
+     * {@code TRIM_MEMORY_RUNNING_MODERATE} level, the pool keeps a single presenter of each view type of this adapter
+     * from {@code TRIM_MEMORY_RUNNING_LOW}, and none from {@code TRIM_MEMORY_UI_HIDDEN}. Presenters which have not been
+     * warmed yet are not created any more. Pools regrow to their usual size as the RecyclerView scrolls.
+     *
+     * @param level The level passed to {@code onTrimMemory}, see {@link ComponentCallbacks2}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            mBindPreparer.release();
+        }
+        int keep;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            keep = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keep = 1;
+        } else {
+            return;
+        }
+        int viewTypeCount = mRegistrar.viewTypeCount();
+        for (int viewType = 0; viewType < viewTypeCount; viewType++) {
+            // In shared pool mode the other view types belong to other adapters.
+            if (mRegistrar.factoryOf(viewType) != null) {
+                mPresenterWarmer.trim(viewType, keep);
             }
-        });
+        }
+    }
+
+    /**
+     * Starts tracking impressions in the RecyclerView the adapter is attached to. A model makes an impression once
+     * at least a fraction of its view has been visible for a dwell time without interruption, and the impression is
+     * emitted once per key (see {@link #setKeyExtractor(Class, KeyExtractor)}) with the action {@link #IMPRESSION}.
+     * Observe the impressions with {@link #getObservable(Class, String)}, rather than emitting them from
+     * {@link Presenter#present}, which runs again on every rebind.
+     *
+     * @param minVisibleFraction The fraction of the area of a view which must be visible, greater than 0 and at most 1.
+     * @param minDwellMillis     The time for which it must be visible, in milliseconds.
+     * @throws IllegalArgumentException If the fraction or the dwell time are out of range.
+     */
+    public void setImpressionTracking(float minVisibleFraction, long minDwellMillis) {
+        if (!(minVisibleFraction > 0 && minVisibleFraction <= 1)) {
+            throw new IllegalArgumentException("The visible fraction must be in (0, 1]: " + minVisibleFraction);
+        }
+        if (minDwellMillis < 0) {
+            throw new IllegalArgumentException("The dwell time must not be negative: " + minDwellMillis);
+        }
+        mImpressionTracker.enable(minVisibleFraction, minDwellMillis);
+    }
+
+    /**
+     * Stops tracking impressions. Keys which have made an impression do not make another when tracking is started
+     * again, unless {@link #clearImpressions()} is called.
+     */
+    public void stopImpressionTracking() {
+        mImpressionTracker.disable();
+    }
+
+    /**
+     * Forgets which keys have made an impression, for example when a new session starts, so that every model can make
+     * an impression again.
+     */
+    public void clearImpressions() {
+        mImpressionTracker.clearImpressions();
+    }
+
+    private static void checkWarmCount(int warmCount) {
+        if (warmCount < 0) {
+            throw new IllegalArgumentException("The warm count must not be negative: " + warmCount);
+        }
     }
 
     /**
@@ -307,11 +1211,40 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      * @throws IllegalStateException If a model in the section has not been registered.
      */
     private void verify(Section section) throws IllegalStateException {
-        for (Object object : section.getModels()) {
-            if (mRegistrar.get(object.getClass()) == null) {
-                throw new IllegalStateException(String.format("%s has not been registered.",
-                        object.getClass().getSimpleName()));
+        verify(section, 0, section.totalSize());
+    }
+
+    /**
+     * Verifies the models in a range of positions of a section. The header is not verified. The models of a
+     * {@link TypedSection} are verified by their class alone.
+     *
+     * @param section The section.
+     * @param start   The first position, including the header.
+     * @param end     The position after the last one.
+     * @throws IllegalStateException If a model has not been registered.
+     */
+    private void verify(Section section, int start, int end) throws IllegalStateException {
+        int first = Math.max(start, section.hasHeader() ? 1 : 0);
+        if (section instanceof TypedSection) {
+            if (first < end) {
+                verify(((TypedSection<?>) section).getModelClass());
             }
+            return;
+        }
+        for (int position = first; position < end; position++) {
+            verify(section.peekModel(position).getClass());
+        }
+    }
+
+    /**
+     * Verifies that a model class has been registered.
+     *
+     * @param modelClass The model class.
+     * @throws IllegalStateException If the model class has not been registered.
+     */
+    private void verify(Class<?> modelClass) throws IllegalStateException {
+        if (mRegistrar.viewTypeOf(modelClass) == Registrar.UNREGISTERED) {
+            throw new IllegalStateException(String.format("%s has not been registered.", modelClass.getSimpleName()));
         }
     }
 
@@ -322,15 +1255,223 @@ public class UniversalAdapter extends RecyclerView.Adapter<Presenter> {
      * @return The model.
      */
     private Object getModel(int adapterPosition) {
-        int sectionEnd = 0;
-        for (Section section : mSections.values()) {
-            int sectionStart = sectionEnd;
-            sectionEnd += section.totalSize();
-            if (adapterPosition < sectionEnd) {
-                int itemPosition = adapterPosition - sectionStart;
-                return section.getModel(itemPosition);
+        int ordinal = mSections.ordinalAt(adapterPosition);
+        if (ordinal < 0) {
+            throw new IllegalStateException("Could not find model at the given adapter position: " + adapterPosition);
+        }
+        int itemPosition = adapterPosition - mSections.startOf(ordinal);
+        return mSections.slotAt(ordinal).section.getModel(itemPosition);
+    }
+
+    /**
+     * Diffs the section of a slot against a new section on a background thread, then swaps the new section in and
+     * dispatches the updates on the main thread. The result is discarded if the slot has been superseded since, and
+     * the diff is started over if either section has changed since. If the diff fails, the section is replaced without
+     * one.
+     *
+     * @param slot         The slot.
+     * @param section      The new section.
+     * @param diffCallback Compares the models.
+     */
+    private void replaceInBackground(final SectionIndex.Slot slot, final Section section,
+                                     final DiffCallback diffCallback) {
+        final int generation = slot.generation;
+        final Section oldSection = slot.section;
+        final int oldModCount = oldSection.getModCount();
+        final int newModCount = section.getModCount();
+        final Object[] oldModels = oldSection.toArray();
+        final Object[] newModels = section.toArray();
+
+        slot.pendingReplacement = Single.fromCallable(new Callable<SectionDiff>() {
+            @Override
+            public SectionDiff call() throws Exception {
+                return SectionDiff.calculate(oldModels, newModels, diffCallback);
             }
+        }).subscribeOn(Schedulers.computation()).observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<SectionDiff>() {
+                    @Override
+                    public void accept(SectionDiff diff) throws Exception {
+                        if (slot.generation != generation) {
+                            return;
+                        }
+                        slot.pendingReplacement = null;
+                        if (oldSection.getModCount() != oldModCount || section.getModCount() != newModCount) {
+                            replaceInBackground(slot, section, diffCallback);
+                            return;
+                        }
+                        mSections.replace(slot, section);
+                        diff.dispatch(mSections.startOf(mSections.ordinalOf(slot)), mPendingUpdates);
+                        dispatchPendingUpdates();
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        if (slot.generation != generation) {
+                            return;
+                        }
+                        slot.pendingReplacement = null;
+                        // Without a diff the section is replaced in full.
+                        add(section, slot.tag);
+                    }
+                });
+    }
+
+    /**
+     * Forgets a binding which has ended, unless its tag has been bound again since.
+     *
+     * @param binding The binding.
+     */
+    private void unbind(@NonNull Binding binding) {
+        if (mBindings.get(binding.mTag) == binding) {
+            mBindings.remove(binding.mTag);
+        }
+    }
+
+    /**
+     * Get the slot of a tag which must be in use.
+     *
+     * @param tag The tag.
+     * @return The slot.
+     * @throws IllegalArgumentException If no section has the tag.
+     */
+    @NonNull
+    private SectionIndex.Slot requireSlot(String tag) {
+        SectionIndex.Slot slot = mSections.get(tag);
+        if (slot == null) {
+            throw new IllegalArgumentException("No section is tagged " + tag);
+        }
+        return slot;
+    }
+
+    /**
+     * Inserts a section next to the section of a slot and records the insertion.
+     *
+     * @param anchor  The slot.
+     * @param offset  0 to insert the section before the slot, 1 to insert it after.
+     * @param section The section.
+     * @param tag     The tag for the section, or null.
+     * @return The AddResult.
+     * @throws IllegalArgumentException If a section already has the tag.
+     */
+    private AddResult insert(SectionIndex.Slot anchor, int offset, Section section, @Nullable String tag) {
+        if (tag != null && mSections.get(tag) != null) {
+            throw new IllegalArgumentException("A section is already tagged " + tag);
+        }
+        verify(section);
+
+        SectionIndex.Slot slot = mSections.add(mSections.ordinalOf(anchor) + offset, tag, section);
+        mPendingUpdates.onInserted(mSections.startOf(mSections.ordinalOf(slot)), section.totalSize());
+        dispatchPendingUpdates();
+
+        return new AddResult(slot.handle, tag, false);
+    }
+
+    /**
+     * Removes the section of a slot and records the removal.
+     *
+     * @param slot The slot.
+     * @return The removed section.
+     */
+    private Section remove(SectionIndex.Slot slot) {
+        int sectionStart = mSections.startOf(mSections.ordinalOf(slot));
+        mSections.remove(slot);
+        mPendingUpdates.onRemoved(sectionStart, slot.section.totalSize());
+        dispatchPendingUpdates();
+        return slot.section;
+    }
+
+    /**
+     * Dispatches the pending updates to the adapter's observers unless a batch is in progress. The section index is
+     * expected to be up to date already.
+     */
+    private void dispatchPendingUpdates() {
+        if (mBatchDepth > 0 || mPendingUpdates.isEmpty()) {
+            return;
+        }
+        mDispatching = true;
+        try {
+            mPendingUpdates.dispatch(mUpdateDispatcher);
+        } finally {
+            mDispatching = false;
+        }
+    }
+
+    /**
+     * A Binding replaces a tagged section with each list of models of a stream, dispatching the diff against the list
+     * before it when the section has not been changed by other means in the meantime.
+     */
+    private final class Binding extends DisposableSubscriber<BoundModels> {
+
+        @NonNull
+        final String mTag;
+
+        /**
+         * The section which was bound last, and its modification count at the time.
+         */
+        @Nullable
+        private Section mSection;
+        private int mModCount;
+
+        Binding(@NonNull String tag) {
+            mTag = tag;
+        }
+
+        @Override
+        public void onNext(BoundModels bound) {
+            Section section = new Section();
+            section.setModels(Arrays.asList(bound.models));
+            SectionIndex.Slot slot = mSections.get(mTag);
+            try {
+                if (bound.diff == null || slot == null || slot.section != mSection
+                        || slot.pendingReplacement != null || mSection.getModCount() != mModCount) {
+                    add(section, mTag);
+                } else {
+                    verify(section);
+                    mSections.replace(slot, section);
+                    bound.diff.dispatch(mSections.startOf(mSections.ordinalOf(slot)), mPendingUpdates);
+                    dispatchPendingUpdates();
+                }
+            } catch (RuntimeException e) {
+                // Thrown on the main thread, where it would crash the app, for example by a model not registered.
+                fail(e);
+                return;
+            }
+            mSection = section;
+            mModCount = section.getModCount();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            unbind(this);
+            dispose();
+        }
+
+        private void fail(Throwable throwable) {
+            unbind(this);
+            dispose();
+            Log.e(UniversalAdapter.class.getName(), "The binding of " + mTag + " failed", throwable);
+        }
+    }
+
+    /**
+     * A list of models emitted to a bound section, and its diff against the list before it, or null if it is the
+     * first.
+     */
+    private static final class BoundModels {
+
+        final Object[] models;
+
+        @Nullable
+        final SectionDiff diff;
+
+        BoundModels(Object[] models, @Nullable SectionDiff diff) {
+            this.models = models;
+            this.diff = diff;
         }
-        throw new IllegalStateException("Could not find model at the given adapter position: " + adapterPosition);
     }
 }
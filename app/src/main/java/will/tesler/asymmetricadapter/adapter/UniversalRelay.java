@@ -1,22 +1,254 @@
 package will.tesler.asymmetricadapter.adapter;
 
 import android.support.annotation.NonNull;
-import android.util.Pair;
 
 import com.jakewharton.rxrelay2.PublishRelay;
+import com.jakewharton.rxrelay2.Relay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Observable;
-import io.reactivex.functions.Predicate;
+import io.reactivex.Scheduler;
 
+/**
+ * The UniversalRelay carries events out of {@link Presenter presenters}. An event is a model paired with an action,
+ * and it is delivered to the observers of that exact model class and action.
+ * <p>
+ * Observers are indexed by model class and then by action, so an event is routed straight to the observers which
+ * match it without being tested against every other observer, and without allocating.
+ * <p>
+ * Events are delivered as they are emitted, unless a {@link DeliveryPolicy} has been set for their action, in which
+ * case they are buffered and delivered later as a batch. The batches of a model class and action are delivered one at
+ * a time and in order, even on a scheduler with many threads.
+ */
 public class UniversalRelay {
 
-    private final PublishRelay<Pair<Object, String>> mSubject = PublishRelay.create();
+    /**
+     * Maps model classes to actions to the route which delivers those events.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Route>> mRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * The delivery policies by action. Actions without a policy are delivered immediately.
+     */
+    private final ConcurrentMap<String, DeliveryPolicy> mPolicies = new ConcurrentHashMap<>();
+
+    /**
+     * The number of events which were dropped because their buffer was full.
+     */
+    private final AtomicLong mDroppedEvents = new AtomicLong();
 
+    /**
+     * Emits an event to the observers of the model's class and the action.
+     *
+     * @param object The model.
+     * @param action The action.
+     */
     public void accept(@NonNull Object object, @NonNull String action) {
-        mSubject.accept(Pair.create(object, action));
+        ConcurrentMap<String, Route> routesByAction = mRoutes.get(object.getClass());
+        if (routesByAction == null) {
+            return;
+        }
+        Route route = routesByAction.get(action);
+        if (route == null || !route.hasObservers()) {
+            return;
+        }
+        DeliveryPolicy policy = mPolicies.get(action);
+        if (policy == null || policy.isImmediate()) {
+            route.deliver(object);
+        } else if (!route.buffer(object, policy)) {
+            mDroppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets when the events of an action are delivered. Events which are already buffered are delivered under the
+     * policy they were buffered with.
+     *
+     * @param action The action.
+     * @param policy The policy, or {@link DeliveryPolicy#IMMEDIATE} to deliver the events as they are emitted.
+     */
+    public void setDeliveryPolicy(@NonNull String action, @NonNull DeliveryPolicy policy) {
+        if (policy.isImmediate()) {
+            mPolicies.remove(action);
+        } else {
+            mPolicies.put(action, policy);
+        }
+    }
+
+    /**
+     * @return The number of events which have been dropped because their buffer was full.
+     */
+    public long getDroppedEventCount() {
+        return mDroppedEvents.get();
+    }
+
+    /**
+     * Get an observable of the events for a model class and an action. Events of subclasses of the model class are not
+     * included.
+     *
+     * @param modelClass The model class.
+     * @param action     The action.
+     * @param <T>        The model type.
+     * @return An observable of the models which were emitted with the action.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <T> Observable<T> getObservable(@NonNull Class<T> modelClass, @NonNull String action) {
+        // Only models of exactly this class are ever accepted by the route.
+        return (Observable<T>) routeOf(modelClass, action).mEvents.hide();
     }
 
-    Observable<Pair<Object, String>> filter(@NonNull Predicate<Pair<Object, String>> predicate) {
-        return mSubject.filter(predicate);
+    /**
+     * Get an observable of the batches of events for a model class and an action, in the order they were emitted.
+     * Under {@link DeliveryPolicy#IMMEDIATE} every batch holds a single event. Events of subclasses of the model class
+     * are not included.
+     *
+     * @param modelClass The model class.
+     * @param action     The action.
+     * @param <T>        The model type.
+     * @return An observable of unmodifiable lists of the models which were emitted with the action.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <T> Observable<List<T>> getBatchObservable(@NonNull Class<T> modelClass, @NonNull String action) {
+        Observable<?> batches = routeOf(modelClass, action).mBatches.hide();
+        return (Observable<List<T>>) batches;
+    }
+
+    @NonNull
+    private Route routeOf(@NonNull Class<?> modelClass, @NonNull String action) {
+        ConcurrentMap<String, Route> routesByAction = mRoutes.get(modelClass);
+        if (routesByAction == null) {
+            routesByAction = new ConcurrentHashMap<>();
+            ConcurrentMap<String, Route> existing = mRoutes.putIfAbsent(modelClass, routesByAction);
+            if (existing != null) {
+                routesByAction = existing;
+            }
+        }
+        Route route = routesByAction.get(action);
+        if (route == null) {
+            route = new Route();
+            Route existing = routesByAction.putIfAbsent(action, route);
+            if (existing != null) {
+                route = existing;
+            }
+        }
+        return route;
+    }
+
+    /**
+     * A Route delivers the events of one model class and action, and buffers them until their batch is delivered.
+     * Only one delivery of the buffer is scheduled or running at a time, so batches never overlap or overtake each
+     * other; events which are buffered while a batch is delivered are scheduled once it has been delivered.
+     */
+    private static final class Route implements Runnable {
+
+        final Relay<Object> mEvents = PublishRelay.create().toSerialized();
+
+        final Relay<List<Object>> mBatches = PublishRelay.<List<Object>>create().toSerialized();
+
+        /**
+         * The buffered events. Guarded by this.
+         */
+        private List<Object> mBuffer = new ArrayList<>();
+
+        /**
+         * Maps the keys of the buffered events to their index in the buffer, when the events are coalesced. Guarded
+         * by this.
+         */
+        private final Map<Object, Integer> mBufferedKeys = new HashMap<>();
+
+        /**
+         * Whether delivery of the buffer has been scheduled or is running. Guarded by this.
+         */
+        private boolean mScheduled;
+
+        /**
+         * The scheduler of the delivery which is scheduled or running, to schedule the events buffered meanwhile.
+         * Guarded by this.
+         */
+        private Scheduler mScheduler;
+
+        boolean hasObservers() {
+            return mEvents.hasObservers() || mBatches.hasObservers();
+        }
+
+        void deliver(@NonNull Object event) {
+            mEvents.accept(event);
+            if (mBatches.hasObservers()) {
+                mBatches.accept(Collections.singletonList(event));
+            }
+        }
+
+        /**
+         * Buffers an event and schedules the delivery of the buffer.
+         *
+         * @param event  The event.
+         * @param policy The delivery policy of its action.
+         * @return {@code false} if the buffer is full and the event was dropped.
+         */
+        boolean buffer(@NonNull Object event, @NonNull DeliveryPolicy policy) {
+            Object key = policy.isCoalesced() ? policy.keyOf(event) : null;
+            synchronized (this) {
+                if (key != null) {
+                    Integer index = mBufferedKeys.get(key);
+                    if (index != null) {
+                        mBuffer.set(index, event);
+                        return true;
+                    }
+                }
+                if (mBuffer.size() >= policy.getMaxBuffered()) {
+                    return false;
+                }
+                if (key != null) {
+                    mBufferedKeys.put(key, mBuffer.size());
+                }
+                mBuffer.add(event);
+                if (mScheduled) {
+                    return true;
+                }
+                mScheduled = true;
+                mScheduler = policy.getScheduler();
+            }
+            policy.getScheduler().scheduleDirect(this);
+            return true;
+        }
+
+        /**
+         * Delivers the buffered events, then schedules the events which were buffered meanwhile.
+         */
+        @Override
+        public void run() {
+            List<Object> batch;
+            synchronized (this) {
+                batch = mBuffer;
+                mBuffer = new ArrayList<>();
+                mBufferedKeys.clear();
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                mEvents.accept(batch.get(i));
+            }
+            if (mBatches.hasObservers()) {
+                mBatches.accept(Collections.unmodifiableList(batch));
+            }
+            Scheduler scheduler;
+            synchronized (this) {
+                if (mBuffer.isEmpty()) {
+                    mScheduled = false;
+                    mScheduler = null;
+                    return;
+                }
+                scheduler = mScheduler;
+            }
+            scheduler.scheduleDirect(this);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * An UpdateBatch records the updates made to the adapter so that they can be dispatched later as one sequence. Each
+ * update is merged into the one recorded before it where possible, so that consecutive insertions, removals and
+ * changes of adjoining ranges are dispatched as a single ranged notification. Changes are only merged when they carry
+ * the same payload.
+ * <p>
+ * Positions are adapter positions as they are after every previously recorded update, which is also the order in
+ * which RecyclerView expects them.
+ */
+final class UpdateBatch implements SectionDiff.Callback {
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    /**
+     * Updates encoded as triples of type, first argument and second argument.
+     */
+    private int[] mUpdates = new int[24];
+    private int mUpdateCount;
+
+    /**
+     * The payload of each update, indexed by the position of its triple. Only changes have payloads.
+     */
+    private Object[] mPayloads = new Object[8];
+
+    /**
+     * @return {@code true} if no update has been recorded since the batch was last dispatched or cleared.
+     */
+    boolean isEmpty() {
+        return mUpdateCount == 0;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (lastTypeIs(INSERT)) {
+            int start = mUpdates[mUpdateCount - 2];
+            int end = start + mUpdates[mUpdateCount - 1];
+            if (position >= start && position <= end) {
+                mUpdates[mUpdateCount - 1] += count;
+                return;
+            }
+        }
+        append(INSERT, position, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (lastTypeIs(REMOVE)) {
+            int start = mUpdates[mUpdateCount - 2];
+            if (start >= position && start <= position + count) {
+                mUpdates[mUpdateCount - 2] = position;
+                mUpdates[mUpdateCount - 1] += count;
+                return;
+            }
+        } else if (lastTypeIs(INSERT)) {
+            int start = mUpdates[mUpdateCount - 2];
+            int end = start + mUpdates[mUpdateCount - 1];
+            if (position >= start && position + count <= end) {
+                // Items which were inserted and then removed never have to be notified at all.
+                mUpdates[mUpdateCount - 1] -= count;
+                if (mUpdates[mUpdateCount - 1] == 0) {
+                    mUpdateCount -= 3;
+                }
+                return;
+            }
+        }
+        append(REMOVE, position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (fromPosition != toPosition) {
+            append(MOVE, fromPosition, toPosition);
+        }
+    }
+
+    @Override
+    public void onChanged(int position, int count, @Nullable Object payload) {
+        if (count <= 0) {
+            return;
+        }
+        if ((lastTypeIs(CHANGE) && mPayloads[mUpdateCount / 3 - 1] == payload) || lastTypeIs(INSERT)) {
+            int start = mUpdates[mUpdateCount - 2];
+            int end = start + mUpdates[mUpdateCount - 1];
+            if (lastTypeIs(INSERT)) {
+                if (position >= start && position + count <= end) {
+                    // Inserted items are bound from scratch anyway.
+                    return;
+                }
+            } else if (position <= end && position + count >= start) {
+                int mergedStart = Math.min(start, position);
+                mUpdates[mUpdateCount - 2] = mergedStart;
+                mUpdates[mUpdateCount - 1] = Math.max(end, position + count) - mergedStart;
+                return;
+            }
+        }
+        append(CHANGE, position, count);
+        mPayloads[mUpdateCount / 3 - 1] = payload;
+    }
+
+    /**
+     * Forwards the recorded updates and clears the batch. The batch is cleared first, so updates recorded while
+     * dispatching are kept for the next dispatch.
+     *
+     * @param callback Receives the updates.
+     */
+    void dispatch(@NonNull SectionDiff.Callback callback) {
+        int[] updates = Arrays.copyOf(mUpdates, mUpdateCount);
+        Object[] payloads = Arrays.copyOf(mPayloads, mUpdateCount / 3);
+        clear();
+        for (int i = 0; i < updates.length; i += 3) {
+            int first = updates[i + 1];
+            int second = updates[i + 2];
+            switch (updates[i]) {
+                case INSERT:
+                    callback.onInserted(first, second);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(first, second);
+                    break;
+                case MOVE:
+                    callback.onMoved(first, second);
+                    break;
+                default:
+                    callback.onChanged(first, second, payloads[i / 3]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Discards the recorded updates.
+     */
+    void clear() {
+        Arrays.fill(mPayloads, 0, mUpdateCount / 3, null);
+        mUpdateCount = 0;
+    }
+
+    private boolean lastTypeIs(int type) {
+        return mUpdateCount > 0 && mUpdates[mUpdateCount - 3] == type;
+    }
+
+    private void append(int type, int first, int second) {
+        if (mUpdateCount + 3 > mUpdates.length) {
+            mUpdates = Arrays.copyOf(mUpdates, mUpdates.length * 2);
+            mPayloads = Arrays.copyOf(mPayloads, mPayloads.length * 2);
+        }
+        mUpdates[mUpdateCount++] = type;
+        mUpdates[mUpdateCount++] = first;
+        mUpdates[mUpdateCount++] = second;
+        mPayloads[mUpdateCount / 3 - 1] = null;
+    }
+}
@@ -0,0 +1,79 @@
+package will.tesler.asymmetricadapter.adapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ViewTypeRegistry assigns view types which mean the same thing in every {@link UniversalAdapter} of the process.
+ * An adapter normally numbers its view types in registration order, so two adapters can give different meanings to
+ * the same view type and cannot share a {@link android.support.v7.widget.RecyclerView.RecycledViewPool}. Adapters in
+ * shared pool mode, see {@link UniversalAdapter#setSharedPool}, take their view types from this registry instead.
+ * <p>
+ * View types belong to classes, never to instances. A presenter class registered with
+ * {@link UniversalAdapter#register(Class)} has the same view type in every adapter, and so does every instance of a
+ * {@link PresenterFactory} class, including an anonymous one. The presenters which the instances of a factory class
+ * create must therefore be interchangeable; use a separate factory class for each kind of presenter. Since only
+ * classes are kept, the registry does not keep factories, or whatever they refer to, alive, and the number of view
+ * types is bounded by the number of classes. View types are never reused within the process.
+ * <p>
+ * The registry is thread-safe.
+ */
+public final class ViewTypeRegistry {
+
+    private static final ViewTypeRegistry INSTANCE = new ViewTypeRegistry();
+
+    /**
+     * Maps presenter classes and factory classes to view types.
+     */
+    private final Map<Class<?>, Integer> mViewTypes = new HashMap<>();
+
+    private ViewTypeRegistry() { }
+
+    /**
+     * @return The registry of the process.
+     */
+    @NonNull
+    public static ViewTypeRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the view type of a presenter class in adapters which are in shared pool mode, for example to size the shared
+     * pool with {@link android.support.v7.widget.RecyclerView.RecycledViewPool#setMaxRecycledViews(int, int)}.
+     *
+     * @param presenterClass The presenter class.
+     * @return The view type.
+     */
+    public int getViewType(@NonNull Class<? extends Presenter> presenterClass) {
+        return viewTypeOf(presenterClass);
+    }
+
+    /**
+     * Get the view type of a presenter factory in adapters which are in shared pool mode. Every instance of the
+     * factory's class has the same view type.
+     *
+     * @param factory The presenter factory.
+     * @return The view type.
+     */
+    public int getViewType(@NonNull PresenterFactory<?> factory) {
+        return viewTypeOf(factory instanceof ConstructorPresenterFactory
+                ? ((ConstructorPresenterFactory) factory).getPresenterClass() : factory.getClass());
+    }
+
+    /**
+     * Get the view type of a class, assigning the next view type if the class is new.
+     *
+     * @param key A presenter class or a presenter factory class.
+     * @return The view type.
+     */
+    private synchronized int viewTypeOf(@NonNull Class<?> key) {
+        Integer viewType = mViewTypes.get(key);
+        if (viewType == null) {
+            viewType = mViewTypes.size();
+            mViewTypes.put(key, viewType);
+        }
+        return viewType;
+    }
+}
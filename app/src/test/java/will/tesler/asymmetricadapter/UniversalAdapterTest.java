@@ -1,21 +1,69 @@
 package will.tesler.asymmetricadapter;
 
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 import org.robolectric.RuntimeEnvironment;
-
+import org.robolectric.util.ReflectionHelpers;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+
+import will.tesler.asymmetricadapter.adapter.AdapterMetrics;
 import will.tesler.asymmetricadapter.adapter.AddResult;
+import will.tesler.asymmetricadapter.adapter.CarouselPool;
+import will.tesler.asymmetricadapter.adapter.CarouselPresenter;
+import will.tesler.asymmetricadapter.adapter.DeliveryPolicy;
+import will.tesler.asymmetricadapter.adapter.DiffCallback;
+import will.tesler.asymmetricadapter.adapter.KeyExtractor;
+import will.tesler.asymmetricadapter.adapter.Keyed;
+import will.tesler.asymmetricadapter.adapter.LatencyHistogram;
+import will.tesler.asymmetricadapter.adapter.PagedSection;
 import will.tesler.asymmetricadapter.adapter.Presenter;
+import will.tesler.asymmetricadapter.adapter.PresenterFactory;
+import will.tesler.asymmetricadapter.adapter.PresenterFor;
+import will.tesler.asymmetricadapter.adapter.PreparingPresenter;
 import will.tesler.asymmetricadapter.adapter.Section;
+import will.tesler.asymmetricadapter.adapter.SectionSnapshot;
+import will.tesler.asymmetricadapter.adapter.TypedSection;
 import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
 import will.tesler.asymmetricadapter.adapter.UniversalRelay;
+import will.tesler.asymmetricadapter.adapter.ViewTypeRegistry;
 import will.tesler.asymmetricadapter.robolectric.RobolectricGradleTestRunner;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -97,6 +145,62 @@ public class UniversalAdapterTest {
         assertThat(retrievedModel1).isEqualTo(model1);
     }
 
+    @Test
+    public void add_withoutTag_returnsAHandleWithoutATag() {
+        mAdapter.register(TestPresenter1.class);
+
+        AddResult first = mAdapter.add(new Model1());
+        AddResult second = mAdapter.add(new Section());
+
+        assertThat(first.getTag()).isNull();
+        assertThat(first.wasReplaced()).isFalse();
+        assertThat(second.getHandle().getId()).isGreaterThan(first.getHandle().getId());
+    }
+
+    @Test
+    public void add_withoutTag_AllowsRetrievalAndRemovalOfSectionByHandle() {
+        mAdapter.register(TestPresenter1.class);
+
+        Section section = new Section();
+        section.add(new Model1());
+        AddResult addResult = mAdapter.add(section);
+
+        assertThat(mAdapter.get(addResult.getHandle())).isSameAs(section);
+        assertThat(mAdapter.remove(addResult.getHandle())).isSameAs(section);
+        assertThat(mAdapter.get(addResult.getHandle())).isNull();
+        assertThat(mAdapter.remove(addResult.getHandle())).isNull();
+        assertThat(mAdapter.getItemCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_withAHandleOfAnotherAdapter_returnsNull() {
+        mAdapter.register(TestPresenter1.class);
+        UniversalAdapter other = new UniversalAdapter();
+        other.register(TestPresenter1.class);
+
+        Section section = new Section();
+        section.add(new Model1());
+        AddResult addResult = mAdapter.add(section);
+        other.add(sectionOf(2));
+
+        assertThat(other.get(addResult.getHandle())).isNull();
+        assertThat(other.remove(addResult.getHandle())).isNull();
+        assertThat(other.getItemCount()).isEqualTo(2);
+        assertThat(mAdapter.get(addResult.getHandle())).isSameAs(section);
+    }
+
+    @Test
+    public void add_whenATaggedSectionIsReplaced_keepsItsHandle() {
+        mAdapter.register(TestPresenter1.class);
+
+        AddResult first = mAdapter.add(new Model1(), "TAG");
+        Section replacement = new Section();
+        AddResult second = mAdapter.add(replacement, "TAG");
+
+        assertThat(second.getHandle()).isSameAs(first.getHandle());
+        assertThat(mAdapter.get(first.getHandle())).isSameAs(replacement);
+    }
+
     @Test
     public void createViewHolder_whenRegistered_constructsCorrectTransformer() {
         mAdapter.register(TestPresenter1.class);
@@ -120,6 +224,51 @@ public class UniversalAdapterTest {
         assertThat(presenter2).isInstanceOf(TestPresenter2.class);
     }
 
+    @Test
+    public void createViewHolder_whenRegisteredWithAFactory_createsThePresenterThroughTheFactory() {
+        final int[] created = new int[1];
+        mAdapter.register(Model1.class, new PresenterFactory<Model1>() {
+            @NonNull
+            @Override
+            public Presenter<Model1> create(@NonNull ViewGroup parent) {
+                created[0]++;
+                return new TestPresenter1(parent);
+            }
+        });
+
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+
+        assertThat(presenter).isInstanceOf(TestPresenter1.class);
+        assertThat(created[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void register_whenPresenterExtendsAGenericPresenter_resolvesTheModelClass() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestDerivedPresenter.class);
+
+        mAdapter.add(new Model2());
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void registerAll_registersTheAnnotatedPresentersOfThePackage() {
+        PresenterRegistry.registerAll(mAdapter);
+
+        mAdapter.add(new Model1());
+        mAdapter.add(new Model2());
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(0);
+        assertThat(mAdapter.getItemViewType(1)).isEqualTo(1);
+        assertThat(mAdapter.createViewHolder(mRecyclerView, 1)).isInstanceOf(TestPresenter2.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void register_whenPresenterIsAnInnerClass_throwsIllegalArgumentException() {
+        mAdapter.register(InnerPresenter.class);
+    }
+
     @Test
     public void get_withAdapterPosition_shouldGetTheCorrectModel() {
         mAdapter.register(TestPresenter1.class);
@@ -168,6 +317,239 @@ public class UniversalAdapterTest {
         assertThat(mAdapter.remove(3)).isInstanceOf(Model2.class);
     }
 
+    @Test
+    public void register_withAWarmCount_registersThePresenter() {
+        mAdapter.register(TestPresenter1.class, 3);
+        mAdapter.register(Model2.class, new PresenterFactory<Model2>() {
+            @NonNull
+            @Override
+            public Presenter<Model2> create(@NonNull ViewGroup parent) {
+                return new TestPresenter2(parent);
+            }
+        }, 0);
+
+        mAdapter.add(new Model1());
+        mAdapter.add(new Model2());
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(0);
+        assertThat(mAdapter.getItemViewType(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void register_withAWarmCount_fillsThePoolWhenTheMainThreadIsIdle() {
+        mAdapter.register(TestItemPresenter.class, 3);
+
+        runIdleHandlers();
+
+        assertThat(pooledCount(mRecyclerView.getRecycledViewPool(), 0)).isEqualTo(3);
+    }
+
+    @Test
+    public void register_withAWarmCount_whenAttachedAgain_onlyCreatesThePresentersMissingFromThePool() {
+        AdapterMetrics metrics = new AdapterMetrics();
+        mAdapter.setMetrics(metrics);
+        mAdapter.register(TestItemPresenter.class, 3);
+        runIdleHandlers();
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        pool.getRecycledView(0);
+
+        RecyclerView recyclerView = new RecyclerView(mContext);
+        recyclerView.setLayoutManager(new LinearLayoutManager(mContext));
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setAdapter(mAdapter);
+        runIdleHandlers();
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(3);
+        assertThat(metrics.getCreateHistogram(0).getCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void register_withAWarmCount_keepsALargerCapacityOfThePool() {
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(0, 10);
+        mAdapter.register(TestItemPresenter.class, 3);
+        runIdleHandlers();
+
+        for (int i = 0; i < 7; i++) {
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 0));
+        }
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(10);
+    }
+
+    @Test
+    public void register_withAWarmCount_raisesTheCapacityOfThePoolToHoldEveryPresenter() {
+        mAdapter.register(TestItemPresenter.class, 8);
+
+        runIdleHandlers();
+
+        assertThat(pooledCount(mRecyclerView.getRecycledViewPool(), 0)).isEqualTo(8);
+    }
+
+    @Test
+    public void register_withAWarmCount_warmsASharedPoolOnce() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        AdapterMetrics metrics = new AdapterMetrics();
+        for (int i = 0; i < 4; i++) {
+            UniversalAdapter adapter = new UniversalAdapter();
+            adapter.setMetrics(metrics);
+            adapter.setSharedPool(pool);
+            adapter.register(TestItemPresenter.class, 3);
+            RecyclerView carousel = new RecyclerView(mContext);
+            carousel.setLayoutManager(new LinearLayoutManager(mContext, LinearLayoutManager.HORIZONTAL, false));
+            carousel.setAdapter(adapter);
+        }
+
+        runIdleHandlers();
+
+        int viewType = ViewTypeRegistry.getInstance().getViewType(TestItemPresenter.class);
+        assertThat(pooledCount(pool, viewType)).isEqualTo(3);
+        assertThat(metrics.getCreateHistogram(viewType).getCount()).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void register_withANegativeWarmCount_throwsException() {
+        mAdapter.register(TestPresenter1.class, -1);
+    }
+
+    @Test
+    public void getItemId_withoutStableIds_returnsNoId() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(1, "a"));
+
+        assertThat(mAdapter.getItemId(0)).isEqualTo(RecyclerView.NO_ID);
+    }
+
+    @Test
+    public void getItemId_withKeyedModels_keepsTheIdsOfKeysAcrossReplacement() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setHasStableIds(true);
+        adapter.register(TestItemPresenter.class);
+
+        Section section = new Section();
+        section.add(new KeyedItem(1, "a"));
+        section.add(new KeyedItem(2, "b"));
+        adapter.add(section, "TAG");
+        long id1 = adapter.getItemId(0);
+        long id2 = adapter.getItemId(1);
+
+        Section replacement = new Section();
+        replacement.add(new KeyedItem(3, "c"));
+        replacement.add(new KeyedItem(2, "changed"));
+        replacement.add(new KeyedItem(1, "changed"));
+        adapter.add(replacement, "TAG");
+
+        assertThat(id1).isNotEqualTo(id2);
+        assertThat(adapter.getItemId(0)).isNotEqualTo(id1).isNotEqualTo(id2);
+        assertThat(adapter.getItemId(1)).isEqualTo(id2);
+        assertThat(adapter.getItemId(2)).isEqualTo(id1);
+    }
+
+    @Test
+    public void getItemId_withAKeyExtractor_derivesTheIdsFromTheExtractedKeys() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setHasStableIds(true);
+        adapter.register(TestItemPresenter.class);
+        adapter.setKeyExtractor(Item.class, new KeyExtractor<Item>() {
+            @NonNull
+            @Override
+            public Object keyOf(@NonNull Item model) {
+                return model.mText;
+            }
+        });
+
+        adapter.add(new Item(1, "a"), "TAG");
+        adapter.add(new Item(1, "b"));
+        long id = adapter.getItemId(0);
+        adapter.add(new Item(2, "a"), "TAG");
+
+        assertThat(adapter.getItemId(0)).isEqualTo(id);
+        assertThat(adapter.getItemId(1)).isNotEqualTo(id);
+    }
+
+    @Test
+    public void getItemId_withDuplicateKeys_returnsDistinctIds() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setHasStableIds(true);
+        adapter.register(TestItemPresenter.class);
+
+        Item item = new Item(1, "a");
+        adapter.add(item);
+        adapter.add(new Item(2, "a"));
+        adapter.add(item);
+        adapter.add(new Item(1, "a"));
+        long firstId = adapter.getItemId(0);
+
+        Set<Long> ids = new HashSet<>();
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            ids.add(adapter.getItemId(position));
+        }
+        assertThat(ids).hasSize(4).doesNotContain(RecyclerView.NO_ID);
+        assertThat(adapter.getItemId(0)).isEqualTo(firstId);
+
+        adapter.remove(0);
+
+        assertThat(adapter.getItemId(1)).isEqualTo(firstId);
+        assertThat(adapter.getItemId(2)).isNotEqualTo(firstId);
+    }
+
+    @Test
+    public void getItemId_withAPagedSection_returnsDistinctIdsForPlaceholders() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setHasStableIds(true);
+        adapter.register(TestItemPresenter.class);
+        adapter.register(TestPlaceholderPresenter.class);
+        adapter.add(new PagedSection(20, 5, new RecordingPageLoader()));
+
+        Set<Long> ids = new HashSet<>();
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            ids.add(adapter.getItemId(position));
+        }
+        assertThat(ids).hasSize(20).doesNotContain(RecyclerView.NO_ID);
+
+        scheduler.triggerActions();
+        long loadedId = adapter.getItemId(0);
+        ids.clear();
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            ids.add(adapter.getItemId(position));
+        }
+
+        assertThat(adapter.get(0)).isEqualTo(new Item(0, "loaded"));
+        assertThat(ids).hasSize(20).doesNotContain(RecyclerView.NO_ID);
+        assertThat(adapter.getItemId(0)).isEqualTo(loadedId);
+    }
+
+    @Test
+    public void getItemId_afterManyReplacements_keepsTheIdsOfTheCurrentModels() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setHasStableIds(true);
+        adapter.register(TestItemPresenter.class);
+
+        adapter.add(new KeyedItem(0, "kept"), "KEPT");
+        long keptId = adapter.getItemId(0);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 1; i <= 500; i++) {
+            adapter.add(new KeyedItem(i, "a"), "TAG");
+            ids.add(adapter.getItemId(1));
+            assertThat(adapter.getItemId(0)).isEqualTo(keptId);
+        }
+
+        assertThat(ids).hasSize(500).doesNotContain(keptId);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setKeyExtractor_withAnUnregisteredClass_throwsException() {
+        mAdapter.setKeyExtractor(Item.class, new KeyExtractor<Item>() {
+            @NonNull
+            @Override
+            public Object keyOf(@NonNull Item model) {
+                return model.mId;
+            }
+        });
+    }
+
     @Test
     public void bindView_shouldPassModelToTransformer() {
         mAdapter.register(TestPresenter1.class);
@@ -182,85 +564,2582 @@ public class UniversalAdapterTest {
     }
 
     @Test
-    public void clearSection_whenNotifyDataSetChanged_shouldClearSectionInAdapter() {
+    public void bindView_withPayloadsAcceptedByThePresenter_presentsOnlyThePayloads() {
+        mAdapter.register(TestPartialPresenter.class);
+
+        Item item = new Item(1, "text");
+        mAdapter.add(item);
+
+        TestPartialPresenter presenter = (TestPartialPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        presenter.mAcceptsPartial = true;
+        mAdapter.onBindViewHolder(presenter, 0, Arrays.<Object>asList("likes", "title"));
+
+        assertThat(presenter.mPresentCount).isEqualTo(0);
+        assertThat(presenter.mPayloads).containsExactly("likes", "title");
+    }
+
+    @Test
+    public void bindView_withPayloadsDeclinedByThePresenter_presentsTheModel() {
+        mAdapter.register(TestPartialPresenter.class);
+
+        Item item = new Item(1, "text");
+        mAdapter.add(item);
+
+        TestPartialPresenter presenter = (TestPartialPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.onBindViewHolder(presenter, 0, Collections.<Object>singletonList("likes"));
+
+        assertThat(presenter.mPresentCount).isEqualTo(1);
+        assertThat(presenter.mPayloads).containsExactly("likes");
+    }
+
+    @Test
+    public void bindView_withoutPayloads_presentsTheModel() {
+        mAdapter.register(TestPartialPresenter.class);
+
+        Item item = new Item(1, "text");
+        mAdapter.add(item);
+
+        TestPartialPresenter presenter = (TestPartialPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        presenter.mAcceptsPartial = true;
+        mAdapter.onBindViewHolder(presenter, 0, Collections.emptyList());
+
+        assertThat(presenter.mPresentCount).isEqualTo(1);
+        assertThat(presenter.mPayloads).isEmpty();
+    }
+
+    @Test
+    public void setMetrics_recordsCreatesAndBindsPerViewTypeAndPresenterClass() {
+        AdapterMetrics metrics = new AdapterMetrics();
+        mAdapter.setMetrics(metrics);
         mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Model1());
+        mAdapter.add(new Item(1, "a"));
 
-        Section section = new Section();
-        section.add(new Model1());
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 1);
+        mAdapter.bindViewHolder(presenter, 1);
+        mAdapter.bindViewHolder(presenter, 1);
 
-        mAdapter.add(section);
-        mAdapter.notifyDataSetChanged();
+        assertThat(metrics.getCreateHistogram(1).getCount()).isEqualTo(1);
+        assertThat(metrics.getBindHistogram(1).getCount()).isEqualTo(2);
+        assertThat(metrics.getBindHistogram(TestItemPresenter.class).getCount()).isEqualTo(2);
+        assertThat(metrics.getCreateHistogram(0)).isNull();
+        assertThat(metrics.getBindHistogram(TestPresenter1.class)).isNull();
+    }
 
-        assertThat(mAdapter.getItemCount()).isEqualTo(1);
+    @Test
+    public void setMetrics_reportsBindsSlowerThanTheThreshold() {
+        final List<Class<?>> slowBinds = new ArrayList<>();
+        AdapterMetrics.SlowBindListener listener = new AdapterMetrics.SlowBindListener() {
+            @Override
+            public void onSlowBind(int viewType, @NonNull Class<? extends Presenter> presenterClass,
+                                   long durationNanos) {
+                slowBinds.add(presenterClass);
+            }
+        };
+        AdapterMetrics metrics = new AdapterMetrics();
+        metrics.setSlowBindListener(-1, listener);
+        mAdapter.setMetrics(metrics);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(1, "a"));
 
-        section.clearSection();
-        mAdapter.notifyDataSetChanged();
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+        metrics.setSlowBindListener(Long.MAX_VALUE, listener);
+        mAdapter.bindViewHolder(presenter, 0);
 
-        assertThat(mAdapter.getItemCount()).isEqualTo(0);
+        assertThat(slowBinds).containsExactly(TestItemPresenter.class);
+    }
+
+    @Test
+    public void setSharedPool_givesAPresenterTheSameViewTypeInEveryAdapter() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        UniversalAdapter adapter1 = new UniversalAdapter();
+        adapter1.setSharedPool(pool);
+        adapter1.register(TestPresenter1.class);
+        adapter1.register(TestItemPresenter.class);
+        adapter1.add(new Item(1, "a"));
+        UniversalAdapter adapter2 = new UniversalAdapter();
+        adapter2.setSharedPool(pool);
+        adapter2.register(TestItemPresenter.class);
+        adapter2.add(new Item(1, "a"));
+
+        int viewType = ViewTypeRegistry.getInstance().getViewType(TestItemPresenter.class);
+        assertThat(adapter1.getItemViewType(0)).isEqualTo(viewType);
+        assertThat(adapter2.getItemViewType(0)).isEqualTo(viewType);
+        assertThat(adapter2.createViewHolder(mRecyclerView, viewType)).isInstanceOf(TestItemPresenter.class);
+        assertThat(adapter2.onCreateViewHolder(mRecyclerView,
+                ViewTypeRegistry.getInstance().getViewType(TestPresenter1.class))).isNull();
+    }
+
+    @Test
+    public void viewTypeRegistry_givesEveryInstanceOfAFactoryClassOneViewTypeWithoutKeepingIt() {
+        ItemPresenterFactory factory = new ItemPresenterFactory();
+        WeakReference<ItemPresenterFactory> reference = new WeakReference<>(factory);
+        int viewType = ViewTypeRegistry.getInstance().getViewType(factory);
+        factory = null;
+
+        assertThat(ViewTypeRegistry.getInstance().getViewType(new ItemPresenterFactory())).isEqualTo(viewType);
+        assertThat(isCollected(reference)).isTrue();
     }
 
     @Test(expected = IllegalStateException.class)
-    public void add_whenClassNotRegistered_throwsIllegalStateException() {
-        mAdapter.add(new Object());
+    public void setSharedPool_whenTwoInstancesOfAFactoryClassAreRegisteredForDifferentModels_throwsException() {
+        mAdapter.setSharedPool(new RecyclerView.RecycledViewPool());
+        mAdapter.register(Item.class, new ItemPresenterFactory());
+        mAdapter.register(KeyedItem.class, new ItemPresenterFactory());
     }
 
-    @Test(expected = RuntimeException.class)
-    public void createViewHolder_whenNotRegistered_throwsRuntimeException() {
-        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+    @Test
+    public void setSharedPool_whenAModelIsRegisteredAgainWithAnotherInstanceOfTheFactoryClass_replacesTheFactory() {
+        mAdapter.setSharedPool(new RecyclerView.RecycledViewPool());
+        mAdapter.register(Item.class, new ItemPresenterFactory());
+        ItemPresenterFactory factory = new ItemPresenterFactory();
+        mAdapter.register(Item.class, factory);
+        mAdapter.add(new Item(1, "a"));
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(ViewTypeRegistry.getInstance().getViewType(factory));
+    }
 
-        assertThat(presenter).isInstanceOf(TestPresenter1.class);
+    @Test
+    public void setSharedPool_setsThePoolOnTheRecyclerView() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.setSharedPool(pool);
+
+        mRecyclerView.setAdapter(adapter);
+
+        assertThat(adapter.getSharedPool()).isSameAs(pool);
+        assertThat(mRecyclerView.getRecycledViewPool()).isSameAs(pool);
     }
 
-    public void get_whenSectionIndexIsExceeded_throwsIndexOutOfBoundsException() {
+    @Test(expected = IllegalStateException.class)
+    public void setSharedPool_afterAPresenterIsRegistered_throwsException() {
+        mAdapter.register(TestItemPresenter.class);
+
+        mAdapter.setSharedPool(new RecyclerView.RecycledViewPool());
+    }
+
+    @Test
+    public void setSharedPool_whenManyCarouselsAreScrolledThrough_createsFewerPresenters() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        RecyclerView list = new RecyclerView(activity);
+        list.setLayoutManager(new LinearLayoutManager(activity));
+        activity.setContentView(list);
+        final CarouselPool pool = new CarouselPool();
+        final AdapterMetrics metrics = new AdapterMetrics();
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.register(Row.class, new PresenterFactory<Row>() {
+            @NonNull
+            @Override
+            public Presenter<Row> create(@NonNull ViewGroup parent) {
+                return new MeteredCarouselPresenter(parent, pool, metrics);
+            }
+        });
+        for (int i = 0; i < CAROUSELS; i++) {
+            Item[] items = new Item[CAROUSEL_WIDTH];
+            for (int j = 0; j < CAROUSEL_WIDTH; j++) {
+                items[j] = new Item(i * CAROUSEL_WIDTH + j, "a");
+            }
+            adapter.add(new Row(items));
+        }
+        list.setAdapter(adapter);
+
+        // Each carousel shows one item at a time, and the list shows a few carousels at a time.
+        layout(list, CAROUSEL_HEIGHT * VISIBLE_CAROUSELS);
+        for (int i = 0; i < CAROUSELS; i++) {
+            list.scrollBy(0, CAROUSEL_HEIGHT);
+            layout(list, CAROUSEL_HEIGHT * VISIBLE_CAROUSELS);
+        }
+
+        long binds = metrics.getBindHistogram(TestItemPresenter.class).getCount();
+        long creates = metrics.getCreateHistogram(TestItemPresenter.class).getCount();
+        assertThat(binds).isGreaterThanOrEqualTo(CAROUSELS);
+        assertThat(creates).isLessThan(CAROUSELS / 4);
+    }
+
+    private static final int CAROUSELS = 40;
+    private static final int CAROUSEL_WIDTH = 4;
+    private static final int CAROUSEL_HEIGHT = 200;
+    private static final int VISIBLE_CAROUSELS = 3;
+
+    @Test
+    public void carouselPresenter_presentsTheSectionOfTheModelWithAnAdapterInSharedPoolMode() {
+        CarouselPool pool = new CarouselPool();
+        TestCarouselPresenter presenter = new TestCarouselPresenter(mRecyclerView, pool);
+
+        presenter.present(new Row(new Item(1, "a"), new Item(2, "b")), new UniversalRelay());
+
+        RecyclerView carousel = presenter.getCarousel();
+        assertThat(carousel.getRecycledViewPool()).isSameAs(pool);
+        assertThat(carousel.getAdapter().getItemCount()).isEqualTo(2);
+
+        presenter.present(new Row(new Item(3, "c")), new UniversalRelay());
+
+        assertThat(carousel.getAdapter().getItemCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void carouselPresenter_whenPresentedAgain_restoresTheScrollPositionItHadWhenDetached() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout window = new FrameLayout(activity);
+        activity.setContentView(window);
+        TestCarouselPresenter presenter = new TestCarouselPresenter(window, new CarouselPool());
+        RecyclerView carousel = presenter.getCarousel();
+        LinearLayoutManager layoutManager = (LinearLayoutManager) carousel.getLayoutManager();
+        Item[] items = new Item[20];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item(i, "a");
+        }
+        Row row = new Row(items);
+        window.addView(carousel);
+        mAdapter.onViewAttachedToWindow(presenter);
+        presenter.present(row, new UniversalRelay());
+        layout(carousel);
+        layoutManager.scrollToPositionWithOffset(10, 0);
+        layout(carousel);
+
+        // The list detaches the carousel before it leaves the window, which recycles the children of the carousel.
+        mAdapter.onViewDetachedFromWindow(presenter);
+        window.removeView(carousel);
+        mAdapter.onViewRecycled(presenter);
+        presenter.present(new Row(new Item(100, "b")), new UniversalRelay());
+        presenter.present(row, new UniversalRelay());
+        layout(carousel);
+
+        assertThat(layoutManager.findFirstVisibleItemPosition()).isEqualTo(10);
+    }
+
+    @Test
+    public void presenterLifecycle_isForwardedFromTheAdapter() {
+        mAdapter.register(TestRecyclingPresenter.class);
+        mAdapter.add(new Item(1, "a"));
+        TestRecyclingPresenter presenter = (TestRecyclingPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+
+        mAdapter.bindViewHolder(presenter, 0);
+        mAdapter.onViewAttachedToWindow(presenter);
+        mAdapter.onViewDetachedFromWindow(presenter);
+        boolean recyclable = mAdapter.onFailedToRecycleView(presenter);
+        presenter.mClearsTransientState = true;
+        boolean recyclableOnceCleared = mAdapter.onFailedToRecycleView(presenter);
+        mAdapter.onViewRecycled(presenter);
+
+        assertThat(presenter.mEvents).containsExactly("present", "attached", "detached", "failedToRecycle",
+                "failedToRecycle", "recycled");
+        assertThat(recyclable).isFalse();
+        assertThat(recyclableOnceCleared).isTrue();
+    }
+
+    @Test
+    public void onViewRecycled_letsTheModelOfAPresenterInThePoolBeCollected() {
+        mAdapter.register(TestRecyclingPresenter.class);
+        mAdapter.add(new Item(1, "a"), "ITEM");
+        TestRecyclingPresenter presenter = (TestRecyclingPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+        WeakReference<Object> model = new WeakReference<>(mAdapter.get(0));
+        mAdapter.remove("ITEM");
+
+        mAdapter.onViewRecycled(presenter);
+        mRecyclerView.getRecycledViewPool().putRecycledView(presenter);
+
+        assertThat(presenter.mEvents).containsExactly("present", "recycled");
+        assertThat(isCollected(model)).isTrue();
+        assertThat(mRecyclerView.getRecycledViewPool().getRecycledView(0)).isSameAs(presenter);
+    }
+
+    @Test
+    public void trimMemory_whileRunningLow_keepsOnePresenterOfEachViewTypeInThePool() {
+        mAdapter.register(TestItemPresenter.class);
         mAdapter.register(TestPresenter1.class);
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        for (int i = 0; i < 3; i++) {
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 0));
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 1));
+        }
 
-        mAdapter.add(new Model1(), "TAG");
+        mAdapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
 
-        @SuppressWarnings("ConstantConditions")
-        Object model = mAdapter.get("TAG").getModel(1);
-        assertThat(model).isNull();
+        assertThat(pooledCount(pool, 0)).isEqualTo(3);
+
+        mAdapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(1);
+        assertThat(pooledCount(pool, 1)).isEqualTo(1);
     }
 
-    public void get_whenAdapterPositionExceeded_returnsNull() {
-        Object model = mAdapter.get(0);
-        assertThat(model).isNull();
+    @Test
+    public void trimMemory_keepsTheMaximumSizeOfThePool() {
+        mAdapter.register(TestItemPresenter.class);
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(0, 8);
+        for (int i = 0; i < 8; i++) {
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 0));
+        }
+
+        mAdapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(1);
+
+        for (int i = 0; i < 8; i++) {
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 0));
+        }
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(8);
     }
 
-    public void remove_whenSectionTagDoesntExist_returnsNull() {
-        Section section = mAdapter.remove("TAG");
-        assertThat(section).isNull();
+    @Test
+    public void trimMemory_whenTheUiIsHidden_releasesThePooledPresenters() {
+        mAdapter.register(TestItemPresenter.class);
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+        WeakReference<Presenter> pooled = new WeakReference<>(presenter);
+        pool.putRecycledView(presenter);
+        presenter = null;
+
+        assertThat(isCollected(pooled)).isFalse();
+
+        mAdapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertThat(isCollected(pooled)).isTrue();
+
+        for (int i = 0; i < 5; i++) {
+            pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, 0));
+        }
+
+        assertThat(pooledCount(pool, 0)).isEqualTo(5);
     }
 
-    class Model1 { }
+    @Test
+    public void trimMemory_releasesThePresentersKeptToPrepareModels() {
+        mAdapter.register(TestPreparingPresenter.class);
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+        WeakReference<Presenter> preparer = new WeakReference<>(presenter);
+        presenter = null;
 
-    class Model2 { }
+        assertThat(isCollected(preparer)).isFalse();
 
-    class Header { }
+        mAdapter.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
 
-    public static class TestPresenter1 extends Presenter<Model1> {
+        assertThat(isCollected(preparer)).isTrue();
+    }
 
-        public Object mModel;
+    @Test
+    public void onDetachedFromRecyclerView_releasesThePresentersKeptToPrepareModels() {
+        mAdapter.register(TestPreparingPresenter.class);
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+        WeakReference<Presenter> preparer = new WeakReference<>(presenter);
+        presenter = null;
 
-        public TestPresenter1(ViewGroup parent) {
-            super(R.layout.layout_a, parent);
+        mRecyclerView.setAdapter(null);
+
+        assertThat(isCollected(preparer)).isTrue();
+    }
+
+    /**
+     * Runs the idle handlers of the main thread until none is left, which Robolectric's scheduler never does.
+     */
+    private static void runIdleHandlers() {
+        List<MessageQueue.IdleHandler> idleHandlers =
+                ReflectionHelpers.getField(Looper.getMainLooper().getQueue(), "mIdleHandlers");
+        while (!idleHandlers.isEmpty()) {
+            for (MessageQueue.IdleHandler idleHandler : new ArrayList<>(idleHandlers)) {
+                if (!idleHandler.queueIdle()) {
+                    idleHandlers.remove(idleHandler);
+                }
+            }
         }
+    }
 
-        @Override
-        public void present(Model1 model, @NonNull UniversalRelay relay) {
-            mModel = model;
+    private static int pooledCount(RecyclerView.RecycledViewPool pool, int viewType) {
+        List<RecyclerView.ViewHolder> pooled = new ArrayList<>();
+        RecyclerView.ViewHolder holder;
+        while ((holder = pool.getRecycledView(viewType)) != null) {
+            pooled.add(holder);
+        }
+        for (RecyclerView.ViewHolder viewHolder : pooled) {
+            pool.putRecycledView(viewHolder);
         }
+        return pooled.size();
     }
 
-    public static class TestPresenter2 extends Presenter<Model2> {
+    private static boolean isCollected(WeakReference<?> reference) {
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return reference.get() == null;
+    }
 
-        public TestPresenter2(ViewGroup parent) {
-            super(R.layout.layout_b, parent);
+    @Test
+    public void latencyHistogram_recordsDurationsInPowerOfTwoBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1000);
+        histogram.record(1000000);
+
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getMaxNanos()).isEqualTo(1000000);
+        assertThat(histogram.getTotalNanos()).isEqualTo(98 * 100 + 1000 + 1000000);
+        assertThat(histogram.getBucketCount(7)).isEqualTo(98);
+        assertThat(histogram.getPercentileNanos(50)).isEqualTo(127);
+        assertThat(histogram.getPercentileNanos(99)).isEqualTo(1023);
+        assertThat(histogram.getPercentileNanos(100)).isEqualTo(1000000);
+
+        histogram.reset();
+
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getPercentileNanos(99)).isEqualTo(0);
+    }
+
+    @Test
+    public void notifyModelChanged_notifiesEveryPositionOfTheModelWithThePayload() {
+        mAdapter.register(TestItemPresenter.class);
+
+        Item item = new Item(1, "a");
+        Section section = new Section();
+        section.add(new Item(0, "a"));
+        section.add(item);
+        section.add(item);
+        mAdapter.add(new Item(2, "a"));
+        mAdapter.add(section);
+        mAdapter.add(new Item(3, "a"));
+        mAdapter.add(item);
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        assertThat(mAdapter.notifyModelChanged(item, "likes")).isTrue();
+
+        assertThat(observer.mEvents).containsExactly("changed 2 2 likes", "changed 5 1 likes");
+    }
+
+    @Test
+    public void notifyModelChanged_withAnEqualButDistinctModel_notifiesNothing() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(1, "a"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        assertThat(mAdapter.notifyModelChanged(new Item(1, "a"), "likes")).isFalse();
+
+        assertThat(observer.mEvents).isEmpty();
+    }
+
+    @Test
+    public void notifyModelChanged_withAHandleAndPosition_notifiesThatPosition() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(0, "a"));
+        Section section = new Section();
+        section.add(new Item(1, "a"));
+        section.add(new Item(2, "a"));
+        AddResult addResult = mAdapter.add(section);
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        assertThat(mAdapter.notifyModelChanged(addResult.getHandle(), 1, "likes")).isTrue();
+        assertThat(mAdapter.notifyModelChanged(addResult.getHandle(), 2, "likes")).isFalse();
+
+        assertThat(observer.mEvents).containsExactly("changed 2 1 likes");
+
+        mAdapter.remove(addResult.getHandle());
+
+        assertThat(mAdapter.notifyModelChanged(addResult.getHandle(), 0, "likes")).isFalse();
+    }
+
+    @Test
+    public void notifyModelChanged_duringABatch_mergesOnlyChangesWithTheSamePayload() {
+        mAdapter.register(TestItemPresenter.class);
+
+        Item[] items = new Item[4];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item(i, "a");
+            mAdapter.add(items[i]);
+        }
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.beginBatch();
+        mAdapter.notifyModelChanged(items[0], "likes");
+        mAdapter.notifyModelChanged(items[1], "likes");
+        mAdapter.notifyModelChanged(items[2], "title");
+        mAdapter.notifyModelChanged(items[3], null);
+        assertThat(observer.mEvents).isEmpty();
+        mAdapter.commit();
+
+        assertThat(observer.mEvents).containsExactly("changed 0 2 likes", "changed 2 1 title", "changed 3 1");
+    }
+
+    @Test
+    public void bindView_withAPreparingPresenter_presentsThePreparedModel() {
+        mAdapter.register(TestPreparingPresenter.class);
+
+        Item item = new Item(1, "text");
+        mAdapter.add(item);
+
+        TestPreparingPresenter presenter = (TestPreparingPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+
+        assertThat(presenter.mPrepared).isEqualTo("TEXT");
+        assertThat(presenter.mPrepareCount).isEqualTo(1);
+    }
+
+    @Test
+    public void bindView_withAPreparingPresenter_reusesThePreparationUntilTheModelChanges() {
+        mAdapter.register(TestPreparingPresenter.class);
+
+        Item item = new Item(1, "text");
+        mAdapter.add(item);
+
+        TestPreparingPresenter presenter = (TestPreparingPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+
+        assertThat(presenter.mPrepareCount).isEqualTo(1);
+
+        mAdapter.notifyItemChanged(0);
+        mAdapter.bindViewHolder(presenter, 0);
+
+        assertThat(presenter.mPrepareCount).isEqualTo(2);
+    }
+
+    @Test
+    public void bindView_withAPreparingPresenterAndNoPrepareDistance_keepsNoPreparation() {
+        mAdapter.register(TestPreparingPresenter.class);
+        mAdapter.setPrepareDistance(0);
+        mAdapter.add(new Item(1, "text"), "ITEM");
+
+        TestPreparingPresenter presenter = (TestPreparingPresenter) mAdapter.createViewHolder(mRecyclerView, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+        mAdapter.bindViewHolder(presenter, 0);
+        WeakReference<Object> model = new WeakReference<>(mAdapter.get(0));
+        mAdapter.remove("ITEM");
+
+        assertThat(presenter.mPrepared).isEqualTo("TEXT");
+        assertThat(presenter.mPrepareCount).isEqualTo(2);
+        assertThat(isCollected(model)).isTrue();
+    }
+
+    @Test
+    public void clearSection_whenNotifyDataSetChanged_shouldClearSectionInAdapter() {
+        mAdapter.register(TestPresenter1.class);
+
+        Section section = new Section();
+        section.add(new Model1());
+
+        mAdapter.add(section);
+        mAdapter.notifyDataSetChanged();
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(1);
+
+        section.clearSection();
+        mAdapter.notifyDataSetChanged();
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void add_whenClassNotRegistered_throwsIllegalStateException() {
+        mAdapter.add(new Object());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void createViewHolder_whenNotRegistered_throwsRuntimeException() {
+        Presenter presenter = mAdapter.createViewHolder(mRecyclerView, 0);
+
+        assertThat(presenter).isInstanceOf(TestPresenter1.class);
+    }
+
+    public void get_whenSectionIndexIsExceeded_throwsIndexOutOfBoundsException() {
+        mAdapter.register(TestPresenter1.class);
+
+        mAdapter.add(new Model1(), "TAG");
+
+        @SuppressWarnings("ConstantConditions")
+        Object model = mAdapter.get("TAG").getModel(1);
+        assertThat(model).isNull();
+    }
+
+    public void get_whenAdapterPositionExceeded_returnsNull() {
+        Object model = mAdapter.get(0);
+        assertThat(model).isNull();
+    }
+
+    public void remove_whenSectionTagDoesntExist_returnsNull() {
+        Section section = mAdapter.remove("TAG");
+        assertThat(section).isNull();
+    }
+
+    @Test
+    public void getItemViewType_whenOnlyASuperclassIsRegistered_usesThePresenterOfTheSuperclass() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestPresenter2.class);
+
+        mAdapter.add(new Model1Child());
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(0);
+    }
+
+    @Test
+    public void getItemViewType_whenTheClassAndASuperclassAreRegistered_usesThePresenterOfTheClass() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(new Model1Child());
+
+        mAdapter.register(TestChildPresenter.class);
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void getItemViewType_whenAnInterfaceIsRegistered_usesThePresenterOfTheInterface() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestNamedPresenter.class);
+
+        mAdapter.add(new NamedModel());
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void addBefore_insertsTheSectionBeforeTheTaggedSection() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(0, "a"), "FIRST");
+        mAdapter.add(new Item(3, "a"), "LAST");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        Section section = new Section();
+        section.add(new Item(1, "a"));
+        section.add(new Item(2, "a"));
+        AddResult result = mAdapter.addBefore("LAST", section, "MIDDLE");
+
+        assertThat(result.getTag()).isEqualTo("MIDDLE");
+        assertThat(mAdapter.get("MIDDLE")).isSameAs(section);
+        assertThat(observer.mEvents).containsExactly("inserted 1 2");
+        assertThat(snapshot()).containsExactly(new Item(0, "a"), new Item(1, "a"), new Item(2, "a"), new Item(3, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void addAfter_insertsTheSectionAfterTheTaggedSection() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(0, "a"), "FIRST");
+        mAdapter.add(new Item(2, "a"), "LAST");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        Section section = new Section();
+        section.add(new Item(1, "a"));
+        mAdapter.addAfter("FIRST", section, null);
+
+        assertThat(observer.mEvents).containsExactly("inserted 1 1");
+        assertThat(snapshot()).containsExactly(new Item(0, "a"), new Item(1, "a"), new Item(2, "a"));
+        assertThat(mAdapter.get(2)).isEqualTo(new Item(2, "a"));
+    }
+
+    @Test
+    public void indexOf_returnsTheIndexOfTheTaggedSection() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(0, "a"));
+        mAdapter.add(new Item(1, "a"), "TAG");
+
+        assertThat(mAdapter.indexOf("TAG")).isEqualTo(1);
+        assertThat(mAdapter.indexOf("MISSING")).isEqualTo(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addBefore_withAnUnknownTag_throwsException() {
+        mAdapter.register(TestItemPresenter.class);
+
+        mAdapter.addBefore("MISSING", new Section(), "NEW");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addAfter_withANewTagInUse_throwsException() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(0, "a"), "FIRST");
+
+        mAdapter.addAfter("FIRST", new Section(), "FIRST");
+    }
+
+    @Test
+    public void moveSection_notifiesOnlyMovesOfTheSmallerSide() {
+        mAdapter.register(TestItemPresenter.class);
+        Random random = new Random(7);
+        int id = 0;
+        for (int tag = 0; tag < 6; tag++) {
+            Section section = new Section();
+            int size = random.nextInt(5);
+            for (int i = 0; i < size; i++) {
+                section.add(new Item(id++, "a"));
+            }
+            mAdapter.add(section, "TAG" + tag);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            String tag = "TAG" + random.nextInt(6);
+            int toIndex = random.nextInt(6);
+            List<Object> before = snapshot();
+            RecordingObserver observer = new RecordingObserver(new ArrayList<>(before));
+            mAdapter.registerAdapterDataObserver(observer);
+
+            mAdapter.moveSection(tag, toIndex);
+
+            mAdapter.unregisterAdapterDataObserver(observer);
+            assertThat(mAdapter.indexOf(tag)).isEqualTo(toIndex);
+            assertThat(observer.mItems).isEqualTo(snapshot());
+            int moved = mAdapter.get(tag).totalSize();
+            assertThat(observer.mEvents.size()).isLessThanOrEqualTo(Math.min(moved, before.size() - moved));
+            for (String event : observer.mEvents) {
+                assertThat(event).startsWith("moved");
+            }
+        }
+    }
+
+    @Test
+    public void typedSection_isVerifiedAndTypedWithoutLookingUpItsModels() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestHeaderPresenter.class);
+
+        final int[] lookups = new int[1];
+        TypedSection<Item> section = new TypedSection<Item>(Item.class, new Header()) {
+            @Override
+            public Object getModel(int position) {
+                lookups[0]++;
+                return super.getModel(position);
+            }
+        };
+        for (int i = 0; i < 1000; i++) {
+            section.add(new Item(i, "a"));
+        }
+        mAdapter.add(new Item(-1, "a"));
+        mAdapter.add(section, "TAG");
+        lookups[0] = 0;
+
+        assertThat(mAdapter.getItemViewType(0)).isEqualTo(0);
+        assertThat(mAdapter.getItemViewType(1)).isEqualTo(1);
+        assertThat(lookups[0]).isEqualTo(1);
+        for (int position = 2; position < mAdapter.getItemCount(); position++) {
+            assertThat(mAdapter.getItemViewType(position)).isEqualTo(0);
+        }
+        section.addAll(0, Arrays.asList(new Item(1000, "a"), new Item(1001, "a")));
+
+        assertThat(lookups[0]).isEqualTo(1);
+        assertThat(section.get(0)).isEqualTo(new Item(1000, "a"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void add_withATypedSectionOfAnUnregisteredClass_throwsException() {
+        TypedSection<Item> section = new TypedSection<>(Item.class);
+        section.add(new Item(0, "a"));
+
+        mAdapter.add(section);
+    }
+
+    @Test
+    public void add_withAnEmptyTypedSectionOfAnUnregisteredClass_addsTheSection() {
+        mAdapter.add(new TypedSection<>(Item.class));
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void typedSection_add_withAnotherClass_throwsException() {
+        new TypedSection<>(Model1.class).add(new Model2());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void typedSection_add_withASubclass_throwsException() {
+        new TypedSection<>(Model1.class).add(new Model1Child());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void typedSection_getModelsSet_withAnotherClass_throwsException() {
+        TypedSection<Model1> section = new TypedSection<>(Model1.class);
+        section.add(new Model1());
+
+        section.getModels().set(0, new Model2());
+    }
+
+    @Test
+    public void addAll_onASectionInTheAdapter_notifiesOneOffsetInsertion() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        Item first = new Item(10, "a");
+        Item second = new Item(11, "a");
+        section.addAll(1, Arrays.asList(first, second));
+
+        assertThat(observer.mEvents).containsExactly("inserted 3 2");
+        assertThat(mAdapter.getItemCount()).isEqualTo(8);
+        assertThat(mAdapter.get(3)).isSameAs(first);
+        assertThat(mAdapter.get(4)).isSameAs(second);
+        assertThat(mAdapter.get(7)).isEqualTo(new Item(4, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addAll_onASectionInTheAdapter_withAnUnregisteredModel_throwsException() {
+        Section section = addSectionBetweenItems();
+
+        section.addAll(0, Arrays.asList(new Model2()));
+    }
+
+    @Test
+    public void addAll_onASectionInTheAdapter_withAnUnregisteredModel_leavesTheSectionUnchanged() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        try {
+            section.addAll(0, Arrays.asList(new Item(10, "a"), new Model2()));
+        } catch (IllegalStateException expected) { }
+
+        assertThat(section.size()).isEqualTo(3);
+        assertThat(mAdapter.getItemCount()).isEqualTo(6);
+        assertThat(observer.mEvents).isEmpty();
+    }
+
+    @Test
+    public void removeRange_onASectionInTheAdapter_notifiesOneOffsetRemoval() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        section.removeRange(1, 3);
+
+        assertThat(observer.mEvents).containsExactly("removed 3 2");
+        assertThat(mAdapter.getItemCount()).isEqualTo(4);
+        assertThat(mAdapter.get(2)).isEqualTo(new Item(1, "a"));
+        assertThat(mAdapter.get(3)).isEqualTo(new Item(4, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void move_onASectionInTheAdapter_notifiesOneOffsetMove() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        section.move(0, 2);
+
+        assertThat(observer.mEvents).containsExactly("moved 2 4");
+        assertThat(section.getModels()).containsExactly(new Item(2, "a"), new Item(3, "a"), new Item(1, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void replaceRange_onASectionInTheAdapter_notifiesOneOffsetChange() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        section.replaceRange(1, Arrays.asList(new Item(20, "a"), new Item(21, "a")));
+
+        assertThat(observer.mEvents).containsExactly("changed 3 2");
+        assertThat(section.getModels()).containsExactly(new Item(1, "a"), new Item(20, "a"), new Item(21, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void replaceRange_onASectionInTheAdapter_withAnUnregisteredModel_leavesTheSectionUnchanged() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        try {
+            section.replaceRange(0, Arrays.asList(new Item(10, "a"), new Model2()));
+        } catch (IllegalStateException expected) { }
+
+        assertThat(section.getModels()).containsExactly(new Item(1, "a"), new Item(2, "a"), new Item(3, "a"));
+        assertThat(observer.mEvents).isEmpty();
+    }
+
+    @Test
+    public void rangeOperations_duringABatch_areNotifiedOnCommit() {
+        Section section = addSectionBetweenItems();
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.beginBatch();
+        section.removeRange(0, 3);
+        section.addAll(0, Arrays.asList(new Item(20, "a")));
+        assertThat(observer.mEvents).isEmpty();
+        mAdapter.commit();
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(4);
+        assertThat(mAdapter.get(2)).isEqualTo(new Item(20, "a"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void rangeOperations_onASectionOutsideAnAdapter_changeTheModels() {
+        Section section = new Section(new Header());
+        section.addAll(0, Arrays.asList(new Item(1, "a"), new Item(2, "a"), new Item(3, "a"), new Item(4, "a")));
+        section.removeRange(1, 2);
+        section.move(2, 0);
+        section.replaceRange(2, Arrays.asList(new Item(5, "a")));
+
+        assertThat(section.totalSize()).isEqualTo(4);
+        assertThat(section.getModels()).containsExactly(new Item(4, "a"), new Item(1, "a"), new Item(5, "a"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void replaceRange_pastTheEnd_throwsException() {
+        Section section = new Section();
+        section.add(new Item(1, "a"));
+
+        section.replaceRange(0, Arrays.asList(new Item(2, "a"), new Item(3, "a")));
+    }
+
+    @Test
+    public void section_afterRandomMutations_matchesAList() {
+        Random random = new Random(42);
+        Section section = new Section();
+        List<Object> expected = new ArrayList<>();
+        Object header = null;
+
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || expected.isEmpty()) {
+                Item item = new Item(i, "a");
+                int position = random.nextInt(expected.size() + 1);
+                section.add(item, position);
+                expected.add(position, item);
+            } else if (operation < 8) {
+                int position = random.nextInt(expected.size());
+                assertThat(section.remove(header != null ? position + 1 : position)).isEqualTo(expected.remove(position));
+            } else if (operation == 8) {
+                header = new Header();
+                section.setHeader(header);
+            } else {
+                assertThat(section.clearHeader()).isEqualTo(header);
+                header = null;
+            }
+        }
+
+        assertThat(section.getHeader()).isEqualTo(header);
+        assertThat(section.size()).isEqualTo(expected.size());
+        assertThat(section.totalSize()).isEqualTo(header != null ? expected.size() + 1 : expected.size());
+        assertThat(section.getModels()).isEqualTo(expected);
+        int offset = header != null ? 1 : 0;
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(section.getModel(i + offset)).isSameAs(expected.get(i));
+        }
+        assertThat(section.getModels()).isSameAs(section.getModels());
+    }
+
+    @Test
+    public void section_afterManyInsertionsAtTheFront_keepsTheModelsInOrder() {
+        Section section = new Section();
+        List<Object> expected = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            Item item = new Item(i, "a");
+            section.add(item, 0);
+            expected.add(item);
+        }
+        Collections.reverse(expected);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(section.remove(0)).isSameAs(expected.remove(0));
+        }
+
+        assertThat(section.size()).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(section.getModel(i)).isSameAs(expected.get(i));
+        }
+    }
+
+    @Test
+    public void sectionSnapshot_holdsTheHeaderAndModelsOfItsBuilder() {
+        Header header = new Header();
+        Item first = new Item(1, "a");
+        Item second = new Item(2, "b");
+
+        SectionSnapshot snapshot = new SectionSnapshot.Builder()
+                .add(second)
+                .add(first, 0)
+                .setHeader(header)
+                .build();
+
+        assertThat(snapshot.hasHeader()).isTrue();
+        assertThat(snapshot.getHeader()).isSameAs(header);
+        assertThat(snapshot.totalSize()).isEqualTo(3);
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.getModel(0)).isSameAs(header);
+        assertThat(snapshot.getModel(1)).isSameAs(first);
+        assertThat(snapshot.getModel(3)).isNull();
+        assertThat(snapshot.getModels()).containsExactly(first, second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sectionSnapshot_add_throwsException() {
+        new SectionSnapshot.Builder().build().add(new Item(1, "a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sectionSnapshot_setHeader_throwsException() {
+        new SectionSnapshot.Builder().build().setHeader(new Header());
+    }
+
+    @Test
+    public void sectionSnapshot_afterRandomBuilderChanges_keepsTheModelsItWasBuiltWith() {
+        Random random = new Random(42);
+        SectionSnapshot.Builder builder = new SectionSnapshot.Builder();
+        List<Object> expected = new ArrayList<>();
+        List<SectionSnapshot> snapshots = new ArrayList<>();
+        List<List<Object>> expectedSnapshots = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || expected.isEmpty()) {
+                Item item = new Item(i, "a");
+                int position = random.nextInt(expected.size() + 1);
+                builder.add(item, position);
+                expected.add(position, item);
+            } else if (operation < 6) {
+                int position = random.nextInt(expected.size());
+                builder.remove(position);
+                expected.remove(position);
+            } else if (operation < 8) {
+                Item item = new Item(i, "b");
+                int position = random.nextInt(expected.size());
+                builder.set(position, item);
+                expected.set(position, item);
+            } else if (operation == 8) {
+                snapshots.add(builder.build());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            } else {
+                builder = builder.build().toBuilder();
+            }
+        }
+        snapshots.add(builder.build());
+        expectedSnapshots.add(expected);
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertThat(snapshots.get(i).getModels()).isEqualTo(expectedSnapshots.get(i));
+        }
+    }
+
+    @Test
+    public void add_withADerivedSnapshot_notifiesOnlyTheChunksWhichChanged() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestHeaderPresenter.class);
+        mAdapter.add(new Item(-1, "before"));
+
+        SectionSnapshot.Builder builder = new SectionSnapshot.Builder().setHeader(new Header());
+        for (int i = 0; i < 1000; i++) {
+            builder.add(new Item(i, "a"));
+        }
+        SectionSnapshot snapshot = builder.build();
+        mAdapter.add(snapshot, "TAG");
+        mAdapter.add(new Item(-2, "after"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        AddResult result = mAdapter.add(snapshot.toBuilder()
+                .set(500, new Item(500, "b"))
+                .add(new Item(1000, "a"), 600)
+                .remove(601)
+                .build(), "TAG");
+
+        assertThat(result.wasReplaced()).isTrue();
+        assertThat(observer.mDataSetChanged).isFalse();
+        observer.assertMatches(snapshot());
+        assertThat(observer.mMinPosition).isGreaterThan(400);
+        assertThat(observer.mMaxPosition).isLessThan(700);
+    }
+
+    @Test
+    public void add_withAnUnrelatedSnapshot_notifiesEveryItem() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new SectionSnapshot.Builder().add(new Item(1, "a")).add(new Item(2, "a")).build(), "TAG");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.add(new SectionSnapshot.Builder().add(new Item(1, "a")).build(), "TAG");
+
+        assertThat(observer.mEvents).containsExactly("changed 0 1", "removed 1 1");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void add_withADerivedSnapshotOfAnUnregisteredModel_throwsException() {
+        mAdapter.register(TestItemPresenter.class);
+        SectionSnapshot snapshot = new SectionSnapshot.Builder().add(new Item(1, "a")).build();
+        mAdapter.add(snapshot, "TAG");
+
+        mAdapter.add(snapshot.toBuilder().add(new Model1()).build(), "TAG");
+    }
+
+    @Test
+    public void get_afterRandomMutations_matchesALinearScanOfTheSections() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestHeaderPresenter.class);
+
+        Map<String, Section> sections = new LinkedHashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            String tag = "TAG" + random.nextInt(20);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    Section section = random.nextBoolean() ? new Section(new Header()) : new Section();
+                    int size = random.nextInt(5);
+                    for (int j = 0; j < size; j++) {
+                        section.add(new Model1());
+                    }
+                    mAdapter.add(section, tag);
+                    sections.put(tag, section);
+                    break;
+                case 2:
+                    assertThat(mAdapter.remove(tag)).isEqualTo(sections.remove(tag));
+                    break;
+                case 3:
+                    int count = linearCount(sections);
+                    if (count > 0) {
+                        int position = random.nextInt(count);
+                        Object model = linearGet(sections, position);
+                        assertThat(mAdapter.remove(position)).isEqualTo(model);
+                    }
+                    break;
+                case 4:
+                    Section existing = sections.get(tag);
+                    if (existing != null) {
+                        existing.add(new Model1());
+                        if (random.nextBoolean()) {
+                            mAdapter.notifyDataSetChanged();
+                        } else {
+                            int end = 0;
+                            for (Section value : sections.values()) {
+                                end += value.totalSize();
+                                if (value == existing) {
+                                    break;
+                                }
+                            }
+                            mAdapter.notifyItemInserted(end - 1);
+                        }
+                    }
+                    break;
+                default:
+                    if (random.nextInt(10) == 0) {
+                        mAdapter.clear(true);
+                        sections.clear();
+                    }
+                    break;
+            }
+
+            int count = linearCount(sections);
+            assertThat(mAdapter.getItemCount()).isEqualTo(count);
+            for (int position = -1; position <= count; position++) {
+                assertThat(mAdapter.get(position)).isEqualTo(linearGet(sections, position));
+            }
+        }
+    }
+
+    @Test
+    public void add_withDiffCallback_dispatchesOnlyTheChangesWithinTheSection() {
+        useSchedulers(Schedulers.trampoline());
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestHeaderPresenter.class);
+
+        Section first = new Section();
+        first.add(new Model1());
+        first.add(new Model1());
+        mAdapter.add(first, "FIRST");
+
+        Section old = new Section(new Header());
+        for (int id = 0; id < 6; id++) {
+            old.add(new Item(id, "v1"));
+        }
+        mAdapter.add(old, "TAG");
+
+        Section last = new Section();
+        last.add(new Model1());
+        mAdapter.add(last, "LAST");
+
+        Section replacement = new Section(old.getModel(0));
+        replacement.add(new Item(4, "v1"));
+        replacement.add(new Item(1, "v1"));
+        replacement.add(new Item(2, "v2"));
+        replacement.add(new Item(3, "v1"));
+        replacement.add(new Item(6, "v1"));
+        replacement.add(new Item(0, "v1"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        AddResult result = mAdapter.add(replacement, "TAG", ITEM_DIFF);
+
+        assertThat(result.wasReplaced()).isTrue();
+        assertThat(mAdapter.get("TAG")).isSameAs(replacement);
+        assertThat(observer.mDataSetChanged).isFalse();
+        observer.assertMatches(snapshot());
+        assertThat(observer.mChanged).containsOnly(5);
+        assertThat(observer.mMinPosition).isGreaterThanOrEqualTo(3);
+        assertThat(observer.mMaxPosition).isLessThan(10);
+    }
+
+    @Test
+    public void add_withDiffCallback_whenNoSectionHasTheTag_addsTheSection() {
+        mAdapter.register(TestItemPresenter.class);
+
+        Section section = new Section();
+        section.add(new Item(0, "v1"));
+
+        AddResult result = mAdapter.add(section, "TAG", ITEM_DIFF);
+
+        assertThat(result.wasReplaced()).isFalse();
+        assertThat(mAdapter.get("TAG")).isSameAs(section);
+    }
+
+    @Test
+    public void add_withDiffCallback_whenReplacedAgainBeforeTheDiffFinishes_discardsTheStaleDiff() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+
+        Section old = new Section();
+        old.add(new Item(0, "v1"));
+        old.add(new Item(1, "v1"));
+        mAdapter.add(old, "TAG");
+
+        Section stale = new Section();
+        stale.add(new Item(0, "v1"));
+        Section current = new Section();
+        current.add(new Item(1, "v2"));
+        current.add(new Item(2, "v1"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.add(stale, "TAG", ITEM_DIFF);
+        mAdapter.add(current, "TAG", ITEM_DIFF);
+        assertThat(mAdapter.get("TAG")).isSameAs(old);
+
+        scheduler.triggerActions();
+
+        assertThat(mAdapter.get("TAG")).isSameAs(current);
+        observer.assertMatches(snapshot());
+        assertThat(observer.mChanged).containsOnly(0);
+    }
+
+    @Test
+    public void bind_addsTheFirstListThenNotifiesOnlyTheChangesOfEachList() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new Item(100, "v1"));
+
+        PublishProcessor<List<Item>> models = PublishProcessor.create();
+        mAdapter.bind("TAG", models, ITEM_DIFF);
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(1, "v1"), new Item(2, "v1")));
+        scheduler.triggerActions();
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(4);
+        assertThat(mAdapter.get(3)).isEqualTo(new Item(2, "v1"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(1, "v2"), new Item(2, "v1"), new Item(3, "v1")));
+        scheduler.triggerActions();
+
+        assertThat(observer.mDataSetChanged).isFalse();
+        observer.assertMatches(snapshot());
+        assertThat(observer.mChanged).containsOnly(2);
+        assertThat(observer.mEvents).containsOnly("changed 2 1", "inserted 4 1");
+    }
+
+    @Test
+    public void bind_whenListsArriveDuringADiff_dropsAllButTheLatest() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+
+        final List<Object> compared = new ArrayList<>();
+        DiffCallback recordingDiff = new DiffCallback() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+                compared.add(newModel);
+                return ITEM_DIFF.areItemsTheSame(oldModel, newModel);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+                return ITEM_DIFF.areContentsTheSame(oldModel, newModel);
+            }
+        };
+
+        PublishProcessor<List<Item>> models = PublishProcessor.create();
+        mAdapter.bind("TAG", models, recordingDiff);
+        models.onNext(Collections.singletonList(new Item(0, "v1")));
+        scheduler.triggerActions();
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(1, "v1")));
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(99, "v1")));
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(1, "v1"), new Item(2, "v1")));
+        scheduler.triggerActions();
+
+        assertThat(compared).doesNotContain(new Item(99, "v1"));
+        assertThat(mAdapter.get("TAG").getModels())
+                .containsExactly(new Item(0, "v1"), new Item(1, "v1"), new Item(2, "v1"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void bind_whenTheSectionIsChangedByOtherMeans_replacesItWithTheNextList() {
+        useSchedulers(Schedulers.trampoline());
+        mAdapter.register(TestItemPresenter.class);
+
+        PublishProcessor<List<Item>> models = PublishProcessor.create();
+        mAdapter.bind("TAG", models, ITEM_DIFF);
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(1, "v1")));
+        mAdapter.get("TAG").add(new Item(5, "v1"));
+        mAdapter.notifyItemInserted(2);
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        models.onNext(Arrays.asList(new Item(0, "v1"), new Item(2, "v1")));
+
+        assertThat(mAdapter.get("TAG").getModels()).containsExactly(new Item(0, "v1"), new Item(2, "v1"));
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void bind_whenTheAdapterIsDetached_disposesTheBinding() {
+        useSchedulers(Schedulers.trampoline());
+        mAdapter.register(TestItemPresenter.class);
+
+        PublishProcessor<List<Item>> models = PublishProcessor.create();
+        Disposable binding = mAdapter.bind("TAG", models);
+        models.onNext(Collections.singletonList(new Item(0, "v1")));
+
+        mRecyclerView.setAdapter(null);
+
+        assertThat(binding.isDisposed()).isTrue();
+        assertThat(models.hasSubscribers()).isFalse();
+        assertThat(mAdapter.getItemCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void bind_whenTheTagIsBoundAgain_disposesThePreviousBinding() {
+        useSchedulers(Schedulers.trampoline());
+        mAdapter.register(TestItemPresenter.class);
+
+        PublishProcessor<List<Item>> first = PublishProcessor.create();
+        PublishProcessor<List<Item>> second = PublishProcessor.create();
+        Disposable binding = mAdapter.bind("TAG", first);
+        mAdapter.bind("TAG", second);
+        second.onNext(Collections.singletonList(new Item(0, "v1")));
+
+        assertThat(binding.isDisposed()).isTrue();
+        assertThat(first.hasSubscribers()).isFalse();
+        assertThat(mAdapter.get("TAG").getModels()).containsExactly(new Item(0, "v1"));
+    }
+
+    @Test
+    public void bind_whenTheStreamFails_endsTheBindingAndKeepsTheLastList() {
+        useSchedulers(Schedulers.trampoline());
+        List<Throwable> errors = recordUndeliverableErrors();
+        mAdapter.register(TestItemPresenter.class);
+
+        PublishProcessor<List<Item>> models = PublishProcessor.create();
+        Disposable binding = mAdapter.bind("TAG", models);
+        models.onNext(Collections.singletonList(new Item(0, "v1")));
+        models.onError(new IllegalStateException("Failed to load"));
+
+        assertThat(errors).isEmpty();
+        assertThat(binding.isDisposed()).isTrue();
+        assertThat(mAdapter.get("TAG").getModels()).containsExactly(new Item(0, "v1"));
+    }
+
+    @Test
+    public void bind_withAnUnregisteredModel_endsTheBindingAndKeepsTheLastList() {
+        useSchedulers(Schedulers.trampoline());
+        List<Throwable> errors = recordUndeliverableErrors();
+        mAdapter.register(TestItemPresenter.class);
+
+        PublishProcessor<List<Object>> models = PublishProcessor.create();
+        Disposable binding = mAdapter.bind("TAG", models, ITEM_DIFF);
+        models.onNext(Collections.<Object>singletonList(new Item(0, "v1")));
+        models.onNext(Arrays.<Object>asList(new Item(0, "v1"), new Model2()));
+
+        assertThat(errors).isEmpty();
+        assertThat(binding.isDisposed()).isTrue();
+        assertThat(models.hasSubscribers()).isFalse();
+        assertThat(mAdapter.get("TAG").getModels()).containsExactly(new Item(0, "v1"));
+    }
+
+    @Test
+    public void add_withDiffCallback_whenTheSectionIsRemovedBeforeTheDiffFinishes_discardsTheDiff() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+
+        Section old = new Section();
+        old.add(new Item(0, "v1"));
+        mAdapter.add(old, "TAG");
+
+        Section replacement = new Section();
+        replacement.add(new Item(1, "v1"));
+        mAdapter.add(replacement, "TAG", ITEM_DIFF);
+        mAdapter.remove("TAG");
+
+        scheduler.triggerActions();
+
+        assertThat(mAdapter.get("TAG")).isNull();
+        assertThat(mAdapter.getItemCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void add_withDiffCallback_whenTheNewSectionChangesBeforeTheDiffFinishes_diffsAgain() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+
+        Section old = new Section();
+        old.add(new Item(0, "v1"));
+        mAdapter.add(old, "TAG");
+
+        Section replacement = new Section();
+        replacement.add(new Item(0, "v1"));
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.add(replacement, "TAG", ITEM_DIFF);
+        replacement.add(new Item(1, "v1"));
+
+        scheduler.triggerActions();
+
+        assertThat(mAdapter.get("TAG")).isSameAs(replacement);
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void add_withDiffCallback_whenModelsOfTheOldSectionAreReplacedBeforeTheDiffFinishes_diffsAgain() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+
+        Section old = new Section();
+        old.add(new Item(0, "v1"));
+        old.add(new Item(1, "v1"));
+        mAdapter.add(old, "TAG");
+
+        Section replacement = new Section();
+        replacement.add(new Item(0, "v1"));
+        replacement.add(new Item(1, "v1"));
+
+        mAdapter.add(replacement, "TAG", ITEM_DIFF);
+        old.replaceRange(1, Collections.singletonList(new Item(1, "v2")));
+        old.getModels().set(0, new Item(0, "v2"));
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        scheduler.triggerActions();
+
+        assertThat(mAdapter.get("TAG")).isSameAs(replacement);
+        assertThat(observer.mChanged).containsOnly(0, 1);
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void add_withDiffCallback_whenTheDiffFails_replacesTheWholeSection() {
+        useSchedulers(Schedulers.trampoline());
+        List<Throwable> errors = recordUndeliverableErrors();
+        mAdapter.register(TestItemPresenter.class);
+
+        Section old = new Section();
+        old.add(new Item(0, "v1"));
+        mAdapter.add(old, "TAG");
+
+        Section replacement = new Section();
+        replacement.add(new Item(0, "v2"));
+        replacement.add(new Item(1, "v1"));
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        mAdapter.add(replacement, "TAG", FAILING_DIFF);
+
+        assertThat(errors).isEmpty();
+        assertThat(mAdapter.get("TAG")).isSameAs(replacement);
+        assertThat(observer.mEvents).containsExactly("changed 0 1", "inserted 1 1");
+
+        Section next = new Section();
+        next.add(new Item(0, "v2"));
+        next.add(new Item(1, "v2"));
+        observer.mEvents.clear();
+        mAdapter.add(next, "TAG", ITEM_DIFF);
+
+        assertThat(mAdapter.get("TAG")).isSameAs(next);
+        assertThat(observer.mEvents).containsExactly("changed 1 1");
+    }
+
+    @Test
+    public void add_whenTheTagIsNew_notifiesTheInsertedRange() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(2), "A");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.add(sectionOf(3), "B");
+
+        assertThat(observer.mEvents).containsExactly("inserted 2 3");
+    }
+
+    @Test
+    public void add_whenASectionIsReplaced_notifiesTheChangedRangeAndTheDifference() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(2), "A");
+        mAdapter.add(sectionOf(2), "B");
+        mAdapter.add(sectionOf(1), "C");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.add(sectionOf(5), "B");
+        mAdapter.add(sectionOf(1), "B");
+
+        assertThat(observer.mEvents).containsExactly("changed 2 2", "inserted 4 3", "changed 2 1", "removed 3 4");
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void remove_byPosition_notifiesTheRemovedItem() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(3), "A");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.remove(1);
+
+        assertThat(observer.mEvents).containsExactly("removed 1 1");
+    }
+
+    @Test
+    public void batch_mergesAdjoiningInsertionsIntoOneNotification() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(1), "A");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.batch(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 20; i++) {
+                    mAdapter.add(sectionOf(i % 3 + 1), "TAG" + i);
+                }
+            }
+        });
+
+        assertThat(observer.mEvents).containsExactly("inserted 1 39");
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void batch_mergesAdjoiningRemovalsIntoOneNotification() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(2), "A");
+        mAdapter.add(sectionOf(1), "B");
+        mAdapter.add(sectionOf(3), "C");
+        mAdapter.add(sectionOf(1), "D");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.beginBatch();
+        mAdapter.remove("C");
+        mAdapter.remove("B");
+        mAdapter.remove(1);
+        mAdapter.commit();
+
+        assertThat(observer.mEvents).containsExactly("removed 1 5");
+        observer.assertMatches(snapshot());
+    }
+
+    @Test
+    public void batch_whenASectionIsAddedAndRemoved_notifiesNothing() {
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.add(sectionOf(2), "A");
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.beginBatch();
+        mAdapter.add(sectionOf(3), "B");
+        mAdapter.add(sectionOf(4), "B");
+        mAdapter.remove("B");
+        mAdapter.commit();
+
+        assertThat(observer.mEvents).isEmpty();
+    }
+
+    @Test
+    public void batch_whenNested_notifiesWhenTheOutermostBatchIsCommitted() {
+        mAdapter.register(TestPresenter1.class);
+
+        RecordingObserver observer = new RecordingObserver(snapshot());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.beginBatch();
+        mAdapter.add(sectionOf(1), "A");
+        mAdapter.beginBatch();
+        mAdapter.add(sectionOf(1), "B");
+        mAdapter.commit();
+
+        assertThat(observer.mEvents).isEmpty();
+
+        mAdapter.commit();
+
+        assertThat(observer.mEvents).containsExactly("inserted 0 2");
+    }
+
+    @Test
+    public void batch_afterRandomOperations_notifiesEveryChange() {
+        mAdapter.register(TestPresenter1.class);
+        Random random = new Random(7);
+        for (int i = 0; i < 10; i++) {
+            mAdapter.add(sectionOf(random.nextInt(4)), "TAG" + i);
+        }
+
+        for (int round = 0; round < 50; round++) {
+            RecordingObserver observer = new RecordingObserver(snapshot());
+            mAdapter.registerAdapterDataObserver(observer);
+            mAdapter.beginBatch();
+            for (int i = 0; i < 10; i++) {
+                String tag = "TAG" + random.nextInt(15);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        mAdapter.add(sectionOf(random.nextInt(4)), tag);
+                        break;
+                    case 1:
+                        mAdapter.remove(tag);
+                        break;
+                    default:
+                        mAdapter.remove(random.nextInt(mAdapter.getItemCount() + 1));
+                        break;
+                }
+            }
+            mAdapter.commit();
+            mAdapter.unregisterAdapterDataObserver(observer);
+
+            assertThat(observer.mDataSetChanged).isFalse();
+            observer.assertMatches(snapshot());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void commit_withoutABatch_throwsException() {
+        mAdapter.commit();
+    }
+
+    @Test
+    public void relay_deliversEventsOnlyToObserversOfTheModelClassAndAction() {
+        UniversalRelay relay = new UniversalRelay();
+        TestObserver<Model1> clicks = relay.getObservable(Model1.class, "click").test();
+        TestObserver<Model1> otherClicks = relay.getObservable(Model1.class, "click").test();
+        TestObserver<Model1> longClicks = relay.getObservable(Model1.class, "longClick").test();
+        TestObserver<Model2> model2Clicks = relay.getObservable(Model2.class, "click").test();
+
+        Model1 model = new Model1();
+        relay.accept(model, "click");
+        relay.accept(new Model1Child(), "click");
+        relay.accept(new Model1(), "unobserved");
+
+        clicks.assertValues(model);
+        otherClicks.assertValues(model);
+        longClicks.assertNoValues();
+        model2Clicks.assertNoValues();
+    }
+
+    @Test
+    public void relay_whenAnObserverIsDisposed_stopsDeliveringToIt() {
+        UniversalRelay relay = new UniversalRelay();
+        TestObserver<Model1> first = relay.getObservable(Model1.class, "click").test();
+        TestObserver<Model1> second = relay.getObservable(Model1.class, "click").test();
+
+        first.dispose();
+        Model1 model = new Model1();
+        relay.accept(model, "click");
+
+        first.assertNoValues();
+        second.assertValues(model);
+    }
+
+    @Test
+    public void relay_withAPerFramePolicy_deliversTheEventsOfAFrameAsOneBatch() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("impression", DeliveryPolicy.perFrame(10));
+        TestObserver<Item> impressions = relay.getObservable(Item.class, "impression").test();
+        TestObserver<List<Item>> batches = relay.getBatchObservable(Item.class, "impression").test();
+        TestObserver<Item> clicks = relay.getObservable(Item.class, "click").test();
+
+        relay.accept(new Item(1, "a"), "impression");
+        relay.accept(new Item(2, "b"), "impression");
+        relay.accept(new Item(3, "c"), "click");
+
+        impressions.assertNoValues();
+        batches.assertNoValues();
+        clicks.assertValues(new Item(3, "c"));
+
+        scheduler.triggerActions();
+
+        impressions.assertValues(new Item(1, "a"), new Item(2, "b"));
+        batches.assertValues(Arrays.asList(new Item(1, "a"), new Item(2, "b")));
+
+        relay.accept(new Item(4, "d"), "impression");
+        scheduler.triggerActions();
+
+        batches.assertValueCount(2);
+        assertThat(batches.values().get(1)).containsExactly(new Item(4, "d"));
+    }
+
+    @Test
+    public void relay_withACoalescedPolicy_deliversTheLatestEventPerKeyInFirstEmittedOrder() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("progress", DeliveryPolicy.coalesced(new KeyExtractor<Item>() {
+            @NonNull
+            @Override
+            public Object keyOf(@NonNull Item model) {
+                return model.mId;
+            }
+        }, 2));
+        TestObserver<List<Item>> batches = relay.getBatchObservable(Item.class, "progress").test();
+
+        relay.accept(new Item(1, "10%"), "progress");
+        relay.accept(new Item(2, "10%"), "progress");
+        relay.accept(new Item(1, "50%"), "progress");
+        relay.accept(new Item(2, "90%"), "progress");
+        scheduler.triggerActions();
+
+        batches.assertValues(Arrays.asList(new Item(1, "50%"), new Item(2, "90%")));
+        assertThat(relay.getDroppedEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void relay_whenTheBufferIsFull_dropsAndCountsTheEvents() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("impression", DeliveryPolicy.perFrame(2));
+        TestObserver<List<Item>> batches = relay.getBatchObservable(Item.class, "impression").test();
+
+        for (int i = 0; i < 5; i++) {
+            relay.accept(new Item(i, "a"), "impression");
+        }
+        scheduler.triggerActions();
+
+        batches.assertValues(Arrays.asList(new Item(0, "a"), new Item(1, "a")));
+        assertThat(relay.getDroppedEventCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void relay_withASchedulerPolicy_deliversTheEventsOnTheScheduler() {
+        TestScheduler mainThread = new TestScheduler();
+        useSchedulers(mainThread);
+        TestScheduler background = new TestScheduler();
+        UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("log", DeliveryPolicy.on(background, 10));
+        TestObserver<Item> logs = relay.getObservable(Item.class, "log").test();
+
+        relay.accept(new Item(1, "a"), "log");
+        mainThread.triggerActions();
+
+        logs.assertNoValues();
+
+        background.triggerActions();
+
+        logs.assertValues(new Item(1, "a"));
+    }
+
+    @Test
+    public void relay_withASchedulerPolicy_deliversTheEventsBufferedDuringABatchAfterIt() {
+        final UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("log", DeliveryPolicy.on(Schedulers.trampoline(), 10));
+        final List<String> deliveries = new ArrayList<>();
+        relay.getBatchObservable(Item.class, "log").subscribe(new Consumer<List<Item>>() {
+            @Override
+            public void accept(List<Item> batch) throws Exception {
+                deliveries.add("start " + batch.get(0).mId);
+                if (batch.get(0).mId == 1) {
+                    relay.accept(new Item(2, "a"), "log");
+                }
+                deliveries.add("end " + batch.get(0).mId);
+            }
+        });
+
+        relay.accept(new Item(1, "a"), "log");
+
+        assertThat(deliveries).containsExactly("start 1", "end 1", "start 2", "end 2");
+    }
+
+    @Test
+    public void relay_withoutAPolicy_deliversEveryEventAsABatchOfOne() {
+        UniversalRelay relay = new UniversalRelay();
+        relay.setDeliveryPolicy("click", DeliveryPolicy.perFrame(10));
+        relay.setDeliveryPolicy("click", DeliveryPolicy.IMMEDIATE);
+        TestObserver<List<Item>> batches = relay.getBatchObservable(Item.class, "click").test();
+
+        relay.accept(new Item(1, "a"), "click");
+
+        batches.assertValues(Collections.singletonList(new Item(1, "a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deliveryPolicy_withAnEmptyBuffer_throwsException() {
+        DeliveryPolicy.perFrame(0);
+    }
+
+    @Test
+    public void setImpressionTracking_emitsOneImpressionPerKeyOnceTheDwellTimeHasPassed() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.add(new KeyedItem(1, "a"));
+        mAdapter.add(new KeyedItem(2, "b"));
+        mAdapter.setImpressionTracking(0.5f, 1000);
+        TestObserver<KeyedItem> impressions =
+                mAdapter.getObservable(KeyedItem.class, UniversalAdapter.IMPRESSION).test();
+
+        layout(mRecyclerView);
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+
+        impressions.assertNoValues();
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        impressions.assertValues(new KeyedItem(1, "a"), new KeyedItem(2, "b"));
+
+        mAdapter.add(new KeyedItem(1, "a"), "REBOUND");
+        layout(mRecyclerView);
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        impressions.assertValueCount(2);
+
+        mAdapter.clearImpressions();
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+
+        impressions.assertValueCount(4);
+    }
+
+    @Test
+    public void setImpressionTracking_whenAPageArrivesOverPlaceholders_waitsTheDwellTimeOfTheLoadedModels() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.add(new PagedSection(2, 2, new RecordingPageLoader()));
+        mAdapter.setImpressionTracking(0.5f, 1000);
+        TestObserver<Item> impressions = mAdapter.getObservable(Item.class, UniversalAdapter.IMPRESSION).test();
+        TestObserver<PagedSection.Placeholder> placeholderImpressions =
+                mAdapter.getObservable(PagedSection.Placeholder.class, UniversalAdapter.IMPRESSION).test();
+
+        layout(mRecyclerView);
+        scheduler.advanceTimeBy(600, TimeUnit.MILLISECONDS);
+        layout(mRecyclerView);
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+
+        impressions.assertNoValues();
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        impressions.assertValues(new Item(0, "loaded"), new Item(1, "loaded"));
+        placeholderImpressions.assertNoValues();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setImpressionTracking_withAFractionAboveOne_throwsException() {
+        mAdapter.setImpressionTracking(1.5f, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setImpressionTracking_withANegativeDwellTime_throwsException() {
+        mAdapter.setImpressionTracking(0.5f, -1);
+    }
+
+    @Test
+    public void pagedSection_whenAPositionIsRequested_loadsItsPageAndNotifiesTheRange() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestPresenter1.class);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestHeaderPresenter.class);
+        mAdapter.add(sectionOf(2), "FIRST");
+
+        RecordingPageLoader loader = new RecordingPageLoader();
+        PagedSection section = new PagedSection(95, 10, loader);
+        section.setHeader(new Header());
+        section.setPrefetchDistance(5);
+        mAdapter.add(section, "PAGED");
+
+        // Getting every model for a snapshot would load every page.
+        RecordingObserver observer = new RecordingObserver(placeholders());
+        mAdapter.registerAdapterDataObserver(observer);
+
+        assertThat(mAdapter.getItemCount()).isEqualTo(98);
+        assertThat(mAdapter.get(3 + 17)).isSameAs(PagedSection.PLACEHOLDER);
+
+        scheduler.triggerActions();
+
+        assertThat(loader.mRequests).containsExactly("10 10", "20 10");
+        assertThat(observer.mEvents).containsExactly("changed 13 10", "changed 23 10");
+        assertThat(mAdapter.get(3 + 17)).isEqualTo(new Item(17, "loaded"));
+        assertThat(mAdapter.get(3 + 90)).isSameAs(PagedSection.PLACEHOLDER);
+
+        scheduler.triggerActions();
+
+        assertThat(loader.mRequests).containsExactly("10 10", "20 10", "80 10", "90 5");
+        assertThat(mAdapter.get(3 + 94)).isEqualTo(new Item(94, "loaded"));
+    }
+
+    @Test
+    public void pagedSection_whenMorePagesAreLoadedThanTheMaximum_evictsThePagesFurthestAway() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.register(TestItemPresenter.class);
+
+        PagedSection section = new PagedSection(100, 10, new RecordingPageLoader());
+        section.setPrefetchDistance(0);
+        section.setMaxLoadedPages(2);
+        mAdapter.add(section);
+
+        mAdapter.get(0);
+        scheduler.triggerActions();
+        mAdapter.get(50);
+        scheduler.triggerActions();
+
+        RecordingObserver observer = new RecordingObserver(placeholders());
+        mAdapter.registerAdapterDataObserver(observer);
+        mAdapter.get(60);
+        scheduler.triggerActions();
+
+        assertThat(observer.mEvents).containsExactly("changed 60 10", "changed 0 10");
+        assertThat(section.getModels().get(0)).isSameAs(PagedSection.PLACEHOLDER);
+        assertThat(section.getModels().get(50)).isEqualTo(new Item(50, "loaded"));
+        assertThat(section.getModels().get(60)).isEqualTo(new Item(60, "loaded"));
+    }
+
+    @Test
+    public void pagedSection_withAMaximumBelowThePrefetchedPages_keepsEveryPrefetchedPage() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.register(TestItemPresenter.class);
+
+        RecordingPageLoader loader = new RecordingPageLoader();
+        PagedSection section = new PagedSection(100, 10, loader);
+        section.setMaxLoadedPages(1);
+        mAdapter.add(section);
+
+        mAdapter.get(15);
+        scheduler.triggerActions();
+        mAdapter.get(15);
+        scheduler.triggerActions();
+
+        assertThat(loader.mRequests).containsExactly("0 10", "10 10", "20 10");
+        assertThat(section.getModels().get(5)).isEqualTo(new Item(5, "loaded"));
+        assertThat(section.getModels().get(25)).isEqualTo(new Item(25, "loaded"));
+    }
+
+    @Test
+    public void pagedSection_whenRemovedWhileLoading_cancelsTheLoads() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.register(TestItemPresenter.class);
+
+        RecordingPageLoader loader = new RecordingPageLoader();
+        PagedSection section = new PagedSection(10, 10, loader);
+        mAdapter.add(section, "PAGED");
+
+        mAdapter.get(0);
+        mAdapter.remove("PAGED");
+        scheduler.triggerActions();
+
+        assertThat(loader.mRequests).isEmpty();
+        assertThat(section.getModels().get(0)).isSameAs(PagedSection.PLACEHOLDER);
+
+        mAdapter.add(section, "PAGED");
+        mAdapter.get(0);
+        scheduler.triggerActions();
+
+        assertThat(section.getModels().get(0)).isEqualTo(new Item(0, "loaded"));
+    }
+
+    @Test
+    public void pagedSection_whenAPageFailsToLoad_requestsItAgain() {
+        TestScheduler scheduler = new TestScheduler();
+        useSchedulers(scheduler);
+        mAdapter.register(TestPlaceholderPresenter.class);
+        mAdapter.register(TestItemPresenter.class);
+
+        RecordingPageLoader loader = new RecordingPageLoader();
+        loader.mFailures = 1;
+        PagedSection section = new PagedSection(10, 10, loader);
+        mAdapter.add(section);
+
+        mAdapter.get(0);
+        scheduler.triggerActions();
+
+        assertThat(section.getModels().get(0)).isSameAs(PagedSection.PLACEHOLDER);
+
+        mAdapter.get(0);
+        scheduler.triggerActions();
+
+        assertThat(loader.mRequests).containsExactly("0 10", "0 10");
+        assertThat(section.getModels().get(0)).isEqualTo(new Item(0, "loaded"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void pagedSection_add_throwsException() {
+        new PagedSection(10, 10, new RecordingPageLoader()).add(new Model1());
+    }
+
+    @After
+    public void tearDown() {
+        RxJavaPlugins.reset();
+        RxAndroidPlugins.reset();
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        layout(recyclerView, 10000);
+    }
+
+    private static void layout(RecyclerView recyclerView, int height) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, height);
+    }
+
+    /**
+     * @return The errors which reach RxJavaPlugins because no subscriber handled them.
+     */
+    private static List<Throwable> recordUndeliverableErrors() {
+        final List<Throwable> errors = new ArrayList<>();
+        RxJavaPlugins.setErrorHandler(new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                errors.add(throwable);
+            }
+        });
+        return errors;
+    }
+
+    private static void useSchedulers(final Scheduler scheduler) {
+        Function<Scheduler, Scheduler> handler = new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler ignored) throws Exception {
+                return scheduler;
+            }
+        };
+        RxJavaPlugins.setComputationSchedulerHandler(handler);
+        RxJavaPlugins.setIoSchedulerHandler(handler);
+        RxAndroidPlugins.setInitMainThreadSchedulerHandler(new Function<Callable<Scheduler>, Scheduler>() {
+            @Override
+            public Scheduler apply(Callable<Scheduler> ignored) throws Exception {
+                return scheduler;
+            }
+        });
+        RxAndroidPlugins.setMainThreadSchedulerHandler(handler);
+    }
+
+    private class RecordingPageLoader implements PagedSection.PageLoader {
+
+        final List<String> mRequests = new ArrayList<>();
+        int mFailures;
+
+        @NonNull
+        @Override
+        public List<?> loadPage(int offset, int count) throws Exception {
+            mRequests.add(offset + " " + count);
+            if (mFailures > 0) {
+                mFailures--;
+                throw new IllegalStateException("Failed to load");
+            }
+            List<Item> items = new ArrayList<>();
+            for (int i = offset; i < offset + count; i++) {
+                items.add(new Item(i, "loaded"));
+            }
+            return items;
+        }
+    }
+
+    private Section sectionOf(int size) {
+        Section section = new Section();
+        for (int i = 0; i < size; i++) {
+            section.add(new Model1());
+        }
+        return section;
+    }
+
+    private List<Object> placeholders() {
+        return new ArrayList<Object>(Collections.nCopies(mAdapter.getItemCount(), null));
+    }
+
+    /**
+     * Adds an item, a section with a header and three items, and another item.
+     *
+     * @return The section.
+     */
+    private Section addSectionBetweenItems() {
+        mAdapter.register(TestItemPresenter.class);
+        mAdapter.register(TestHeaderPresenter.class);
+
+        Section section = new Section(new Header());
+        section.add(new Item(1, "a"));
+        section.add(new Item(2, "a"));
+        section.add(new Item(3, "a"));
+        mAdapter.add(new Item(0, "a"));
+        mAdapter.add(section);
+        mAdapter.add(new Item(4, "a"));
+        return section;
+    }
+
+    private List<Object> snapshot() {
+        List<Object> items = new ArrayList<>();
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            items.add(mAdapter.get(position));
+        }
+        return items;
+    }
+
+    /**
+     * Replays ranged notifications onto a copy of the adapter's items. Inserted and changed items are replaced by a
+     * marker, so the copy only matches the adapter if every change was notified.
+     */
+    private class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+        final Object UPDATED = new Object();
+
+        final List<Object> mItems;
+        final List<String> mEvents = new ArrayList<>();
+        final List<Integer> mChanged = new ArrayList<>();
+        boolean mDataSetChanged;
+        int mMinPosition = Integer.MAX_VALUE;
+        int mMaxPosition = -1;
+
+        RecordingObserver(List<Object> items) {
+            mItems = items;
+        }
+
+        @Override
+        public void onChanged() {
+            mEvents.add("dataSetChanged");
+            mDataSetChanged = true;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mEvents.add("changed " + positionStart + " " + itemCount);
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                mChanged.add(i);
+                mItems.set(i, UPDATED);
+                record(i);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            if (payload == null) {
+                onItemRangeChanged(positionStart, itemCount);
+                return;
+            }
+            mEvents.add("changed " + positionStart + " " + itemCount + " " + payload);
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                mChanged.add(i);
+                mItems.set(i, UPDATED);
+                record(i);
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mEvents.add("inserted " + positionStart + " " + itemCount);
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                mItems.add(i, UPDATED);
+                record(i);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mEvents.add("removed " + positionStart + " " + itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                mItems.remove(positionStart);
+                record(positionStart + i);
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mEvents.add("moved " + fromPosition + " " + toPosition);
+            mItems.add(toPosition, mItems.remove(fromPosition));
+            record(fromPosition);
+            record(toPosition);
+        }
+
+        /**
+         * Asserts that the replayed items are the adapter's items, except where the adapter notified an update.
+         */
+        void assertMatches(List<Object> items) {
+            assertThat(mItems).hasSize(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                if (mItems.get(i) != UPDATED) {
+                    assertThat(mItems.get(i)).isEqualTo(items.get(i));
+                }
+            }
+        }
+
+        private void record(int position) {
+            mMinPosition = Math.min(mMinPosition, position);
+            mMaxPosition = Math.max(mMaxPosition, position);
+        }
+    }
+
+    private static int linearCount(Map<String, Section> sections) {
+        int count = 0;
+        for (Section section : sections.values()) {
+            count += section.totalSize();
+        }
+        return count;
+    }
+
+    private static Object linearGet(Map<String, Section> sections, int adapterPosition) {
+        if (adapterPosition < 0) {
+            return null;
+        }
+        int sectionEnd = 0;
+        for (Section section : sections.values()) {
+            int sectionStart = sectionEnd;
+            sectionEnd += section.totalSize();
+            if (adapterPosition < sectionEnd) {
+                return section.getModel(adapterPosition - sectionStart);
+            }
+        }
+        return null;
+    }
+
+    class Model1 { }
+
+    class Model1Child extends Model1 { }
+
+    class Model2 { }
+
+    interface Named { }
+
+    class NamedModel implements Named { }
+
+    class Header { }
+
+    class Row {
+
+        final List<Item> mItems;
+
+        Row(Item... items) {
+            mItems = Arrays.asList(items);
+        }
+    }
+
+    class Item {
+
+        final int mId;
+        final String mText;
+
+        Item(int id, String text) {
+            mId = id;
+            mText = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).mId == mId && ((Item) o).mText.equals(mText);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mId + mText.hashCode();
+        }
+    }
+
+    class KeyedItem extends Item implements Keyed {
+
+        KeyedItem(int id, String text) {
+            super(id, text);
+        }
+
+        @NonNull
+        @Override
+        public Object getKey() {
+            return mId;
+        }
+    }
+
+    private static final DiffCallback ITEM_DIFF = new DiffCallback() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            if (oldModel instanceof Item && newModel instanceof Item) {
+                return ((Item) oldModel).mId == ((Item) newModel).mId;
+            }
+            return oldModel == newModel;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            return oldModel.equals(newModel);
+        }
+    };
+
+    private static final DiffCallback FAILING_DIFF = new DiffCallback() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            throw new IllegalStateException("Failed to compare");
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldModel, @NonNull Object newModel) {
+            throw new IllegalStateException("Failed to compare");
+        }
+    };
+
+    @PresenterFor(Model1.class)
+    public static class TestPresenter1 extends Presenter<Model1> {
+
+        public Object mModel;
+
+        public TestPresenter1(ViewGroup parent) {
+            super(R.layout.layout_a, parent);
+        }
+
+        @Override
+        public void present(Model1 model, @NonNull UniversalRelay relay) {
+            mModel = model;
+        }
+    }
+
+    @PresenterFor(Model2.class)
+    public static class TestPresenter2 extends Presenter<Model2> {
+
+        public TestPresenter2(ViewGroup parent) {
+            super(R.layout.layout_b, parent);
+        }
+
+        @Override
+        public void present(Model2 model, @NonNull UniversalRelay relay) { }
+    }
+
+    public static class TestChildPresenter extends Presenter<Model1Child> {
+
+        public TestChildPresenter(ViewGroup parent) {
+            super(R.layout.layout_a, parent);
+        }
+
+        @Override
+        public void present(Model1Child model, @NonNull UniversalRelay relay) { }
+    }
+
+    public static class TestNamedPresenter extends Presenter<Named> {
+
+        public TestNamedPresenter(ViewGroup parent) {
+            super(R.layout.layout_c, parent);
+        }
+
+        @Override
+        public void present(Named model, @NonNull UniversalRelay relay) { }
+    }
+
+    public abstract static class TestBasePresenter<M> extends Presenter<M> {
+
+        public TestBasePresenter(ViewGroup parent) {
+            super(R.layout.layout_b, parent);
+        }
+    }
+
+    public static class TestDerivedPresenter extends TestBasePresenter<Model2> {
+
+        public TestDerivedPresenter(ViewGroup parent) {
+            super(parent);
+        }
+
+        @Override
+        public void present(Model2 model, @NonNull UniversalRelay relay) { }
+    }
+
+    public class InnerPresenter extends Presenter<Model2> {
+
+        public InnerPresenter(ViewGroup parent) {
+            super(R.layout.layout_b, parent);
         }
 
         @Override
         public void present(Model2 model, @NonNull UniversalRelay relay) { }
     }
 
+    public static class TestItemPresenter extends Presenter<Item> {
+
+        public TestItemPresenter(ViewGroup parent) {
+            super(R.layout.layout_c, parent);
+        }
+
+        @Override
+        public void present(Item model, @NonNull UniversalRelay relay) { }
+    }
+
+    public static class ItemPresenterFactory implements PresenterFactory<Item> {
+
+        @NonNull
+        @Override
+        public Presenter<Item> create(@NonNull ViewGroup parent) {
+            return new TestItemPresenter(parent);
+        }
+    }
+
+    public static class TestCarouselPresenter extends CarouselPresenter<Row> {
+
+        public TestCarouselPresenter(ViewGroup parent, CarouselPool pool) {
+            super(parent, pool);
+            getCarouselAdapter().register(TestItemPresenter.class);
+        }
+
+        @NonNull
+        @Override
+        protected Section getSection(@NonNull Row model) {
+            Section section = new Section();
+            for (Item item : model.mItems) {
+                section.add(item);
+            }
+            return section;
+        }
+
+        @Override
+        public void present(Row model, @NonNull UniversalRelay relay) {
+            super.present(model, relay);
+        }
+
+        public RecyclerView getCarousel() {
+            return getRecyclerView();
+        }
+    }
+
+    public static class MeteredCarouselPresenter extends TestCarouselPresenter {
+
+        public MeteredCarouselPresenter(ViewGroup parent, CarouselPool pool, AdapterMetrics metrics) {
+            super(parent, pool);
+            getCarouselAdapter().setMetrics(metrics);
+            getRecyclerView().setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    CAROUSEL_HEIGHT));
+        }
+    }
+
+    public static class TestRecyclingPresenter extends Presenter<Item> {
+
+        public final List<String> mEvents = new ArrayList<>();
+        public Item mModel;
+        public boolean mClearsTransientState;
+
+        public TestRecyclingPresenter(ViewGroup parent) {
+            super(R.layout.layout_c, parent);
+        }
+
+        @Override
+        public void present(Item model, @NonNull UniversalRelay relay) {
+            mModel = model;
+            mEvents.add("present");
+        }
+
+        @Override
+        protected void onAttached() {
+            mEvents.add("attached");
+        }
+
+        @Override
+        protected void onDetached() {
+            mEvents.add("detached");
+        }
+
+        @Override
+        protected void onRecycled() {
+            mModel = null;
+            mEvents.add("recycled");
+        }
+
+        @Override
+        protected boolean onFailedToRecycle() {
+            mEvents.add("failedToRecycle");
+            return mClearsTransientState;
+        }
+    }
+
+    public static class TestPartialPresenter extends Presenter<Item> {
+
+        public final List<Object> mPayloads = new ArrayList<>();
+        public boolean mAcceptsPartial;
+        public int mPresentCount;
+
+        public TestPartialPresenter(ViewGroup parent) {
+            super(R.layout.layout_c, parent);
+        }
+
+        @Override
+        public void present(Item model, @NonNull UniversalRelay relay) {
+            mPresentCount++;
+        }
+
+        @Override
+        protected boolean presentPartial(Item model, @NonNull List<Object> payloads, @NonNull UniversalRelay relay) {
+            mPayloads.addAll(payloads);
+            return mAcceptsPartial;
+        }
+    }
+
+    public static class TestPreparingPresenter extends PreparingPresenter<Item, String> {
+
+        public String mPrepared;
+        public int mPrepareCount;
+
+        public TestPreparingPresenter(ViewGroup parent) {
+            super(R.layout.layout_c, parent);
+        }
+
+        @Override
+        protected String prepare(Item model) {
+            mPrepareCount++;
+            return model.mText.toUpperCase();
+        }
+
+        @Override
+        protected void present(Item model, String prepared, @NonNull UniversalRelay relay) {
+            mPrepared = prepared;
+        }
+    }
+
+    public static class TestPlaceholderPresenter extends Presenter<PagedSection.Placeholder> {
+
+        public TestPlaceholderPresenter(ViewGroup parent) {
+            super(R.layout.layout_b, parent);
+        }
+
+        @Override
+        public void present(PagedSection.Placeholder model, @NonNull UniversalRelay relay) { }
+    }
+
     public static class TestHeaderPresenter extends Presenter<Header> {
 
         public TestHeaderPresenter(ViewGroup parent) {
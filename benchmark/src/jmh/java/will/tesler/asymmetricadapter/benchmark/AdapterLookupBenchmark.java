@@ -0,0 +1,126 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.Presenter;
+import will.tesler.asymmetricadapter.adapter.Section;
+import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures how the per-position paths of the adapter scale with the number of sections and models. At the largest
+ * parameters the adapter holds 10,000 sections of 100 models each, one million models in total.
+ * <p>
+ * Positions are drawn at random up front, so the lookups are spread over the whole adapter and are not served by a
+ * cache of the previous lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdapterLookupBenchmark {
+
+    private static final int POSITION_MASK = 1023;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int sections;
+
+    @Param({"1", "100"})
+    public int modelsPerSection;
+
+    private UniversalAdapter mAdapter;
+    private Section mFirstSection;
+    private Section mLastSection;
+    private Presenter mPresenter;
+    private final int[] mPositions = new int[POSITION_MASK + 1];
+    private int mCursor;
+
+    @Setup
+    public void setup() {
+        mAdapter = new UniversalAdapter();
+        mAdapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+        mAdapter.beginBatch();
+        for (int i = 0; i < sections; i++) {
+            Section section = new Section();
+            for (int j = 0; j < modelsPerSection; j++) {
+                section.add(new BenchmarkModel());
+            }
+            mAdapter.add(section);
+            if (mFirstSection == null) {
+                mFirstSection = section;
+            }
+            mLastSection = section;
+        }
+        mAdapter.commit();
+        mPresenter = mAdapter.createViewHolder(Fixtures.newParent(), 0);
+
+        Random random = new Random(42);
+        int itemCount = mAdapter.getItemCount();
+        for (int i = 0; i < mPositions.length; i++) {
+            mPositions[i] = random.nextInt(itemCount);
+        }
+    }
+
+    private int nextPosition() {
+        return mPositions[mCursor++ & POSITION_MASK];
+    }
+
+    @Benchmark
+    public Object get() {
+        return mAdapter.get(nextPosition());
+    }
+
+    @Benchmark
+    public int getItemViewType() {
+        return mAdapter.getItemViewType(nextPosition());
+    }
+
+    @Benchmark
+    public Presenter bindViewHolder() {
+        mAdapter.bindViewHolder(mPresenter, nextPosition());
+        return mPresenter;
+    }
+
+    @Benchmark
+    public int getItemCount() {
+        return mAdapter.getItemCount();
+    }
+
+    /**
+     * Inserts a model at the start of the first section and removes it again, notifying the adapter each time. Both
+     * invalidate the offsets of every section, which are then recomputed to count the items.
+     */
+    @Benchmark
+    public int insertAndRemoveInTheFirstSection() {
+        mFirstSection.add(new BenchmarkModel(), 0);
+        mAdapter.notifyItemInserted(0);
+        return mAdapter.remove(0) != null ? mAdapter.getItemCount() : -1;
+    }
+
+    /**
+     * Appends a model to the last section and removes it again, notifying the adapter each time.
+     */
+    @Benchmark
+    public int appendAndRemoveInTheLastSection() {
+        int itemCount = mAdapter.getItemCount();
+        mLastSection.add(new BenchmarkModel());
+        mAdapter.notifyItemInserted(itemCount);
+        return mAdapter.remove(itemCount) != null ? mAdapter.getItemCount() : -1;
+    }
+}
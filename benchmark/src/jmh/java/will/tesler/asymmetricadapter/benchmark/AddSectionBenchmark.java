@@ -0,0 +1,73 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.AddResult;
+import will.tesler.asymmetricadapter.adapter.Section;
+import will.tesler.asymmetricadapter.adapter.TypedSection;
+import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures adding sections, which verifies that every model of the section has been registered before the section is
+ * added, at up to one million models per section. A {@link TypedSection} is verified by its model class alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddSectionBenchmark {
+
+    private static final String TAG = "TAG";
+
+    @Param({"10", "1000", "1000000"})
+    public int models;
+
+    @Param({"false", "true"})
+    public boolean typed;
+
+    private UniversalAdapter mAdapter;
+    private Section mSection;
+
+    @Setup
+    public void setup() {
+        mAdapter = new UniversalAdapter();
+        mAdapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+        mSection = typed ? new TypedSection<>(BenchmarkModel.class) : new Section();
+        for (int i = 0; i < models; i++) {
+            mSection.add(new BenchmarkModel());
+        }
+        mAdapter.add(mSection, TAG);
+    }
+
+    /**
+     * Replaces a tagged section with itself, so the adapter does not grow between invocations.
+     */
+    @Benchmark
+    public AddResult replaceTaggedSection() {
+        return mAdapter.add(mSection, TAG);
+    }
+
+    /**
+     * Adds an untagged section and removes it again by handle.
+     */
+    @Benchmark
+    public Section addAndRemoveUntaggedSection() {
+        return mAdapter.remove(mAdapter.add(mSection).getHandle());
+    }
+}
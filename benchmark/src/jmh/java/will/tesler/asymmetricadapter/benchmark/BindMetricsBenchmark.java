@@ -0,0 +1,56 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.AdapterMetrics;
+import will.tesler.asymmetricadapter.adapter.Presenter;
+import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures what {@link AdapterMetrics} add to binding a presenter, compared to an adapter without metrics.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindMetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private UniversalAdapter mAdapter;
+    private Presenter mPresenter;
+
+    @Setup
+    public void setup() {
+        mAdapter = new UniversalAdapter();
+        mAdapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+        mAdapter.add(new BenchmarkModel());
+        if (metrics) {
+            mAdapter.setMetrics(new AdapterMetrics());
+        }
+        mPresenter = mAdapter.createViewHolder(Fixtures.newParent(), 0);
+    }
+
+    @Benchmark
+    public Presenter bindViewHolder() {
+        mAdapter.bindViewHolder(mPresenter, 0);
+        return mPresenter;
+    }
+}
@@ -0,0 +1,42 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import will.tesler.asymmetricadapter.adapter.Presenter;
+import will.tesler.asymmetricadapter.adapter.PresenterFactory;
+import will.tesler.asymmetricadapter.adapter.UniversalRelay;
+
+/**
+ * Models and presenters shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() { }
+
+    static ViewGroup newParent() {
+        return new RecyclerView(new Context());
+    }
+
+    static class BenchmarkModel { }
+
+    public static class BenchmarkPresenter extends Presenter<BenchmarkModel> {
+
+        public BenchmarkPresenter(ViewGroup parent) {
+            super(0, parent);
+        }
+
+        @Override
+        protected void present(BenchmarkModel model, @NonNull UniversalRelay relay) { }
+    }
+
+    static final PresenterFactory<BenchmarkModel> FACTORY = new PresenterFactory<BenchmarkModel>() {
+        @NonNull
+        @Override
+        public Presenter<BenchmarkModel> create(@NonNull ViewGroup parent) {
+            return new BenchmarkPresenter(parent);
+        }
+    };
+}
@@ -0,0 +1,117 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures what impression tracking adds to a scroll of a RecyclerView with a screenful of children, compared to an
+ * adapter which does not track impressions. Run with {@code -prof gc} to confirm that a scroll does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImpressionTrackingBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({"false", "true"})
+    public boolean tracking;
+
+    private ScrollingRecyclerView mRecyclerView;
+
+    @Setup
+    public void setup() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+        for (int i = 0; i < ITEMS; i++) {
+            adapter.add(new BenchmarkModel());
+        }
+        if (tracking) {
+            // The main thread stand-in cannot delay work, so impressions are made without a dwell time.
+            adapter.setImpressionTracking(0.5f, 0);
+        }
+        mRecyclerView = new ScrollingRecyclerView(new Context());
+        adapter.onAttachedToRecyclerView(mRecyclerView);
+    }
+
+    @Benchmark
+    public RecyclerView scroll() {
+        mRecyclerView.scrollBy(0, 7);
+        return mRecyclerView;
+    }
+
+    /**
+     * Lays out a column of children 100 pixels high in a 1920 pixel high RecyclerView, and moves them as it scrolls.
+     * Scrolling wraps around before the end of the adapter.
+     */
+    private static final class ScrollingRecyclerView extends RecyclerView {
+
+        private static final int CHILD_HEIGHT = 100;
+        private static final int HEIGHT = 1920;
+        private static final int MAX_OFFSET = (ITEMS - HEIGHT / CHILD_HEIGHT - 2) * CHILD_HEIGHT;
+
+        private final View[] mChildren = new View[HEIGHT / CHILD_HEIGHT + 1];
+        private int mOffset;
+
+        ScrollingRecyclerView(Context context) {
+            super(context);
+            layout(0, 0, 1080, HEIGHT);
+            for (int i = 0; i < mChildren.length; i++) {
+                mChildren[i] = new View(context);
+            }
+        }
+
+        @Override
+        public void scrollBy(int x, int y) {
+            mOffset = (mOffset + y) % MAX_OFFSET;
+            int top = -(mOffset % CHILD_HEIGHT);
+            for (View child : mChildren) {
+                child.layout(0, top, 1080, top + CHILD_HEIGHT);
+                top += CHILD_HEIGHT;
+            }
+            super.scrollBy(x, y);
+        }
+
+        @Override
+        public int getChildCount() {
+            return mChildren.length;
+        }
+
+        @Override
+        public View getChildAt(int index) {
+            return mChildren[index];
+        }
+
+        @Override
+        public int getChildAdapterPosition(View child) {
+            for (int i = 0; i < mChildren.length; i++) {
+                if (mChildren[i] == child) {
+                    return mOffset / CHILD_HEIGHT + i;
+                }
+            }
+            return NO_POSITION;
+        }
+    }
+}
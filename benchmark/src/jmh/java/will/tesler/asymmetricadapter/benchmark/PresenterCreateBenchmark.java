@@ -0,0 +1,81 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import android.view.ViewGroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.Presenter;
+import will.tesler.asymmetricadapter.adapter.UniversalAdapter;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkPresenter;
+
+/**
+ * Measures the cost of creating and registering presenters. {@code lookupConstructorOnEveryCreate} reproduces the
+ * create path from before presenter factories, where every {@code onCreateViewHolder} looked the constructor up again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresenterCreateBenchmark {
+
+    private ViewGroup mParent;
+    private UniversalAdapter mClassAdapter;
+    private UniversalAdapter mFactoryAdapter;
+
+    @Setup
+    public void setup() {
+        mParent = Fixtures.newParent();
+
+        mClassAdapter = new UniversalAdapter();
+        mClassAdapter.register(BenchmarkPresenter.class);
+
+        mFactoryAdapter = new UniversalAdapter();
+        mFactoryAdapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+    }
+
+    @Benchmark
+    public Presenter lookupConstructorOnEveryCreate() throws Exception {
+        Constructor<? extends Presenter> constructor = BenchmarkPresenter.class.getDeclaredConstructor(ViewGroup.class);
+        return constructor.newInstance(mParent);
+    }
+
+    @Benchmark
+    public Presenter createWithCachedConstructor() {
+        return mClassAdapter.createViewHolder(mParent, 0);
+    }
+
+    @Benchmark
+    public Presenter createWithFactory() {
+        return mFactoryAdapter.createViewHolder(mParent, 0);
+    }
+
+    @Benchmark
+    public UniversalAdapter registerClass() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.register(BenchmarkPresenter.class);
+        return adapter;
+    }
+
+    @Benchmark
+    public UniversalAdapter registerFactory() {
+        UniversalAdapter adapter = new UniversalAdapter();
+        adapter.register(BenchmarkModel.class, Fixtures.FACTORY);
+        return adapter;
+    }
+}
@@ -0,0 +1,95 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.TestScheduler;
+
+import will.tesler.asymmetricadapter.adapter.DeliveryPolicy;
+import will.tesler.asymmetricadapter.adapter.UniversalRelay;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures the cost of emitting an event through the relay while observers of other actions are subscribed. Exactly
+ * one observer matches the emitted event. The frame benchmarks emit a frame's worth of events and deliver them either
+ * immediately or as one batch under a {@link DeliveryPolicy}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelayBenchmark {
+
+    /**
+     * The number of events emitted per frame by the frame benchmarks.
+     */
+    private static final int EVENTS_PER_FRAME = 16;
+
+    @Param({"1", "10", "100", "1000"})
+    public int observers;
+
+    private UniversalRelay mRelay;
+    private final TestScheduler mFrameScheduler = new TestScheduler();
+    private final BenchmarkModel mModel = new BenchmarkModel();
+    private int mDelivered;
+
+    @Setup
+    public void setup() {
+        mRelay = new UniversalRelay();
+        Consumer<BenchmarkModel> consumer = new Consumer<BenchmarkModel>() {
+            @Override
+            public void accept(BenchmarkModel model) throws Exception {
+                mDelivered++;
+            }
+        };
+        for (int i = 0; i < observers; i++) {
+            mRelay.getObservable(BenchmarkModel.class, "action" + i).subscribe(consumer);
+        }
+        mRelay.getObservable(BenchmarkModel.class, "batched").subscribe(consumer);
+        mRelay.setDeliveryPolicy("batched", DeliveryPolicy.on(mFrameScheduler, EVENTS_PER_FRAME));
+    }
+
+    @Benchmark
+    public int acceptObservedAction() {
+        mRelay.accept(mModel, "action0");
+        return mDelivered;
+    }
+
+    @Benchmark
+    public int acceptUnobservedAction() {
+        mRelay.accept(mModel, "unobserved");
+        return mDelivered;
+    }
+
+    @Benchmark
+    public int acceptFrameImmediately() {
+        for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+            mRelay.accept(mModel, "action0");
+        }
+        return mDelivered;
+    }
+
+    @Benchmark
+    public int acceptFrameBatched() {
+        for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+            mRelay.accept(mModel, "batched");
+        }
+        mFrameScheduler.triggerActions();
+        return mDelivered;
+    }
+}
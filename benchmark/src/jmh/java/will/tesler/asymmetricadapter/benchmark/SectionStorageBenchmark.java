@@ -0,0 +1,148 @@
+package will.tesler.asymmetricadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import will.tesler.asymmetricadapter.adapter.Section;
+
+import static will.tesler.asymmetricadapter.benchmark.Fixtures.BenchmarkModel;
+
+/**
+ * Measures the storage of large sections. The {@code arrayList} benchmarks reproduce the storage from before chunked
+ * sections, where the models and the header shared one {@link ArrayList} with the header at index 0, so that every
+ * insertion or removal shifted the models after it and adding or removing the header shifted all of them.
+ * <p>
+ * Every benchmark leaves the section as it found it, so the size stays the same across invocations. The
+ * {@code buildByInsertingAtFront} benchmarks build a new list of the same size instead, inserting every model at the
+ * front, which keeps splitting the first chunk of a section.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectionStorageBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private final Object mModel = new BenchmarkModel();
+    private final Object mHeader = new BenchmarkModel();
+
+    private List<Object> mList;
+    private Section mSection;
+
+    @Setup
+    public void setup() {
+        mList = new ArrayList<>();
+        mSection = new Section();
+        for (int i = 0; i < size; i++) {
+            BenchmarkModel model = new BenchmarkModel();
+            mList.add(model);
+            mSection.add(model);
+        }
+    }
+
+    @Benchmark
+    public Object arrayListInsertAndRemoveAtFront() {
+        mList.add(0, mModel);
+        return mList.remove(0);
+    }
+
+    @Benchmark
+    public Object sectionInsertAndRemoveAtFront() {
+        mSection.add(mModel, 0);
+        return mSection.remove(0);
+    }
+
+    @Benchmark
+    public List<Object> arrayListBuildByInsertingAtFront() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(0, mModel);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Section sectionBuildByInsertingAtFront() {
+        Section section = new Section();
+        for (int i = 0; i < size; i++) {
+            section.add(mModel, 0);
+        }
+        return section;
+    }
+
+    @Benchmark
+    public Object arrayListInsertAndRemoveInMiddle() {
+        int position = mList.size() / 2;
+        mList.add(position, mModel);
+        return mList.remove(position);
+    }
+
+    @Benchmark
+    public Object sectionInsertAndRemoveInMiddle() {
+        int position = mSection.size() / 2;
+        mSection.add(mModel, position);
+        return mSection.remove(position);
+    }
+
+    @Benchmark
+    public Object arrayListSetAndClearHeader() {
+        mList.add(0, mHeader);
+        return mList.remove(0);
+    }
+
+    @Benchmark
+    public Object sectionSetAndClearHeader() {
+        mSection.setHeader(mHeader);
+        return mSection.clearHeader();
+    }
+
+    @Benchmark
+    public int arrayListGetModels() {
+        return mList.subList(0, mList.size()).size();
+    }
+
+    @Benchmark
+    public int sectionGetModels() {
+        return mSection.getModels().size();
+    }
+
+    @Benchmark
+    public int arrayListIterate() {
+        int count = 0;
+        for (int i = 0; i < mList.size(); i++) {
+            if (mList.get(i) == mModel) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int sectionIterate() {
+        int count = 0;
+        int totalSize = mSection.totalSize();
+        for (int i = 0; i < totalSize; i++) {
+            if (mSection.getModel(i) == mModel) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
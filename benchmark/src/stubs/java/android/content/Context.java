@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Only what the adapter uses is declared.
+ */
+public class Context {
+}
@@ -0,0 +1,24 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Only what the adapter uses is declared.
+ */
+public final class Build {
+
+    private Build() { }
+
+    public static final class VERSION {
+
+        public static final int SDK_INT = VERSION_CODES.M;
+
+        private VERSION() { }
+    }
+
+    public static final class VERSION_CODES {
+
+        public static final int JELLY_BEAN_MR2 = 18;
+        public static final int M = 23;
+
+        private VERSION_CODES() { }
+    }
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Only what the adapter uses is declared.
+ */
+public final class Looper {
+
+    private static final MessageQueue QUEUE = new MessageQueue();
+
+    private Looper() { }
+
+    public static MessageQueue myQueue() {
+        return QUEUE;
+    }
+}
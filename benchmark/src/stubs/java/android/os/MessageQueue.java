@@ -0,0 +1,28 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Idle handlers are kept but never run, since there
+ * is no event loop.
+ */
+public final class MessageQueue {
+
+    private final List<IdleHandler> mIdleHandlers = new ArrayList<>();
+
+    MessageQueue() { }
+
+    public interface IdleHandler {
+
+        boolean queueIdle();
+    }
+
+    public void addIdleHandler(IdleHandler handler) {
+        mIdleHandlers.add(handler);
+    }
+
+    public void removeIdleHandler(IdleHandler handler) {
+        mIdleHandlers.remove(handler);
+    }
+}
@@ -0,0 +1,7 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android framework interface of the same name.
+ */
+public interface Parcelable {
+}
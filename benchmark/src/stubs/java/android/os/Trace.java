@@ -0,0 +1,13 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Sections are not recorded.
+ */
+public final class Trace {
+
+    private Trace() { }
+
+    public static void beginSection(String sectionName) { }
+
+    public static void endSection() { }
+}
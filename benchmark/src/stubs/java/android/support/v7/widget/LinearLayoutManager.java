@@ -0,0 +1,37 @@
+package android.support.v7.widget;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the support library class of the same name. Everything related to layout is left out.
+ */
+public class LinearLayoutManager extends RecyclerView.LayoutManager {
+
+    public static final int HORIZONTAL = 0;
+    public static final int VERTICAL = 1;
+
+    private final int mOrientation;
+    private final boolean mReverseLayout;
+    private boolean mRecycleChildrenOnDetach;
+
+    public LinearLayoutManager(Context context, int orientation, boolean reverseLayout) {
+        mOrientation = orientation;
+        mReverseLayout = reverseLayout;
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    public boolean getReverseLayout() {
+        return mReverseLayout;
+    }
+
+    public boolean getRecycleChildrenOnDetach() {
+        return mRecycleChildrenOnDetach;
+    }
+
+    public void setRecycleChildrenOnDetach(boolean recycleChildrenOnDetach) {
+        mRecycleChildrenOnDetach = recycleChildrenOnDetach;
+    }
+}
@@ -0,0 +1,303 @@
+package android.support.v7.widget;
+
+import android.content.Context;
+import android.os.Parcelable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM stand-in for the support library class of the same name. Adapters notify their observers in the same order as
+ * the real implementation; everything related to layout is left out.
+ */
+public class RecyclerView extends ViewGroup {
+
+    public static final int NO_POSITION = -1;
+    public static final long NO_ID = -1;
+
+    private final List<OnScrollListener> mScrollListeners = new ArrayList<>();
+    private RecycledViewPool mRecycledViewPool = new RecycledViewPool();
+    private LayoutManager mLayoutManager;
+    private Adapter mAdapter;
+
+    public RecyclerView(Context context) {
+        super(context);
+    }
+
+    public void addOnScrollListener(OnScrollListener listener) {
+        mScrollListeners.add(listener);
+    }
+
+    public void removeOnScrollListener(OnScrollListener listener) {
+        mScrollListeners.remove(listener);
+    }
+
+    public int getChildAdapterPosition(View child) {
+        return NO_POSITION;
+    }
+
+    public void scrollBy(int x, int y) {
+        for (int i = mScrollListeners.size() - 1; i >= 0; i--) {
+            mScrollListeners.get(i).onScrolled(this, x, y);
+        }
+    }
+
+    public RecycledViewPool getRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        mRecycledViewPool = pool;
+    }
+
+    public LayoutManager getLayoutManager() {
+        return mLayoutManager;
+    }
+
+    public void setLayoutManager(LayoutManager layoutManager) {
+        mLayoutManager = layoutManager;
+    }
+
+    public Adapter getAdapter() {
+        return mAdapter;
+    }
+
+    public void setAdapter(Adapter adapter) {
+        mAdapter = adapter;
+    }
+
+    public static class LayoutParams extends ViewGroup.LayoutParams {
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+    }
+
+    public abstract static class LayoutManager {
+
+        public int getChildCount() {
+            return 0;
+        }
+
+        public void scrollToPosition(int position) { }
+
+        public Parcelable onSaveInstanceState() {
+            return null;
+        }
+
+        public void onRestoreInstanceState(Parcelable state) { }
+    }
+
+    public static class RecycledViewPool {
+
+        private static final int DEFAULT_MAX_SCRAP = 5;
+
+        private final Map<Integer, List<ViewHolder>> mScrap = new HashMap<>();
+        private final Map<Integer, Integer> mMaxScrap = new HashMap<>();
+
+        public void setMaxRecycledViews(int viewType, int max) {
+            mMaxScrap.put(viewType, max);
+            List<ViewHolder> scrap = scrapFor(viewType);
+            while (scrap.size() > max) {
+                scrap.remove(scrap.size() - 1);
+            }
+        }
+
+        public ViewHolder getRecycledView(int viewType) {
+            List<ViewHolder> scrap = scrapFor(viewType);
+            return scrap.isEmpty() ? null : scrap.remove(scrap.size() - 1);
+        }
+
+        public void putRecycledView(ViewHolder scrap) {
+            int viewType = scrap.getItemViewType();
+            Integer max = mMaxScrap.get(viewType);
+            List<ViewHolder> heap = scrapFor(viewType);
+            if (heap.size() < (max != null ? max : DEFAULT_MAX_SCRAP)) {
+                heap.add(scrap);
+            }
+        }
+
+        public void clear() {
+            mScrap.clear();
+        }
+
+        private List<ViewHolder> scrapFor(int viewType) {
+            List<ViewHolder> scrap = mScrap.get(viewType);
+            if (scrap == null) {
+                scrap = new ArrayList<>();
+                mScrap.put(viewType, scrap);
+            }
+            return scrap;
+        }
+    }
+
+    public abstract static class OnScrollListener {
+
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) { }
+
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) { }
+    }
+
+    public abstract static class ViewHolder {
+
+        public final View itemView;
+        int mItemViewType = -1;
+
+        public ViewHolder(View itemView) {
+            if (itemView == null) {
+                throw new IllegalArgumentException("itemView may not be null");
+            }
+            this.itemView = itemView;
+        }
+
+        public final int getItemViewType() {
+            return mItemViewType;
+        }
+    }
+
+    public abstract static class AdapterDataObserver {
+
+        public void onChanged() { }
+
+        public void onItemRangeChanged(int positionStart, int itemCount) { }
+
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        public void onItemRangeInserted(int positionStart, int itemCount) { }
+
+        public void onItemRangeRemoved(int positionStart, int itemCount) { }
+
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) { }
+    }
+
+    public abstract static class Adapter<VH extends ViewHolder> {
+
+        private final List<AdapterDataObserver> mObservers = new ArrayList<>();
+        private boolean mHasStableIds;
+
+        public abstract VH onCreateViewHolder(ViewGroup parent, int viewType);
+
+        public abstract void onBindViewHolder(VH holder, int position);
+
+        public void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+            onBindViewHolder(holder, position);
+        }
+
+        public final VH createViewHolder(ViewGroup parent, int viewType) {
+            VH holder = onCreateViewHolder(parent, viewType);
+            holder.mItemViewType = viewType;
+            return holder;
+        }
+
+        public final void bindViewHolder(VH holder, int position) {
+            onBindViewHolder(holder, position, Collections.emptyList());
+        }
+
+        public int getItemViewType(int position) {
+            return 0;
+        }
+
+        public abstract int getItemCount();
+
+        public void setHasStableIds(boolean hasStableIds) {
+            if (hasObservers()) {
+                throw new IllegalStateException("Cannot change whether this adapter has stable IDs while the adapter "
+                        + "has registered observers.");
+            }
+            mHasStableIds = hasStableIds;
+        }
+
+        public final boolean hasStableIds() {
+            return mHasStableIds;
+        }
+
+        public long getItemId(int position) {
+            return NO_ID;
+        }
+
+        public void onViewRecycled(VH holder) { }
+
+        public boolean onFailedToRecycleView(VH holder) {
+            return false;
+        }
+
+        public void onViewAttachedToWindow(VH holder) { }
+
+        public void onViewDetachedFromWindow(VH holder) { }
+
+        public void onAttachedToRecyclerView(RecyclerView recyclerView) { }
+
+        public void onDetachedFromRecyclerView(RecyclerView recyclerView) { }
+
+        public final boolean hasObservers() {
+            return !mObservers.isEmpty();
+        }
+
+        public void registerAdapterDataObserver(AdapterDataObserver observer) {
+            mObservers.add(observer);
+        }
+
+        public void unregisterAdapterDataObserver(AdapterDataObserver observer) {
+            mObservers.remove(observer);
+        }
+
+        public final void notifyDataSetChanged() {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onChanged();
+            }
+        }
+
+        public final void notifyItemChanged(int position) {
+            notifyItemRangeChanged(position, 1);
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeChanged(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemChanged(int position, Object payload) {
+            notifyItemRangeChanged(position, 1, payload);
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeChanged(positionStart, itemCount, payload);
+            }
+        }
+
+        public final void notifyItemInserted(int position) {
+            notifyItemRangeInserted(position, 1);
+        }
+
+        public final void notifyItemMoved(int fromPosition, int toPosition) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeMoved(fromPosition, toPosition, 1);
+            }
+        }
+
+        public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemRemoved(int position) {
+            notifyItemRangeRemoved(position, 1);
+        }
+
+        public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package android.util;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Messages are written to standard error.
+ */
+public final class Log {
+
+    private Log() { }
+
+    public static int e(String tag, String msg) {
+        System.err.println(tag + ": " + msg);
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        System.err.println(tag + ": " + msg);
+        return 0;
+    }
+}
@@ -0,0 +1,23 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Inflating any layout creates a plain {@link View}.
+ */
+public class LayoutInflater {
+
+    private final Context mContext;
+
+    private LayoutInflater(Context context) {
+        mContext = context;
+    }
+
+    public static LayoutInflater from(Context context) {
+        return new LayoutInflater(context);
+    }
+
+    public View inflate(int resource, ViewGroup root, boolean attachToRoot) {
+        return new View(mContext);
+    }
+}
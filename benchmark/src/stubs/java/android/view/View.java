@@ -0,0 +1,63 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Only what the adapter uses is declared.
+ */
+public class View {
+
+    private final Context mContext;
+    private ViewGroup.LayoutParams mLayoutParams;
+    private int mLeft;
+    private int mTop;
+    private int mRight;
+    private int mBottom;
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public final Context getContext() {
+        return mContext;
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+    }
+
+    public void layout(int l, int t, int r, int b) {
+        mLeft = l;
+        mTop = t;
+        mRight = r;
+        mBottom = b;
+    }
+
+    public final int getLeft() {
+        return mLeft;
+    }
+
+    public final int getTop() {
+        return mTop;
+    }
+
+    public final int getRight() {
+        return mRight;
+    }
+
+    public final int getBottom() {
+        return mBottom;
+    }
+
+    public final int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public final int getHeight() {
+        return mBottom - mTop;
+    }
+}
@@ -0,0 +1,35 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the Android framework class of the same name. Only what the adapter uses is declared.
+ */
+public class ViewGroup extends View {
+
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public int getChildCount() {
+        return 0;
+    }
+
+    public View getChildAt(int index) {
+        return null;
+    }
+
+    public static class LayoutParams {
+
+        public static final int MATCH_PARENT = -1;
+        public static final int WRAP_CONTENT = -2;
+
+        public int width;
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
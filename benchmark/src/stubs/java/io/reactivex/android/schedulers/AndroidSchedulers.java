@@ -0,0 +1,17 @@
+package io.reactivex.android.schedulers;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * JVM stand-in for the RxAndroid class of the same name. There is no main thread, so work scheduled on it runs on
+ * the calling thread.
+ */
+public final class AndroidSchedulers {
+
+    private AndroidSchedulers() { }
+
+    public static Scheduler mainThread() {
+        return Schedulers.trampoline();
+    }
+}
@@ -0,0 +1,345 @@
+package will.tesler.asymmetricadapter.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code PresenterRegistry} class for every package that contains presenters annotated with
+ * {@code PresenterFor}. The registry registers each presenter with a factory which calls its constructor directly,
+ * so the adapter does not need reflection and the constructors do not need to be kept by ProGuard.
+ * <p>
+ * Presenters which could not be created by the registry, and models which are claimed by two presenters of the same
+ * package, are reported as compile errors. A presenter of a parameterized model type, such as
+ * {@code Presenter<List<String>>}, is registered through a factory of the raw type, since a class literal cannot carry
+ * type arguments.
+ */
+public class PresenterProcessor extends AbstractProcessor {
+
+    private static final String ADAPTER_PACKAGE = "will.tesler.asymmetricadapter.adapter";
+    private static final String PRESENTER_FOR = ADAPTER_PACKAGE + ".PresenterFor";
+    private static final String PRESENTER = ADAPTER_PACKAGE + ".Presenter";
+    private static final String VIEW_GROUP = "android.view.ViewGroup";
+    private static final String REGISTRY_NAME = "PresenterRegistry";
+
+    /**
+     * A presenter which passed validation.
+     */
+    private static final class Registration {
+
+        final TypeElement presenter;
+        final TypeMirror presentedType;
+        final TypeElement model;
+
+        Registration(TypeElement presenter, TypeMirror presentedType, TypeElement model) {
+            this.presenter = presenter;
+            this.presentedType = presentedType;
+            this.model = model;
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(PRESENTER_FOR);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement presenterFor = processingEnv.getElementUtils().getTypeElement(PRESENTER_FOR);
+        if (presenterFor == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        Map<String, List<Registration>> registrationsByPackage = new TreeMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(presenterFor)) {
+            Registration registration = validate(element);
+            if (registration != null) {
+                String packageName =
+                        processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+                List<Registration> registrations = registrationsByPackage.get(packageName);
+                if (registrations == null) {
+                    registrations = new ArrayList<>();
+                    registrationsByPackage.put(packageName, registrations);
+                }
+                registrations.add(registration);
+            }
+        }
+
+        for (Map.Entry<String, List<Registration>> entry : registrationsByPackage.entrySet()) {
+            List<Registration> registrations = entry.getValue();
+            Collections.sort(registrations, new Comparator<Registration>() {
+                @Override
+                public int compare(Registration left, Registration right) {
+                    return left.presenter.getQualifiedName().toString()
+                            .compareTo(right.presenter.getQualifiedName().toString());
+                }
+            });
+            if (checkDuplicates(registrations)) {
+                write(entry.getKey(), registrations);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that an annotated element is a presenter which the generated registry can construct, and that its model
+     * is one it can present.
+     *
+     * @return The registration or null if an error was reported.
+     */
+    private Registration validate(Element element) {
+        Messager messager = processingEnv.getMessager();
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+
+        if (element.getKind() != ElementKind.CLASS) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@PresenterFor can only annotate classes.", element);
+            return null;
+        }
+        TypeElement presenter = (TypeElement) element;
+        TypeElement presenterBase = elements.getTypeElement(PRESENTER);
+        if (!types.isSubtype(types.erasure(presenter.asType()), types.erasure(presenterBase.asType()))) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    presenter.getSimpleName() + " is annotated with @PresenterFor but does not extend Presenter.",
+                    element);
+            return null;
+        }
+        if (presenter.getModifiers().contains(Modifier.ABSTRACT) || !presenter.getTypeParameters().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    presenter.getSimpleName() + " must be a concrete, non-generic class to be registered.", element);
+            return null;
+        }
+        Element enclosing = presenter;
+        while (enclosing.getKind().isClass()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        presenter.getSimpleName() + " must not be private or nested in a private class.", element);
+                return null;
+            }
+            if (((TypeElement) enclosing).getNestingKind() == NestingKind.MEMBER
+                    && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        presenter.getSimpleName() + " must not be an inner class. Make it static.", element);
+                return null;
+            }
+            enclosing = enclosing.getEnclosingElement();
+        }
+        if (!hasViewGroupConstructor(presenter)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, presenter.getSimpleName() + " must define a constructor "
+                    + presenter.getSimpleName() + "(ViewGroup parent) which is not private.", element);
+            return null;
+        }
+
+        TypeMirror presentedType = presentedType(presenter, presenterBase);
+        TypeElement model = modelOf(presenterFor(presenter));
+        if (presentedType == null || model == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Could not determine the model presented by " + presenter.getSimpleName() + ".", element);
+            return null;
+        }
+        if (!types.isAssignable(types.erasure(model.asType()), types.erasure(presentedType))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, presenter.getSimpleName() + " presents "
+                    + presentedType + " and cannot present " + model.getQualifiedName() + ".", element);
+            return null;
+        }
+        return new Registration(presenter, presentedType, model);
+    }
+
+    private boolean hasViewGroupConstructor(TypeElement presenter) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(presenter.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE) || constructor.getParameters().size() != 1) {
+                continue;
+            }
+            TypeMirror parameter = constructor.getParameters().get(0).asType();
+            if (parameter.getKind() == TypeKind.DECLARED
+                    && ((TypeElement) ((DeclaredType) parameter).asElement()).getQualifiedName()
+                    .contentEquals(VIEW_GROUP)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves {@code T} in {@code Presenter<T>} for a presenter, through any intermediate presenter classes, by
+     * looking at the parameter of {@code present} as a member of the presenter.
+     */
+    private TypeMirror presentedType(TypeElement presenter, TypeElement presenterBase) {
+        for (ExecutableElement method : ElementFilter.methodsIn(presenterBase.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals("present") && method.getParameters().size() == 2) {
+                ExecutableType asMember = (ExecutableType) processingEnv.getTypeUtils()
+                        .asMemberOf((DeclaredType) presenter.asType(), method);
+                TypeMirror presented = asMember.getParameterTypes().get(0);
+                return presented.getKind() == TypeKind.DECLARED ? presented : null;
+            }
+        }
+        return null;
+    }
+
+    private AnnotationMirror presenterFor(TypeElement presenter) {
+        for (AnnotationMirror annotation : presenter.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(PRESENTER_FOR)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private TypeElement modelOf(AnnotationMirror annotation) {
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof DeclaredType) {
+                    return (TypeElement) ((DeclaredType) value).asElement();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reports every model of a package which is claimed by more than one presenter.
+     *
+     * @return {@code true} if there were no duplicates.
+     */
+    private boolean checkDuplicates(List<Registration> registrations) {
+        boolean valid = true;
+        Map<String, Registration> byModel = new HashMap<>();
+        for (Registration registration : registrations) {
+            String model = registration.model.getQualifiedName().toString();
+            Registration existing = byModel.put(model, registration);
+            if (existing != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, model + " is presented by both "
+                        + existing.presenter.getSimpleName() + " and " + registration.presenter.getSimpleName()
+                        + ".", registration.presenter);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private void write(String packageName, List<Registration> registrations) {
+        Types types = processingEnv.getTypeUtils();
+        boolean unchecked = false;
+        for (Registration registration : registrations) {
+            unchecked |= isParameterized(types, registration.presentedType);
+        }
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import android.support.annotation.NonNull;\n")
+                .append("import android.view.ViewGroup;\n\n")
+                .append("import java.util.Arrays;\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.List;\n\n")
+                .append("import ").append(ADAPTER_PACKAGE).append(".Presenter;\n")
+                .append("import ").append(ADAPTER_PACKAGE).append(".PresenterFactory;\n")
+                .append("import ").append(ADAPTER_PACKAGE).append(".UniversalAdapter;\n\n")
+                .append("/**\n")
+                .append(" * Registers the presenters of this package which are annotated with {@code PresenterFor}.\n")
+                .append(" * Generated by ").append(PresenterProcessor.class.getName()).append(".\n")
+                .append(" */\n")
+                .append("public final class ").append(REGISTRY_NAME).append(" {\n\n")
+                .append("    /**\n")
+                .append("     * The registered model classes. An adapter with no other registrations assigns\n")
+                .append("     * view types in this order.\n")
+                .append("     */\n")
+                .append("    public static final List<Class<?>> MODEL_CLASSES = Collections.unmodifiableList(")
+                .append("Arrays.<Class<?>>asList(\n");
+        for (int i = 0; i < registrations.size(); i++) {
+            source.append("            ").append(registrations.get(i).model.getQualifiedName()).append(".class")
+                    .append(i < registrations.size() - 1 ? ",\n" : "));\n\n");
+        }
+        source
+                .append("    private ").append(REGISTRY_NAME).append("() { }\n\n")
+                .append("    /**\n")
+                .append("     * Registers every annotated presenter of this package with the adapter.\n")
+                .append("     *\n")
+                .append("     * @param adapter The adapter.\n")
+                .append("     */\n");
+        if (unchecked) {
+            source.append("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        }
+        source.append("    public static void registerAll(@NonNull UniversalAdapter adapter) {\n");
+        for (Registration registration : registrations) {
+            // The model class literal is raw, so a parameterized presenter is created through a raw factory.
+            boolean parameterized = isParameterized(types, registration.presentedType);
+            String presented = types.erasure(registration.presentedType).toString();
+            source.append("        adapter.register(").append(registration.model.getQualifiedName())
+                    .append(".class, new PresenterFactory<").append(presented).append(">() {\n")
+                    .append("            @NonNull\n")
+                    .append("            @Override\n")
+                    .append("            public Presenter<").append(presented)
+                    .append("> create(@NonNull ViewGroup parent) {\n")
+                    .append("                return ").append(parameterized ? "(Presenter) new " : "new ")
+                    .append(registration.presenter.getQualifiedName())
+                    .append("(parent);\n")
+                    .append("            }\n")
+                    .append("        });\n");
+        }
+        source.append("    }\n")
+                .append("}\n");
+
+        String name = packageName.isEmpty() ? REGISTRY_NAME : packageName + "." + REGISTRY_NAME;
+        Element[] originatingElements = new Element[registrations.size()];
+        for (int i = 0; i < registrations.size(); i++) {
+            originatingElements[i] = registrations.get(i).presenter;
+        }
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(name, originatingElements);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isParameterized(Types types, TypeMirror type) {
+        return !types.isSameType(type, types.erasure(type));
+    }
+}
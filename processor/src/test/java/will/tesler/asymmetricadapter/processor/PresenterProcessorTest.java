@@ -0,0 +1,167 @@
+package will.tesler.asymmetricadapter.processor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PresenterProcessorTest {
+
+    /**
+     * The parts of Android and of the adapter which the processor and the generated registry refer to.
+     */
+    private static final List<JavaFileObject> LIBRARY = Arrays.asList(
+            source("android.view.ViewGroup",
+                    "package android.view;\n"
+                            + "public class ViewGroup { }\n"),
+            source("android.support.annotation.NonNull",
+                    "package android.support.annotation;\n"
+                            + "public @interface NonNull { }\n"),
+            source("will.tesler.asymmetricadapter.adapter.PresenterFor",
+                    "package will.tesler.asymmetricadapter.adapter;\n"
+                            + "public @interface PresenterFor {\n"
+                            + "    Class<?> value();\n"
+                            + "}\n"),
+            source("will.tesler.asymmetricadapter.adapter.UniversalRelay",
+                    "package will.tesler.asymmetricadapter.adapter;\n"
+                            + "public class UniversalRelay { }\n"),
+            source("will.tesler.asymmetricadapter.adapter.Presenter",
+                    "package will.tesler.asymmetricadapter.adapter;\n"
+                            + "public abstract class Presenter<T> {\n"
+                            + "    protected abstract void present(T model, UniversalRelay relay);\n"
+                            + "}\n"),
+            source("will.tesler.asymmetricadapter.adapter.PresenterFactory",
+                    "package will.tesler.asymmetricadapter.adapter;\n"
+                            + "public interface PresenterFactory<T> {\n"
+                            + "    Presenter<T> create(android.view.ViewGroup parent);\n"
+                            + "}\n"),
+            source("will.tesler.asymmetricadapter.adapter.UniversalAdapter",
+                    "package will.tesler.asymmetricadapter.adapter;\n"
+                            + "public class UniversalAdapter {\n"
+                            + "    public <T> void register(Class<T> modelClass,\n"
+                            + "            PresenterFactory<? super T> factory) { }\n"
+                            + "}\n"));
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final DiagnosticCollector<JavaFileObject> mDiagnostics = new DiagnosticCollector<>();
+
+    @Test
+    public void process_writesARegistryWhichRegistersThePresenter() throws IOException {
+        boolean compiled = compile(source("app.ItemPresenter",
+                "package app;\n"
+                        + "import android.view.ViewGroup;\n"
+                        + "import will.tesler.asymmetricadapter.adapter.*;\n"
+                        + "@PresenterFor(String.class)\n"
+                        + "public class ItemPresenter extends Presenter<String> {\n"
+                        + "    public ItemPresenter(ViewGroup parent) { }\n"
+                        + "    @Override protected void present(String model, UniversalRelay relay) { }\n"
+                        + "}\n"));
+
+        assertThat(compiled).overridingErrorMessage(errors()).isTrue();
+        assertThat(registry("app")).contains("adapter.register(java.lang.String.class, "
+                + "new PresenterFactory<java.lang.String>() {");
+    }
+
+    @Test
+    public void process_withAParameterizedModelType_writesARegistryWhichCompiles() throws IOException {
+        boolean compiled = compile(source("app.ListPresenter",
+                "package app;\n"
+                        + "import android.view.ViewGroup;\n"
+                        + "import java.util.List;\n"
+                        + "import will.tesler.asymmetricadapter.adapter.*;\n"
+                        + "@PresenterFor(List.class)\n"
+                        + "public class ListPresenter extends Presenter<List<String>> {\n"
+                        + "    public ListPresenter(ViewGroup parent) { }\n"
+                        + "    @Override protected void present(List<String> model, UniversalRelay relay) { }\n"
+                        + "}\n"));
+
+        assertThat(compiled).overridingErrorMessage(errors()).isTrue();
+        assertThat(registry("app")).contains("adapter.register(java.util.List.class, "
+                + "new PresenterFactory<java.util.List>() {", "return (Presenter) new app.ListPresenter(parent);");
+    }
+
+    @Test
+    public void process_withAModelThePresenterCannotPresent_reportsAnError() throws IOException {
+        boolean compiled = compile(source("app.ItemPresenter",
+                "package app;\n"
+                        + "import android.view.ViewGroup;\n"
+                        + "import will.tesler.asymmetricadapter.adapter.*;\n"
+                        + "@PresenterFor(Integer.class)\n"
+                        + "public class ItemPresenter extends Presenter<String> {\n"
+                        + "    public ItemPresenter(ViewGroup parent) { }\n"
+                        + "    @Override protected void present(String model, UniversalRelay relay) { }\n"
+                        + "}\n"));
+
+        assertThat(compiled).isFalse();
+        assertThat(errors()).contains("ItemPresenter presents java.lang.String and cannot present java.lang.Integer.");
+    }
+
+    /**
+     * Compiles sources along with the library, running the processor.
+     *
+     * @return {@code true} if there were no errors.
+     */
+    private boolean compile(JavaFileObject... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(mDiagnostics, Locale.ROOT, null);
+        List<JavaFileObject> units = new ArrayList<>(LIBRARY);
+        Collections.addAll(units, sources);
+        List<String> options = Arrays.asList("-d", mFolder.newFolder("classes").getPath(),
+                "-s", mFolder.newFolder("generated").getPath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, mDiagnostics, options, null, units);
+        task.setProcessors(Collections.singletonList(new PresenterProcessor()));
+        try {
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private String registry(String packageName) throws IOException {
+        File file = new File(mFolder.getRoot(),
+                "generated/" + packageName.replace('.', '/') + "/PresenterRegistry.java");
+        return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    }
+
+    private String errors() {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : mDiagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+            }
+        }
+        return errors.toString();
+    }
+
+    private static JavaFileObject source(String name, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}